@@ -15,7 +15,12 @@ import java.util.UUID;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "comment")
+@Table(name = "comment", indexes = {
+        // Serves comment counts and the newest comments of a page of posts
+        @Index(name = "idx_comment_post_date", columnList = "post_id, date"),
+        // Lets the search index catch up on comments written since its last commit
+        @Index(name = "idx_comment_date", columnList = "date, id")
+})
 @Getter
 @Setter
 public class Comment {
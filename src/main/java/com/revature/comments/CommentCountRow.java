@@ -0,0 +1,11 @@
+package com.revature.comments;
+
+import java.util.UUID;
+
+/**
+ * A post id with the number of comments on it, counted in the database.
+ */
+public interface CommentCountRow {
+    UUID getPostId();
+    long getCommentCount();
+}
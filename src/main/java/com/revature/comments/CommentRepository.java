@@ -2,13 +2,40 @@ package com.revature.comments;
 
 import com.revature.comments.Comment;
 import com.revature.posts.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, UUID> {
     List<Comment> getByPost(Post post);
+
+    @Query("select c.id as id, c.post.id as postId, c.commentText as commentText, c.date as date, "
+            + "c.author.id as authorId from Comment c where c.post.id in :postIds order by c.date")
+    List<CommentRow> findRowsByPostIds(@Param("postIds") Collection<UUID> postIds);
+
+    @Query("select c.id as id, c.post.id as postId, c.commentText as commentText, c.date as date, "
+            + "c.author.id as authorId from Comment c where c.id in :ids order by c.date")
+    List<CommentRow> findRowsByIds(@Param("ids") Collection<UUID> ids);
+
+    // Walks comments in (date, id) order, a page after the given position at a time, to build or catch up the search index
+    @Query("select c.id as id, c.post.id as postId, c.commentText as commentText, c.date as date, "
+            + "c.author.id as authorId from Comment c where c.date > :date or (c.date = :date and c.id > :id) order by c.date, c.id")
+    List<CommentRow> findRowsAfter(@Param("date") LocalDateTime date, @Param("id") UUID id, Pageable page);
+
+    @Query("select c.post.id as postId, count(c) as commentCount from Comment c where c.post.id in :postIds group by c.post.id")
+    List<CommentCountRow> countByPostIds(@Param("postIds") Collection<UUID> postIds);
+
+    // Ids of the newest perPost comments of every given post; post ids are stored as text (uuid-char)
+    @Query(value = "select ranked.id from (select c.id as id, row_number() over "
+            + "(partition by c.post_id order by c.date desc, c.id desc) as newest_rank from comment c where c.post_id in (:postIds)) ranked "
+            + "where ranked.newest_rank <= :perPost", nativeQuery = true)
+    List<String> findNewestIdsByPostIds(@Param("postIds") Collection<String> postIds, @Param("perPost") int perPost);
 }
@@ -0,0 +1,16 @@
+package com.revature.comments;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Flat view of a comment used when hydrating a page of posts. Reading ids instead
+ * of the mapped entities keeps Hibernate from loading each author and post.
+ */
+public interface CommentRow {
+    UUID getId();
+    UUID getPostId();
+    String getCommentText();
+    LocalDateTime getDate();
+    String getAuthorId();
+}
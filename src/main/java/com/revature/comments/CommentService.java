@@ -8,10 +8,13 @@ import java.util.UUID;
 
 import com.revature.comments.dtos.NewCommentRequest;
 import com.revature.exceptions.UserNotFoundException;
+import com.revature.notifications.events.CommentAddedEvent;
 import com.revature.posts.Post;
+import com.revature.posts.search.PostIndex;
 import com.revature.users.User;
 import com.revature.users.profiles.Profile;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import com.revature.posts.PostRepository;
 import com.revature.users.profiles.ProfileRepository;
@@ -21,17 +24,23 @@ public class CommentService {
     private final CommentRepository commentRepository;
     private final PostRepository postRepository;
     private final ProfileRepository profileRepository;
+    private final PostIndex postIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     // constructor
     @Autowired
     public CommentService(
             CommentRepository commentRepository,
             PostRepository postRepository,
-            ProfileRepository profileRepository)
+            ProfileRepository profileRepository,
+            PostIndex postIndex,
+            ApplicationEventPublisher eventPublisher)
     {
         this.commentRepository = commentRepository;
         this.postRepository = postRepository;
         this.profileRepository = profileRepository;
+        this.postIndex = postIndex;
+        this.eventPublisher = eventPublisher;
     }
     /*  No parameters
         Returns all Comments in the database
@@ -73,6 +82,12 @@ public class CommentService {
             // Save the comment to the repository
             commentRepository.save(returnComment);
 
+            // Make the comment's text findable through its post
+            postIndex.addComment(returnComment.getId(), postId, returnComment.getCommentText());
+
+            // Notify the post's author
+            eventPublisher.publishEvent(new CommentAddedEvent(postId, user.getId()));
+
             // Return the completed comment as proof.
             return returnComment;
         } else {
@@ -1,14 +1,8 @@
 package com.revature.comments.dtos;
 
-import com.revature.exceptions.UserNotFoundException;
-import com.revature.users.User;
-import com.revature.users.profiles.Profile;
-import com.revature.users.profiles.ProfileRepository;
-import com.revature.users.profiles.ProfileService;
+import com.revature.users.profiles.ProfileSummary;
 import lombok.Data;
 
-import java.util.Optional;
-
 @Data
 public class AuthorDto {
     private String id;
@@ -16,26 +10,23 @@ public class AuthorDto {
     private String lastname;
     private String pfId;
 
-    public AuthorDto (User raw, ProfileRepository profileRepository) {
+    /**
+     * @param userId - id of the comment's author
+     * @param profile - the author's profile, or null when they have not created one
+     */
+    public AuthorDto(String userId, ProfileSummary profile) {
         // Set the user id from the given user
-        this.id = raw.getId();
-
+        this.id = userId;
 
-        Optional<Profile> optionalProfile = profileRepository.getProfileByUser(raw);
-        if (optionalProfile.isPresent()){
-            Profile rawProf = optionalProfile.get();
-            this.firstname = rawProf.getFirstName();
-            this.lastname = rawProf.getLastName();
-            this.pfId = rawProf.getId().toString();
+        if (profile != null) {
+            this.firstname = profile.getFirstName();
+            this.lastname = profile.getLastName();
+            this.pfId = profile.getId().toString();
         }
         else {
             this.firstname = null;
             this.lastname = null;
             this.pfId = null;
         }
-
-
-
-
     }
 }
@@ -0,0 +1,34 @@
+package com.revature.common.util;
+
+import com.revature.exceptions.InvalidRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Opaque position for keyset pagination over a single unique, ascending string key such as a
+ * user id or a group name. The cursor is the key of the last row of the previous page.
+ */
+public final class IdCursor {
+
+    private IdCursor() {
+    }
+
+    /**
+     * @param cursor - value previously returned by {@link #encode(String)}, or null for the first page
+     * @return the key to continue after, or "" (before every key) when no cursor was supplied
+     */
+    public static String decode(String cursor) {
+        if (cursor == null || cursor.trim().isEmpty())
+            return "";
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException("Malformed page cursor");
+        }
+    }
+
+    public static String encode(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,52 @@
+package com.revature.common.util;
+
+import com.revature.exceptions.InvalidRequestException;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Opaque (date, id) position used for keyset pagination. Pages are ordered by
+ * date then id, both descending, so the next page is everything strictly "before"
+ * the last row of the current one.
+ */
+@Getter
+public class KeysetCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime date;
+    private final String id;
+
+    public KeysetCursor(LocalDateTime date, String id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    /**
+     * @param cursor - value previously returned by {@link #encode()}, or null for the first page
+     * @return the decoded cursor, or null when no cursor was supplied
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.trim().isEmpty())
+            return null;
+
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int split = raw.indexOf(SEPARATOR);
+            if (split < 0)
+                throw new InvalidRequestException("Malformed page cursor");
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, split)), raw.substring(split + 1));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidRequestException("Malformed page cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = date.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,34 @@
+package com.revature.common.util;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Responses of the list endpoints kept for old clients after a paged endpoint replaced them. They
+ * answer with the first page only and say so: every response is marked deprecated and links to
+ * its successor, and one that was cut short carries the cursor to continue there with.
+ */
+public final class LegacyListResponse {
+
+    public static final String DEPRECATION = "Deprecation";
+    public static final String NEXT_CURSOR = "Next-Cursor";
+
+    private LegacyListResponse() {
+    }
+
+    /**
+     * @param items - the first page
+     * @param nextCursor - where the successor continues, or null when the page holds everything
+     * @param successor - path of the paged endpoint
+     */
+    public static <T> ResponseEntity<List<T>> firstPage(List<T> items, String nextCursor, String successor) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(DEPRECATION, "true")
+                .header(HttpHeaders.LINK, "<" + successor + ">; rel=\"successor-version\"");
+        if (nextCursor != null)
+            response.header(NEXT_CURSOR, nextCursor);
+        return response.body(items);
+    }
+}
@@ -0,0 +1,14 @@
+package com.revature.follow;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One row of follower_following, as read when building the follow graph.
+ */
+@Getter
+@AllArgsConstructor
+public class FollowEdge {
+    private final String followerId;
+    private final String followeeId;
+}
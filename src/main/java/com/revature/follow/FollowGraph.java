@@ -0,0 +1,338 @@
+package com.revature.follow;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory copy of follower_following. User ids are interned to ints and every user keeps a
+ * set of follower and followee numbers, so follow checks and counts are hash lookups. The graph
+ * is read from the database once the application has started and is then updated as users
+ * follow and unfollow. Until the first build has finished isReady() is false and callers ask the
+ * database instead.
+ */
+@Component
+public class FollowGraph {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowGraph.class);
+
+    private static final IntHashSet NONE = new IntHashSet();
+
+    /**
+     * Immutable copy of the followee lists in compressed rows: the followees of user number n are
+     * targets[offsets[n]] up to targets[offsets[n + 1]]. Numbers are only meaningful within one
+     * snapshot.
+     */
+    public static class Snapshot {
+        private final String[] ids;
+        private final int[] offsets;
+        private final int[] targets;
+
+        private Snapshot(String[] ids, int[] offsets, int[] targets) {
+            this.ids = ids;
+            this.offsets = offsets;
+            this.targets = targets;
+        }
+
+        public int size() {
+            return ids.length;
+        }
+
+        public String idOf(int number) {
+            return ids[number];
+        }
+
+        public int followeeCount(int number) {
+            return offsets[number + 1] - offsets[number];
+        }
+
+        public int followee(int number, int i) {
+            return targets[offsets[number] + i];
+        }
+    }
+
+    private static class Adjacency {
+        private final Map<String, Integer> numbers = new HashMap<>();
+        private final List<String> ids = new ArrayList<>();
+        private final List<IntHashSet> followers = new ArrayList<>();
+        private final List<IntHashSet> followees = new ArrayList<>();
+
+        private int intern(String userId) {
+            Integer number = numbers.get(userId);
+            if (number != null)
+                return number;
+            numbers.put(userId, followers.size());
+            ids.add(userId);
+            followers.add(new IntHashSet());
+            followees.add(new IntHashSet());
+            return followers.size() - 1;
+        }
+
+        private void follow(String followerId, String followeeId) {
+            int follower = intern(followerId);
+            int followee = intern(followeeId);
+            followees.get(follower).add(followee);
+            followers.get(followee).add(follower);
+        }
+
+        private void unfollow(String followerId, String followeeId) {
+            Integer follower = numbers.get(followerId);
+            Integer followee = numbers.get(followeeId);
+            if (follower == null || followee == null)
+                return;
+            followees.get(follower).remove(followee);
+            followers.get(followee).remove(follower);
+        }
+
+        private IntHashSet followersOf(String userId) {
+            Integer number = numbers.get(userId);
+            return number == null ? NONE : followers.get(number);
+        }
+
+        private IntHashSet followeesOf(String userId) {
+            Integer number = numbers.get(userId);
+            return number == null ? NONE : followees.get(number);
+        }
+    }
+
+    private final FollowRepository followRepository;
+    private final FollowProperties properties;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private Adjacency graph;
+    // Changes made while a build is reading the table, replayed onto the new graph before it is used
+    private List<String[]> journal;
+
+    @Autowired
+    public FollowGraph(FollowRepository followRepository, FollowProperties properties) {
+        this.followRepository = followRepository;
+        this.properties = properties;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return graph != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Built off the startup thread so the application can serve requests meanwhile
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread builder = new Thread(this::build, "follow-graph-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void build() {
+        lock.writeLock().lock();
+        try {
+            journal = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        Adjacency built = new Adjacency();
+        int batchSize = properties.getGraphBuildBatchSize();
+        long edges = 0;
+        try {
+            long start = System.currentTimeMillis();
+            String follower = "";
+            String followee = "";
+            List<FollowEdge> batch;
+            do {
+                batch = followRepository.findEdgesAfter(follower, followee, PageRequest.of(0, batchSize));
+                for (FollowEdge edge : batch)
+                    built.follow(edge.getFollowerId(), edge.getFolloweeId());
+                if (!batch.isEmpty()) {
+                    follower = batch.get(batch.size() - 1).getFollowerId();
+                    followee = batch.get(batch.size() - 1).getFolloweeId();
+                }
+                edges += batch.size();
+            } while (batch.size() == batchSize);
+
+            lock.writeLock().lock();
+            try {
+                replay(built);
+                graph = built;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info("Follow graph built with {} users and {} edges in {} ms",
+                    built.numbers.size(), edges, System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            lock.writeLock().lock();
+            try {
+                journal = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.error("Could not build the follow graph, follow checks keep using the database", e);
+        }
+    }
+
+    public void follow(String followerId, String followeeId) {
+        change(followerId, followeeId, true);
+    }
+
+    public void unfollow(String followerId, String followeeId) {
+        change(followerId, followeeId, false);
+    }
+
+    public boolean isFollowing(String followerId, String followeeId) {
+        lock.readLock().lock();
+        try {
+            Integer followee = graph.numbers.get(followeeId);
+            return followee != null && graph.followeesOf(followerId).contains(followee);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countFollowers(String userId) {
+        lock.readLock().lock();
+        try {
+            return graph.followersOf(userId).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countFollowees(String userId) {
+        lock.readLock().lock();
+        try {
+            return graph.followeesOf(userId).size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return ids of the users following the given user, in no particular order
+     */
+    public List<String> getFollowerIds(String userId) {
+        lock.readLock().lock();
+        try {
+            int[] numbers = graph.followersOf(userId).toArray();
+            List<String> ids = new ArrayList<>(numbers.length);
+            for (int number : numbers)
+                ids.add(graph.ids.get(number));
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the followee lists into compressed rows, e.g. for whole-graph computations that
+     * should not hold the lock while they run.
+     */
+    public Snapshot snapshot() {
+        lock.readLock().lock();
+        try {
+            int users = graph.ids.size();
+            int[] offsets = new int[users + 1];
+            for (int number = 0; number < users; number++)
+                offsets[number + 1] = offsets[number] + graph.followees.get(number).size();
+            int[] targets = new int[offsets[users]];
+            for (int number = 0; number < users; number++) {
+                int[] followees = graph.followees.get(number).toArray();
+                System.arraycopy(followees, 0, targets, offsets[number], followees.length);
+            }
+            return new Snapshot(graph.ids.toArray(new String[0]), offsets, targets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Compressed rows of just the given user and the users they follow, so a single user's
+     * two-hop neighbourhood can be walked like a full snapshot.
+     */
+    public Snapshot neighbourhood(String userId) {
+        lock.readLock().lock();
+        try {
+            Integer start = graph.numbers.get(userId);
+            if (start == null)
+                return new Snapshot(new String[0], new int[1], new int[0]);
+
+            // Renumbered densely: the user is 0, then everyone reachable in two hops
+            Map<Integer, Integer> local = new HashMap<>();
+            List<Integer> order = new ArrayList<>();
+            local.put(start, 0);
+            order.add(start);
+            int[] direct = graph.followees.get(start).toArray();
+            for (int followee : direct) {
+                if (local.putIfAbsent(followee, order.size()) == null)
+                    order.add(followee);
+            }
+            int rows = order.size();
+            int[][] lists = new int[rows][];
+            for (int i = 0; i < rows; i++) {
+                int[] followees = graph.followees.get(order.get(i)).toArray();
+                lists[i] = new int[followees.length];
+                for (int j = 0; j < followees.length; j++) {
+                    Integer number = local.get(followees[j]);
+                    if (number == null) {
+                        number = order.size();
+                        local.put(followees[j], number);
+                        order.add(followees[j]);
+                    }
+                    lists[i][j] = number;
+                }
+            }
+
+            int[] offsets = new int[order.size() + 1];
+            for (int i = 0; i < order.size(); i++)
+                offsets[i + 1] = offsets[i] + (i < rows ? lists[i].length : 0);
+            int[] targets = new int[offsets[order.size()]];
+            for (int i = 0; i < rows; i++)
+                System.arraycopy(lists[i], 0, targets, offsets[i], lists[i].length);
+            String[] ids = new String[order.size()];
+            for (int i = 0; i < ids.length; i++)
+                ids[i] = graph.ids.get(order.get(i));
+            return new Snapshot(ids, offsets, targets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void change(String followerId, String followeeId, boolean follow) {
+        lock.writeLock().lock();
+        try {
+            if (journal != null)
+                journal.add(new String[] { follow ? "+" : "-", followerId, followeeId });
+            if (graph == null)
+                return;
+            if (follow)
+                graph.follow(followerId, followeeId);
+            else
+                graph.unfollow(followerId, followeeId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void replay(Adjacency built) {
+        for (String[] change : journal) {
+            if (change[0].equals("+"))
+                built.follow(change[1], change[2]);
+            else
+                built.unfollow(change[1], change[2]);
+        }
+        journal = null;
+    }
+}
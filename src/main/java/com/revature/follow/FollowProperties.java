@@ -0,0 +1,31 @@
+package com.revature.follow;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.follow")
+public class FollowProperties {
+
+    // Number of follow edges read per query when the follow graph is built
+    private int graphBuildBatchSize = 10000;
+
+    // Number of follow suggestions kept per user
+    private int suggestionsPerUser = 20;
+
+    // Threads used to compute suggestions for every user
+    private int suggestionsParallelism = Runtime.getRuntime().availableProcessors();
+
+    // How often suggestions are computed again for every user, picking up group changes
+    private Duration suggestionsRebuildInterval = Duration.ofHours(6);
+
+    // Users with more followers than this only get their own suggestions refreshed on follow,
+    // their followers wait for the next rebuild
+    private int suggestionsFanOutCap = 10000;
+}
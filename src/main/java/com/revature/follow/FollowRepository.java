@@ -1,12 +1,74 @@
 package com.revature.follow;
 
+import com.revature.follow.dtos.FollowSummary;
 import com.revature.users.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface FollowRepository extends JpaRepository<User, String> {
 
+    // Follow edges after the given one, in (follower, followee) order, to read the table a batch at a time
+    @Query("select new com.revature.follow.FollowEdge(u.id, f.id) from User u join u.following f "
+            + "where u.id > :followerId or (u.id = :followerId and f.id > :followeeId) order by u.id, f.id")
+    List<FollowEdge> findEdgesAfter(@Param("followerId") String followerId, @Param("followeeId") String followeeId,
+                                    Pageable page);
+
+    @Query("select count(f) from User u join u.following f where u.id = :userId")
+    long countFollowees(@Param("userId") String userId);
+
+    @Query("select count(f) from User u join u.following f where u.id = :followerId and f.id = :followeeId")
+    long countEdges(@Param("followerId") String followerId, @Param("followeeId") String followeeId);
+
+    // Returns 1 when the follow was added, 0 when the followee is missing or was already followed
+    @Modifying
+    @Query(value = "insert into follower_following (uid_follower_fk, uid_followee_fk) select :followerId, :followeeId "
+            + "where exists (select 1 from users where user_id = :followeeId) "
+            + "and not exists (select 1 from follower_following where uid_follower_fk = :followerId and uid_followee_fk = :followeeId)",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("followerId") String followerId, @Param("followeeId") String followeeId);
+
+    // Follows every given user that exists and is not followed yet, in one statement
+    @Modifying
+    @Query(value = "insert into follower_following (uid_follower_fk, uid_followee_fk) select :followerId, u.user_id from users u "
+            + "where u.user_id in (:followeeIds) "
+            + "and not exists (select 1 from follower_following f where f.uid_follower_fk = :followerId and f.uid_followee_fk = u.user_id)",
+            nativeQuery = true)
+    int insertAllIfAbsent(@Param("followerId") String followerId, @Param("followeeIds") Collection<String> followeeIds);
+
+    @Modifying
+    @Query(value = "delete from follower_following where uid_follower_fk = :followerId and uid_followee_fk = :followeeId",
+            nativeQuery = true)
+    int deleteEdge(@Param("followerId") String followerId, @Param("followeeId") String followeeId);
+
+    @Query("select new com.revature.follow.dtos.FollowSummary(u.id, u.email, p.firstName, p.lastName, p.profileImg) "
+            + "from User u left join Profile p on p.user = u where u.id in :userIds")
+    List<FollowSummary> findSummaries(@Param("userIds") Collection<String> userIds);
+
+    // The subset of the given ids the follower already follows
+    @Query("select f.id from User u join u.following f where u.id = :followerId and f.id in :followeeIds")
+    List<String> findFolloweeIdsAmong(@Param("followerId") String followerId, @Param("followeeIds") Collection<String> followeeIds);
+
+    // The subset of the given ids that belong to a user
+    @Query("select u.id from User u where u.id in :userIds")
+    List<String> findExistingIds(@Param("userIds") Collection<String> userIds);
+
+    // Users the given user follows, ordered by id, after the id the previous page ended with
+    @Query("select new com.revature.follow.dtos.FollowSummary(f.id, f.email, p.firstName, p.lastName, p.profileImg) "
+            + "from User u join u.following f left join Profile p on p.user = f "
+            + "where u.id = :userId and f.id > :afterId order by f.id")
+    List<FollowSummary> findFolloweePage(@Param("userId") String userId, @Param("afterId") String afterId, Pageable page);
+
+    // Users following the given user, ordered by id, after the id the previous page ended with
+    @Query("select new com.revature.follow.dtos.FollowSummary(f.id, f.email, p.firstName, p.lastName, p.profileImg) "
+            + "from User u join u.follower f left join Profile p on p.user = f "
+            + "where u.id = :userId and f.id > :afterId order by f.id")
+    List<FollowSummary> findFollowerPage(@Param("userId") String userId, @Param("afterId") String afterId, Pageable page);
 }
@@ -1,7 +1,11 @@
 package com.revature.follow;
 
+import com.revature.common.util.LegacyListResponse;
+import com.revature.follow.dtos.BulkFollowRequest;
+import com.revature.follow.dtos.FollowPage;
+import com.revature.follow.dtos.FollowSummary;
+import com.revature.follow.dtos.SuggestionResponse;
 import com.revature.users.User;
-import com.revature.users.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -16,13 +20,11 @@ import java.util.List;
 public class FollowingController {
 
     private final FollowingService followingService;
-    private final UserRepository userRepository;
 //    private User currentUser;
 
     @Autowired
-    public FollowingController(FollowingService followingService, UserRepository userRepository) {
+    public FollowingController(FollowingService followingService) {
         this.followingService = followingService;
-        this.userRepository = userRepository;
     }
 
     //get user id from profile id
@@ -32,53 +34,74 @@ public class FollowingController {
         return user.getId();
     }
 
-    // Gets the current user's followed users.
+    // Deprecated: answers the first MAX_PAGE_SIZE followed users, with a Next-Cursor header to continue on /followings
+    @Deprecated
     @GetMapping(path = "/get-followings")
-    public ResponseEntity<List<User>> getListOfFollowings(@AuthenticationPrincipal User currentUser) {
-        return ResponseEntity.ok(followingService.getFollowings(currentUser));
+    public ResponseEntity<List<FollowSummary>> getListOfFollowings(@AuthenticationPrincipal User currentUser) {
+        FollowPage page = followingService.getFollowingPage(currentUser.getId(), null, FollowingService.MAX_PAGE_SIZE);
+        return LegacyListResponse.firstPage(page.getUsers(), page.getNextCursor(), "/api/user/followings");
     }
 
-    // Get the followers of the current user
+    // Deprecated: answers the first MAX_PAGE_SIZE followers, with a Next-Cursor header to continue on /followers
+    @Deprecated
     @GetMapping(path = "/get-owner-followers")
-    public ResponseEntity<List<User>> getListOfFollowers(@AuthenticationPrincipal User currentUser) {
-        return ResponseEntity.ok(followingService.getFollowers(currentUser));
+    public ResponseEntity<List<FollowSummary>> getListOfFollowers(@AuthenticationPrincipal User currentUser) {
+        FollowPage page = followingService.getFollowerPage(currentUser.getId(), null, FollowingService.MAX_PAGE_SIZE);
+        return LegacyListResponse.firstPage(page.getUsers(), page.getNextCursor(), "/api/user/followers");
+    }
+
+    /**
+     * @param userId whose followed users to list, the logged-in user when omitted
+     * @param cursor returned as nextCursor by the previous page, omitted for the first page
+     * @param limit maximum number of users in the page
+     * @return one page of followed users, ordered by id
+     */
+    @GetMapping(path = "/followings")
+    public ResponseEntity<FollowPage> getFollowings(@AuthenticationPrincipal User currentUser,
+                                                    @RequestParam(required = false) String userId,
+                                                    @RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "" + FollowingService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(followingService.getFollowingPage(userId == null ? currentUser.getId() : userId, cursor, limit));
+    }
+
+    /**
+     * @param userId whose followers to list, the logged-in user when omitted
+     * @param cursor returned as nextCursor by the previous page, omitted for the first page
+     * @param limit maximum number of users in the page
+     * @return one page of followers, ordered by id
+     */
+    @GetMapping(path = "/followers")
+    public ResponseEntity<FollowPage> getFollowers(@AuthenticationPrincipal User currentUser,
+                                                   @RequestParam(required = false) String userId,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "" + FollowingService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(followingService.getFollowerPage(userId == null ? currentUser.getId() : userId, cursor, limit));
     }
 
     // Get the number of followers of the user in the path variable
     @GetMapping(path = "/get-followers/{userId}")
     public Integer getFollowerNumber(@PathVariable String userId){
-        User user = userRepository.getById(userId);
-        return user.getFollower().size();
+        return followingService.countFollowers(userId);
     }
 
     // Gets the number of followed accounts of the given user
     @GetMapping(path = "/get-following-num/{userId}")
     public Integer getFollowingNumber(@PathVariable String userId){
-        User user = userRepository.getById(userId);
-        return user.getFollowing().size();
+        return followingService.countFollowees(userId);
     }
 
 
     // Get the number of followers for the logged in user
     @GetMapping(path = "/get-follower-number")
     public ResponseEntity<Integer> getNumberOfFollowers(@AuthenticationPrincipal User currentUser) {
-        return ResponseEntity.ok(followingService.getFollowerNumber(currentUser));
+        return ResponseEntity.ok(followingService.countFollowers(currentUser.getId()));
     }
 
     // Tests if the current user can follow the given user
     @GetMapping(path = "/can-follow/{followUserId}")
     public boolean canFollow(@PathVariable String followUserId,@AuthenticationPrincipal User currentUser) {
         // See if they're trying to follow someone they're already following
-        List<User> following = userRepository.getById(currentUser.getId()).getFollowing();
-        if (following != null)
-        {
-            for (int i = 0; i < following.size(); i++) {
-                if (following.get(i).getId().equals(followUserId)) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return !followingService.isFollowing(currentUser, followUserId);
     }
 
     // Adds the logged in user as a follower to the provided user.
@@ -108,5 +131,19 @@ public class FollowingController {
             ResponseEntity.internalServerError().build();
         }
     }
-}
 
+    /*  Follows every user in the request (at most FollowingService.MAX_BULK_FOLLOWS) in one statement
+        Returns the number of users newly followed; unknown and already followed users are skipped
+     */
+    @PostMapping(path = "/follow-users")
+    public ResponseEntity<Integer> followUsers(@RequestBody BulkFollowRequest request, @AuthenticationPrincipal User currentUser) {
+        return ResponseEntity.ok(followingService.followUsers(currentUser, request.getUserIds()));
+    }
+
+    // People the logged in user may know: followed by the users they follow, read from the precomputed list
+    @GetMapping(path = "/suggestions")
+    public ResponseEntity<List<SuggestionResponse>> getSuggestions(@AuthenticationPrincipal User currentUser,
+                                                                   @RequestParam(defaultValue = "" + FollowingService.DEFAULT_SUGGESTIONS) int limit) {
+        return ResponseEntity.ok(followingService.getSuggestions(currentUser, limit));
+    }
+}
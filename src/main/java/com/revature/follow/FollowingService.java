@@ -1,32 +1,71 @@
 package com.revature.follow;
 
+import com.revature.common.util.IdCursor;
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.follow.dtos.FollowPage;
+import com.revature.follow.dtos.FollowSummary;
+import com.revature.follow.dtos.SuggestionResponse;
+import com.revature.follow.suggestions.FollowSuggestions;
+import com.revature.follow.suggestions.Suggestion;
+import com.revature.notifications.events.UserFollowedEvent;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
 import com.revature.users.User;
 import com.revature.users.profiles.Profile;
 import com.revature.users.profiles.ProfileRepository;
 import com.revature.users.profiles.ProfileService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import com.revature.users.UserRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 
 @Service
 public class FollowingService {
 
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_BULK_FOLLOWS = 500;
+    public static final int DEFAULT_SUGGESTIONS = 10;
+
     //TODO: create isValidUser helper method to clean up code
 
     private final UserRepository userRepository;
     private FollowRepository followRepository;
     private ProfileRepository profileRepository;
     private final ProfileService profileService;
+    private final TimelineService timelineService;
+    private final PrincipalResolver principalResolver;
+    private final FollowGraph followGraph;
+    private final FollowSuggestions followSuggestions;
+    private final ApplicationEventPublisher eventPublisher;
 
     //constructor
     @Autowired
-    public FollowingService(UserRepository userRepository, FollowRepository followRepository, ProfileRepository profileRepository, ProfileService profileService) {
+    public FollowingService(UserRepository userRepository, FollowRepository followRepository, ProfileRepository profileRepository, ProfileService profileService,
+                            TimelineService timelineService, PrincipalResolver principalResolver, FollowGraph followGraph,
+                            FollowSuggestions followSuggestions, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
         this.followRepository = followRepository;
         this.profileRepository = profileRepository;
         this.profileService = profileService;
+        this.timelineService = timelineService;
+        this.principalResolver = principalResolver;
+        this.followGraph = followGraph;
+        this.followSuggestions = followSuggestions;
+        this.eventPublisher = eventPublisher;
     }
 
 
@@ -50,6 +89,72 @@ public class FollowingService {
         return user.getFollower();
     }
 
+    // Counts come from the follow graph once it is built, from an indexed count query until then
+    public int countFollowers(String userId) {
+        if (followGraph.isReady())
+            return followGraph.countFollowers(userId);
+        return (int) userRepository.countFollowers(userId);
+    }
+
+    public int countFollowees(String userId) {
+        if (followGraph.isReady())
+            return followGraph.countFollowees(userId);
+        return (int) followRepository.countFollowees(userId);
+    }
+
+    public boolean isFollowing(User currentUser, String followUserId) {
+        if (followGraph.isReady())
+            return followGraph.isFollowing(currentUser.getId(), followUserId);
+        return principalResolver.require(currentUser).isFollowing(followUserId);
+    }
+
+    /**
+     * @param userId - user whose followees are listed
+     * @param cursor - nextCursor of the previous page, or null for the first page
+     * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+     * @return one page of the users they follow, ordered by id
+     */
+    public FollowPage getFollowingPage(String userId, String cursor, int limit) {
+        return page(cursor, limit, (page) -> followRepository.findFolloweePage(userId, IdCursor.decode(cursor), page));
+    }
+
+    /**
+     * @param userId - user whose followers are listed
+     * @param cursor - nextCursor of the previous page, or null for the first page
+     * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+     * @return one page of the users following them, ordered by id
+     */
+    public FollowPage getFollowerPage(String userId, String cursor, int limit) {
+        return page(cursor, limit, (page) -> followRepository.findFollowerPage(userId, IdCursor.decode(cursor), page));
+    }
+
+    /**
+     * @param currentUser - the logged-in user
+     * @param limit - number of suggestions wanted
+     * @return precomputed users to follow, best first, with their display fields
+     */
+    public List<SuggestionResponse> getSuggestions(User currentUser, int limit) {
+        List<Suggestion> suggestions = followSuggestions.get(currentUser.getId(), limit);
+        if (suggestions.isEmpty())
+            return new ArrayList<>();
+
+        List<String> ids = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions)
+            ids.add(suggestion.getUserId());
+        Map<String, FollowSummary> summaries = new HashMap<>();
+        for (FollowSummary summary : followRepository.findSummaries(ids))
+            summaries.put(summary.getId(), summary);
+
+        // Users deleted since the suggestions were computed are left out
+        List<SuggestionResponse> responses = new ArrayList<>(suggestions.size());
+        for (Suggestion suggestion : suggestions) {
+            FollowSummary summary = summaries.get(suggestion.getUserId());
+            if (summary != null)
+                responses.add(new SuggestionResponse(summary, suggestion));
+        }
+        return responses;
+    }
+
     //TODO: get list of followings given a specific user id
     public List<User> getFollowings(User user) {
         System.out.printf("Getting followings: ");
@@ -59,46 +164,111 @@ public class FollowingService {
 
     //TODO: update following-follower table after a user follows/unfollows someone
     //Method to allow a user to follow another user
+    // A single insert-if-absent; returns false when the user does not exist or is already followed
+    @Transactional
     public boolean followUser(User currentUser, String followUserId) {
-            currentUser = userRepository.findById(currentUser.getId()).get();
-            List<User> followingList = currentUser.getFollowing();
-            User followedUser = userRepository.findById(followUserId).get();
-            for(int i = 0; i < followingList.size(); i++) {
-                if (followingList.get(i).equals(followedUser)) {
-                    return false; //TODO: change so that it throws custom error instead
-                }
-            }
             if (followUserId == null) {
                 return false; //TODO: change to exception (Enter invalid followUser)
             }
-            followingList.add(followedUser);
-            currentUser.setFollowing(followingList);
-            userRepository.save(currentUser);
+            String followerId = currentUser.getId();
+            if (followRepository.insertIfAbsent(followerId, followUserId) == 0) {
+                return false; //TODO: change so that it throws custom error instead
+            }
+            afterCommit(followerId, () -> followGraph.follow(followerId, followUserId));
+            eventPublisher.publishEvent(new UserFollowedEvent(followerId, followUserId));
             return true;
     }
 
     // Method to allow a user to unfollow another user
+    @Transactional
     public boolean unFollowUser(User currentUser, String unFollowUserId) {
-        currentUser = userRepository.findById(currentUser.getId()).get();
-        List<User> followingList = currentUser.getFollowing();
-        User unFollowedUser = userRepository.findById(unFollowUserId).get();
-
-        if(followingList.contains(unFollowedUser)){
-            followingList.remove(unFollowedUser);
-            currentUser.setFollowing(followingList);
-            userRepository.save(currentUser);
-            return true;
-        }
-
         if (unFollowUserId == null) {
             return false; //TODO: change to exception (Enter invalid followUser)
         }
-
-        return false;
+        String followerId = currentUser.getId();
+        if (followRepository.deleteEdge(followerId, unFollowUserId) == 0) {
+            return false;
+        }
+        afterCommit(followerId, () -> followGraph.unfollow(followerId, unFollowUserId));
+        return true;
     }
 
+    /**
+     * Follows many users at once, e.g. the suggestions picked while onboarding. Unknown users and
+     * users already followed are skipped.
+     *
+     * @param currentUser - the logged-in user
+     * @param userIds - ids of the users to follow, at most MAX_BULK_FOLLOWS
+     * @return the number of users newly followed
+     */
+    @Transactional
+    public int followUsers(User currentUser, List<String> userIds) {
+        if (userIds == null || userIds.isEmpty())
+            return 0;
+        if (userIds.size() > MAX_BULK_FOLLOWS)
+            throw new InvalidRequestException("At most " + MAX_BULK_FOLLOWS + " users can be followed at once");
 
+        String followerId = currentUser.getId();
+        Set<String> ids = new LinkedHashSet<>(userIds);
+        ids.remove(null);
+        ids.remove(followerId);
+        if (ids.isEmpty())
+            return 0;
+
+        List<String> existing = followRepository.findExistingIds(ids);
+        if (existing.isEmpty())
+            return 0;
+        Set<String> fresh = new LinkedHashSet<>(existing);
+        fresh.removeAll(followRepository.findFolloweeIdsAmong(followerId, existing));
+        if (fresh.isEmpty())
+            return 0;
+        int added = followRepository.insertAllIfAbsent(followerId, fresh);
+        if (added > 0) {
+            afterCommit(followerId, () -> {
+                for (String followeeId : fresh)
+                    followGraph.follow(followerId, followeeId);
+            });
+            // One event per new edge, like followUser; an edge a concurrent follow added in between
+            // folds into the same notification, whose users are counted once
+            for (String followeeId : fresh)
+                eventPublisher.publishEvent(new UserFollowedEvent(followerId, followeeId));
+        }
+        return added;
+    }
 
     public List<User> getFollowers() {return followRepository.findAll();}
 
+    // The graph and cached views only move once the change is durable, so a rollback never shows up in them
+    private void afterCommit(String followerId, Runnable graphUpdate) {
+        Runnable update = () -> {
+            graphUpdate.run();
+            followSuggestions.followChanged(followerId);
+            principalResolver.invalidate(followerId);
+            timelineService.invalidate(followerId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
+
+    private static FollowPage page(String cursor, int limit, Function<PageRequest, List<FollowSummary>> query) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row so we know whether another page exists
+        List<FollowSummary> users = query.apply(PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            // Pages are ordered by user id, so the cursor is the last id of this page
+            nextCursor = IdCursor.encode(users.get(pageSize - 1).getId());
+        }
+        return new FollowPage(users, nextCursor);
+    }
+
 }
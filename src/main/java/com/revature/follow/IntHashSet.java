@@ -0,0 +1,102 @@
+package com.revature.follow;
+
+/**
+ * Set of non-negative ints with open addressing over a plain int array, so members are never
+ * boxed. Removed slots are re-filled by shifting later members back, which keeps probes short
+ * without tombstones.
+ */
+class IntHashSet {
+
+    // Slots hold value + 1, so a zero slot is free
+    private int[] slots;
+    private int size;
+
+    IntHashSet() {
+        slots = new int[4];
+    }
+
+    boolean add(int value) {
+        if ((size + 1) * 4 > slots.length * 3)
+            grow();
+        int mask = slots.length - 1;
+        int at = mix(value) & mask;
+        while (slots[at] != 0) {
+            if (slots[at] == value + 1)
+                return false;
+            at = (at + 1) & mask;
+        }
+        slots[at] = value + 1;
+        size++;
+        return true;
+    }
+
+    boolean contains(int value) {
+        int mask = slots.length - 1;
+        int at = mix(value) & mask;
+        while (slots[at] != 0) {
+            if (slots[at] == value + 1)
+                return true;
+            at = (at + 1) & mask;
+        }
+        return false;
+    }
+
+    boolean remove(int value) {
+        int mask = slots.length - 1;
+        int at = mix(value) & mask;
+        while (slots[at] != 0) {
+            if (slots[at] == value + 1) {
+                slots[at] = 0;
+                size--;
+                closeGap(at, mask);
+                return true;
+            }
+            at = (at + 1) & mask;
+        }
+        return false;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int[] toArray() {
+        int[] values = new int[size];
+        int i = 0;
+        for (int slot : slots) {
+            if (slot != 0)
+                values[i++] = slot - 1;
+        }
+        return values;
+    }
+
+    // Moves back members whose probe sequence ran through the freed slot
+    private void closeGap(int free, int mask) {
+        int at = (free + 1) & mask;
+        while (slots[at] != 0) {
+            int home = mix(slots[at] - 1) & mask;
+            boolean reachable = free <= at ? (home <= free || home > at) : (home <= free && home > at);
+            if (reachable) {
+                slots[free] = slots[at];
+                slots[at] = 0;
+                free = at;
+            }
+            at = (at + 1) & mask;
+        }
+    }
+
+    private void grow() {
+        int[] old = slots;
+        slots = new int[old.length * 2];
+        size = 0;
+        for (int slot : old) {
+            if (slot != 0)
+                add(slot - 1);
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,10 @@
+package com.revature.follow.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkFollowRequest {
+    private List<String> userIds;
+}
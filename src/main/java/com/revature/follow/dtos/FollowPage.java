@@ -0,0 +1,14 @@
+package com.revature.follow.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class FollowPage {
+    private List<FollowSummary> users;
+    // Cursor for the following page, null once the list is exhausted
+    private String nextCursor;
+}
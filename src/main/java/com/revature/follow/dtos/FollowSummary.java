@@ -0,0 +1,16 @@
+package com.revature.follow.dtos;
+
+import lombok.Data;
+
+/**
+ * Flat view of a follower or followee: the user with the display fields of their profile, which
+ * are null when they have not created one.
+ */
+@Data
+public class FollowSummary {
+    private final String id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String profileImg;
+}
@@ -0,0 +1,25 @@
+package com.revature.follow.dtos;
+
+import com.revature.follow.suggestions.Suggestion;
+import lombok.Data;
+
+@Data
+public class SuggestionResponse {
+    private final String id;
+    private final String email;
+    private final String firstName;
+    private final String lastName;
+    private final String profileImg;
+    private final int mutualFollows;
+    private final int sharedGroups;
+
+    public SuggestionResponse(FollowSummary user, Suggestion suggestion) {
+        this.id = user.getId();
+        this.email = user.getEmail();
+        this.firstName = user.getFirstName();
+        this.lastName = user.getLastName();
+        this.profileImg = user.getProfileImg();
+        this.mutualFollows = suggestion.getMutualFollows();
+        this.sharedGroups = suggestion.getSharedGroups();
+    }
+}
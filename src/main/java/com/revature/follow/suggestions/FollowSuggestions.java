@@ -0,0 +1,275 @@
+package com.revature.follow.suggestions;
+
+import com.revature.follow.FollowGraph;
+import com.revature.follow.FollowProperties;
+import com.revature.groups.GroupRepository;
+import com.revature.groups.MembershipRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * "People you may know": for every user, the users followed by the people they follow, ranked by
+ * how many of their followees follow them and then by the number of groups they share. The top
+ * suggestions of every user are computed in the background, in parallel over ranges of users,
+ * from a compressed copy of the follow graph; requests only read the stored lists.
+ *
+ * A follow or unfollow marks the follower and their followers for a refresh, which recomputes
+ * just those users from the live graph.
+ */
+@Component
+public class FollowSuggestions {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowSuggestions.class);
+
+    private static final Suggestion[] NONE = new Suggestion[0];
+
+    // Users computed by one fork-join task
+    private static final int PARTITION_SIZE = 512;
+
+    private final FollowGraph followGraph;
+    private final GroupRepository groupRepository;
+    private final FollowProperties properties;
+    private final ForkJoinPool pool;
+
+    private volatile Map<String, Suggestion[]> suggestions = new ConcurrentHashMap<>();
+    // Sorted group numbers per user
+    private volatile Map<String, int[]> groupsByUser = Collections.emptyMap();
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // Per worker thread, so a rebuild does not allocate a graph-sized array per partition
+    private final ThreadLocal<int[]> scratch = ThreadLocal.withInitial(() -> new int[0]);
+    private volatile long lastRebuildMillis;
+    private volatile boolean built;
+
+    @Autowired
+    public FollowSuggestions(FollowGraph followGraph, GroupRepository groupRepository, FollowProperties properties) {
+        this.followGraph = followGraph;
+        this.groupRepository = groupRepository;
+        this.properties = properties;
+        this.pool = new ForkJoinPool(Math.max(1, properties.getSuggestionsParallelism()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * @return the stored suggestions of the user, best first; empty until they were computed
+     */
+    public List<Suggestion> get(String userId, int limit) {
+        Suggestion[] stored = suggestions.getOrDefault(userId, NONE);
+        return Arrays.asList(stored).subList(0, Math.min(Math.max(limit, 0), stored.length));
+    }
+
+    /**
+     * Marks the users whose suggestions depend on who the given user follows: the user and
+     * everyone following them.
+     */
+    public void followChanged(String followerId) {
+        dirty.add(followerId);
+        if (!followGraph.isReady())
+            return;
+        List<String> followers = followGraph.getFollowerIds(followerId);
+        if (followers.size() <= properties.getSuggestionsFanOutCap())
+            dirty.addAll(followers);
+    }
+
+    @Scheduled(fixedDelayString = "${reverb.follow.suggestions-refresh-interval-ms:30000}")
+    public void refresh() {
+        if (!followGraph.isReady())
+            return;
+        if (!built || System.currentTimeMillis() - lastRebuildMillis >= properties.getSuggestionsRebuildInterval().toMillis())
+            rebuild();
+        else
+            refreshDirty();
+    }
+
+    /**
+     * Computes the suggestions of every user from a snapshot of the follow graph.
+     */
+    public void rebuild() {
+        try {
+            long start = System.currentTimeMillis();
+            // Changes from now on are marked again and refreshed after this build
+            dirty.clear();
+            Map<String, int[]> groups = loadGroups();
+            FollowGraph.Snapshot graph = followGraph.snapshot();
+
+            int[][] groupsByNumber = new int[graph.size()][];
+            for (int number = 0; number < graph.size(); number++)
+                groupsByNumber[number] = groups.get(graph.idOf(number));
+
+            Suggestion[][] computed = new Suggestion[graph.size()][];
+            pool.invoke(new Partition(graph, groupsByNumber, computed, 0, graph.size()));
+
+            Map<String, Suggestion[]> stored = new ConcurrentHashMap<>();
+            for (int number = 0; number < computed.length; number++) {
+                if (computed[number].length > 0)
+                    stored.put(graph.idOf(number), computed[number]);
+            }
+            groupsByUser = groups;
+            suggestions = stored;
+            lastRebuildMillis = System.currentTimeMillis();
+            built = true;
+            logger.info("Follow suggestions computed for {} users in {} ms", graph.size(), lastRebuildMillis - start);
+        } catch (RuntimeException e) {
+            logger.error("Could not compute follow suggestions", e);
+        }
+    }
+
+    /**
+     * Recomputes the users marked since the last run from their neighbourhood in the live graph.
+     */
+    public void refreshDirty() {
+        Iterator<String> marked = dirty.iterator();
+        while (marked.hasNext()) {
+            String userId = marked.next();
+            marked.remove();
+
+            FollowGraph.Snapshot neighbourhood = followGraph.neighbourhood(userId);
+            if (neighbourhood.size() == 0) {
+                suggestions.remove(userId);
+                continue;
+            }
+            Map<String, int[]> groups = groupsByUser;
+            int[][] groupsByNumber = new int[neighbourhood.size()][];
+            for (int number = 0; number < neighbourhood.size(); number++)
+                groupsByNumber[number] = groups.get(neighbourhood.idOf(number));
+
+            Suggestion[] computed = compute(neighbourhood, groupsByNumber, 0, new int[neighbourhood.size()]);
+            if (computed.length == 0)
+                suggestions.remove(userId);
+            else
+                suggestions.put(userId, computed);
+        }
+    }
+
+    private Map<String, int[]> loadGroups() {
+        Map<UUID, Integer> groupNumbers = new HashMap<>();
+        Map<String, List<Integer>> memberships = new HashMap<>();
+        for (MembershipRow row : groupRepository.findMemberships()) {
+            Integer group = groupNumbers.computeIfAbsent(row.getGroupId(), id -> groupNumbers.size());
+            memberships.computeIfAbsent(row.getUserId(), id -> new ArrayList<>()).add(group);
+        }
+        Map<String, int[]> groups = new HashMap<>(memberships.size() * 2);
+        for (Map.Entry<String, List<Integer>> entry : memberships.entrySet()) {
+            int[] sorted = new int[entry.getValue().size()];
+            for (int i = 0; i < sorted.length; i++)
+                sorted[i] = entry.getValue().get(i);
+            Arrays.sort(sorted);
+            groups.put(entry.getKey(), sorted);
+        }
+        return groups;
+    }
+
+    /**
+     * @param mutual - scratch counts, one per user of the graph, all zero; left zeroed again
+     */
+    private Suggestion[] compute(FollowGraph.Snapshot graph, int[][] groupsByNumber, int user, int[] mutual) {
+        int followees = graph.followeeCount(user);
+        if (followees == 0)
+            return NONE;
+
+        int[] touched = new int[16];
+        int candidates = 0;
+        for (int i = 0; i < followees; i++) {
+            int followee = graph.followee(user, i);
+            for (int j = 0; j < graph.followeeCount(followee); j++) {
+                int candidate = graph.followee(followee, j);
+                if (candidate == user)
+                    continue;
+                if (mutual[candidate]++ == 0) {
+                    if (candidates == touched.length)
+                        touched = Arrays.copyOf(touched, candidates * 2);
+                    touched[candidates++] = candidate;
+                }
+            }
+        }
+        // Already followed users are not suggested
+        for (int i = 0; i < followees; i++)
+            mutual[graph.followee(user, i)] = 0;
+
+        int keep = properties.getSuggestionsPerUser();
+        Comparator<Suggestion> best = Comparator.comparingInt(Suggestion::getMutualFollows)
+                .thenComparingInt(Suggestion::getSharedGroups)
+                .reversed()
+                .thenComparing(Suggestion::getUserId);
+        // Worst of the kept suggestions at the head, so it can be replaced by a better one
+        PriorityQueue<Suggestion> top = new PriorityQueue<>(keep + 1, best.reversed());
+        for (int i = 0; i < candidates; i++) {
+            int candidate = touched[i];
+            if (mutual[candidate] > 0) {
+                top.add(new Suggestion(graph.idOf(candidate), mutual[candidate],
+                        sharedGroups(groupsByNumber[user], groupsByNumber[candidate])));
+                if (top.size() > keep)
+                    top.poll();
+            }
+            mutual[candidate] = 0;
+        }
+
+        Suggestion[] ranked = top.toArray(new Suggestion[0]);
+        Arrays.sort(ranked, best);
+        return ranked;
+    }
+
+    private static int sharedGroups(int[] a, int[] b) {
+        if (a == null || b == null)
+            return 0;
+        int shared = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] == b[j]) {
+                shared++;
+                i++;
+                j++;
+            } else if (a[i] < b[j]) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return shared;
+    }
+
+    // Computes a range of users, splitting it until it is small enough for one task
+    private class Partition extends RecursiveAction {
+        private final FollowGraph.Snapshot graph;
+        private final int[][] groupsByNumber;
+        private final Suggestion[][] computed;
+        private final int from;
+        private final int to;
+
+        private Partition(FollowGraph.Snapshot graph, int[][] groupsByNumber, Suggestion[][] computed, int from, int to) {
+            this.graph = graph;
+            this.groupsByNumber = groupsByNumber;
+            this.computed = computed;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARTITION_SIZE) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new Partition(graph, groupsByNumber, computed, from, middle),
+                        new Partition(graph, groupsByNumber, computed, middle, to));
+                return;
+            }
+            int[] mutual = scratch.get();
+            if (mutual.length < graph.size()) {
+                mutual = new int[graph.size()];
+                scratch.set(mutual);
+            }
+            for (int user = from; user < to; user++)
+                computed[user] = FollowSuggestions.this.compute(graph, groupsByNumber, user, mutual);
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package com.revature.follow.suggestions;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * A user worth following, with the signals it was ranked by.
+ */
+@Getter
+@AllArgsConstructor
+public class Suggestion {
+    private final String userId;
+    // Number of the user's followees who follow this user
+    private final int mutualFollows;
+    // Number of groups both users are members of
+    private final int sharedGroups;
+}
@@ -1,15 +1,15 @@
 package com.revature.groups;
 
 import com.revature.groups.dtos.GroupCreationRequest;
+import com.revature.groups.dtos.GroupPage;
 import com.revature.groups.dtos.GroupResponse;
 import com.revature.groups.dtos.GroupUpdateRequest;
+import com.revature.groups.dtos.MemberPage;
 import com.revature.users.User;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/group")
 @CrossOrigin
@@ -21,11 +21,16 @@ public class GroupController {
         this.groupService = groupService;
     }
 
-    // Get all groups
+    /**
+     * @param cursor returned as nextCursor by the previous page, omitted for the first page
+     * @param limit maximum number of groups in the page
+     * @return one page of groups, ordered by name
+     */
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(produces = "application/json")
-    public List<GroupResponse> getAllGroups() {
-        return groupService.getAllGroups();
+    public GroupPage getGroups(@RequestParam(required = false) String cursor,
+                               @RequestParam(defaultValue = "" + GroupService.DEFAULT_PAGE_SIZE) int limit) {
+        return groupService.getGroups(cursor, limit);
     }
 
     //Get One Group
@@ -35,6 +40,19 @@ public class GroupController {
         return groupService.getGroup(groupName);
     }
 
+    /**
+     * @param cursor returned as nextCursor by the previous page, omitted for the first page
+     * @param limit maximum number of members in the page
+     * @return one page of the group's members, ordered by id
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/{groupName}/members", produces = "application/json")
+    public MemberPage getMembers(@PathVariable String groupName,
+                                 @RequestParam(required = false) String cursor,
+                                 @RequestParam(defaultValue = "" + GroupService.DEFAULT_PAGE_SIZE) int limit) {
+        return groupService.getMembers(groupName, cursor, limit);
+    }
+
     // Create Group
     @ResponseStatus(HttpStatus.CREATED)
     @PostMapping(value = "/create", consumes = "application/json")
@@ -1,9 +1,16 @@
 package com.revature.groups;
 
+import com.revature.follow.dtos.FollowSummary;
+import com.revature.search.IndexRow;
 import com.revature.search.Searchable;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -12,4 +19,54 @@ import java.util.UUID;
 public interface GroupRepository extends CrudRepository<Group, UUID> {
     Optional<Group> findGroupByName(String name);
     List<Searchable> findByNameContains(String name);
+
+    @Query("select g.id from Group g where g.name = :name")
+    Optional<UUID> findIdByName(@Param("name") String name);
+
+    // Group ids are stored as text (uuid-char), so the native queries below take them as strings
+
+    @Query(value = "select count(*) from groups_users where groups_group_id = :groupId and users_user_id = :userId",
+            nativeQuery = true)
+    long countMembership(@Param("groupId") String groupId, @Param("userId") String userId);
+
+    // Returns 1 when the user joined, 0 when they were a member already
+    @Modifying
+    @Query(value = "insert into groups_users (groups_group_id, users_user_id) select :groupId, :userId "
+            + "where not exists (select 1 from groups_users where groups_group_id = :groupId and users_user_id = :userId)",
+            nativeQuery = true)
+    int insertMemberIfAbsent(@Param("groupId") String groupId, @Param("userId") String userId);
+
+    // Returns 1 when the user left, 0 when they were not a member
+    @Modifying
+    @Query(value = "delete from groups_users where groups_group_id = :groupId and users_user_id = :userId",
+            nativeQuery = true)
+    int deleteMember(@Param("groupId") String groupId, @Param("userId") String userId);
+
+    @Query("select m.id from Group g join g.users m where g.id = :groupId")
+    List<String> findMemberIds(@Param("groupId") UUID groupId);
+
+    @Query("select count(m) from Group g join g.users m where g.id = :groupId")
+    long countMembers(@Param("groupId") UUID groupId);
+
+    @Query("select g.id as groupId, count(m) as memberCount from Group g join g.users m where g.id in :groupIds group by g.id")
+    List<MemberCountRow> countMembersByGroupIds(@Param("groupIds") Collection<UUID> groupIds);
+
+    // Groups ordered by name, after the name the previous page ended with
+    @Query("select g from Group g left join fetch g.owner where g.name > :afterName order by g.name")
+    List<Group> findPageAfter(@Param("afterName") String afterName, Pageable page);
+
+    // Members of the group ordered by id, after the id the previous page ended with
+    @Query("select new com.revature.follow.dtos.FollowSummary(m.id, m.email, p.firstName, p.lastName, p.profileImg) "
+            + "from Group g join g.users m left join Profile p on p.user = m "
+            + "where g.id = :groupId and m.id > :afterId order by m.id")
+    List<FollowSummary> findMemberPage(@Param("groupId") UUID groupId, @Param("afterId") String afterId, Pageable page);
+
+    @Query("select g.id from Group g join g.users m where m.id = :userId")
+    List<UUID> findGroupIdsByMember(@Param("userId") String userId);
+
+    @Query("select m.id as userId, g.id as groupId from Group g join g.users m")
+    List<MembershipRow> findMemberships();
+
+    @Query("select new com.revature.search.IndexRow(g.id, g.name) from Group g")
+    List<IndexRow> findIndexRows();
 }
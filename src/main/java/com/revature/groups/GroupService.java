@@ -1,40 +1,81 @@
 package com.revature.groups;
 
+import com.revature.common.util.IdCursor;
 import com.revature.exceptions.*;
+import com.revature.follow.dtos.FollowSummary;
 import com.revature.groups.dtos.GroupCreationRequest;
+import com.revature.groups.dtos.GroupPage;
 import com.revature.groups.dtos.GroupResponse;
 import com.revature.groups.dtos.GroupUpdateRequest;
+import com.revature.groups.dtos.MemberPage;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
 import com.revature.users.User;
 import com.revature.users.UserRepository;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 import java.util.function.Predicate;
 
 @Service
 public class GroupService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
 
     private final GroupRepository groupRepository;
     private final UserRepository userRepository;
+    private final TimelineService timelineService;
+    private final PrincipalResolver principalResolver;
+    private final MembershipCache membershipCache;
 
     Predicate<String> notNullOrEmpty = str -> str != null && !str.equals("");
 
-    public GroupService(GroupRepository groupRepository, UserRepository userRepository) {
+    public GroupService(GroupRepository groupRepository, UserRepository userRepository, TimelineService timelineService,
+                        PrincipalResolver principalResolver, MembershipCache membershipCache) {
         this.groupRepository = groupRepository;
         this.userRepository = userRepository;
+        this.timelineService = timelineService;
+        this.principalResolver = principalResolver;
+        this.membershipCache = membershipCache;
     }
 
     /**
-     * @return Returns all groups in database
+     * @param cursor - nextCursor of the previous page, or null for the first page
+     * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+     * @return one page of groups ordered by name, each with its member count
      */
-    public List<GroupResponse> getAllGroups() {
-        List<GroupResponse> groupResponseList = new ArrayList<>();
-
-        groupRepository.findAll().iterator()
-                .forEachRemaining(g -> groupResponseList.add(new GroupResponse(g)));
-
-        return groupResponseList;
+    public GroupPage getGroups(String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row so we know whether another page exists
+        List<Group> groups = groupRepository.findPageAfter(IdCursor.decode(cursor), PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (groups.size() > pageSize) {
+            groups = groups.subList(0, pageSize);
+            // Names are unique, so the cursor is the last name of this page
+            nextCursor = IdCursor.encode(groups.get(pageSize - 1).getName());
+        }
+        if (groups.isEmpty())
+            return new GroupPage(new ArrayList<>(), null);
+
+        List<UUID> ids = new ArrayList<>(groups.size());
+        for (Group group : groups)
+            ids.add(group.getId());
+        Map<UUID, Long> memberCounts = new HashMap<>();
+        for (MemberCountRow row : groupRepository.countMembersByGroupIds(ids))
+            memberCounts.put(row.getGroupId(), row.getMemberCount());
+
+        List<GroupResponse> responses = new ArrayList<>(groups.size());
+        for (Group group : groups)
+            responses.add(new GroupResponse(group, memberCounts.getOrDefault(group.getId(), 0L)));
+        return new GroupPage(responses, nextCursor);
     }
 
     /**
@@ -44,7 +85,25 @@ public class GroupService {
     public GroupResponse getGroup(String groupName) {
         Group group = groupRepository.findGroupByName(groupName)
                                      .orElseThrow(GroupNotFoundException::new);
-        return new GroupResponse(group);
+        return new GroupResponse(group, groupRepository.countMembers(group.getId()));
+    }
+
+    /**
+     * @param groupName - group whose members are listed
+     * @param cursor - nextCursor of the previous page, or null for the first page
+     * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+     * @return one page of the group's members, ordered by id
+     */
+    public MemberPage getMembers(String groupName, String cursor, int limit) {
+        UUID groupId = groupRepository.findIdByName(groupName).orElseThrow(GroupNotFoundException::new);
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        List<FollowSummary> members = groupRepository.findMemberPage(groupId, IdCursor.decode(cursor), PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+        if (members.size() > pageSize) {
+            members = members.subList(0, pageSize);
+            nextCursor = IdCursor.encode(members.get(pageSize - 1).getId());
+        }
+        return new MemberPage(members, nextCursor);
     }
 
     /**
@@ -66,40 +125,42 @@ public class GroupService {
         newGroup.setName(groupCreationRequest.getName().trim());
         newGroup.setDescription(groupCreationRequest.getDescription());
         List<User> list = new ArrayList<>();
-        list.add(userRepository.findUserByEmail(owner.getEmail()).get());
+        // A reference is enough to link the owner, no need to load their row
+        list.add(userRepository.getById(owner.getId()));
         newGroup.setUsers(list);
 
-        return new GroupResponse(groupRepository.save(newGroup));
+        // The owner is the only member of a new group
+        GroupResponse response = new GroupResponse(groupRepository.save(newGroup), 1);
+        principalResolver.invalidate(owner.getId());
+        return response;
     }
 
     /**
      * @param groupName - Name of group to be joined.
      * @param currUser - currently logged in user.
      */
+    @Transactional
     public void joinGroup(String groupName, User currUser) {
-        Group group = groupRepository.findGroupByName(groupName).get();
+        UUID groupId = groupRepository.findIdByName(groupName).orElseThrow(GroupNotFoundException::new);
 
-        if (group.getUsers().contains(currUser))
+        if (groupRepository.insertMemberIfAbsent(groupId.toString(), currUser.getId()) == 0)
             throw new DuplicateRequestException("User has already joined the group");
 
-        group.getUsers().add(currUser);
-
-        groupRepository.save(group);
+        afterCommit(groupId, currUser.getId());
     }
 
     /**
      * @param groupName - Name of group to be left.
      * @param currUser - currently logged in user
      */
+    @Transactional
     public void leaveGroup(String groupName, User currUser) {
-        Group group = groupRepository.findGroupByName(groupName).get();
+        UUID groupId = groupRepository.findIdByName(groupName).orElseThrow(GroupNotFoundException::new);
 
-        if (!group.getUsers().contains(currUser))
+        if (groupRepository.deleteMember(groupId.toString(), currUser.getId()) == 0)
             throw new DuplicateRequestException("User is not in the group");
 
-        group.getUsers().remove(currUser);
-
-        groupRepository.save(group);
+        afterCommit(groupId, currUser.getId());
     }
 
     /**
@@ -118,7 +179,7 @@ public class GroupService {
         if (notNullOrEmpty.test(updateReq.getOwnerEmail())) {
             User newOwner = userRepository.findUserByEmail(updateReq.getOwnerEmail()).orElseThrow(UserNotFoundException::new);
 
-            if (group.getUsers().contains(newOwner)) group.setOwner(newOwner);
+            if (membershipCache.isMember(group.getId(), newOwner.getId())) group.setOwner(newOwner);
             else throw new UserNotFoundException("User is not in Group");
         }
 
@@ -137,7 +198,8 @@ public class GroupService {
         if(notNullOrEmpty.test(updateReq.getProfilePic()))
             group.setProfilePic(updateReq.getProfilePic());
 
-        return new GroupResponse(groupRepository.save(group));
+        Group saved = groupRepository.save(group);
+        return new GroupResponse(saved, groupRepository.countMembers(saved.getId()));
     }
 
     /**
@@ -147,9 +209,29 @@ public class GroupService {
     public void deleteGroup(String groupName, User currUser) {
         Group group = groupRepository.findGroupByName(groupName).get();
 
-        if (group.getOwner().equals(currUser))
+        if (group.getOwner().equals(currUser)) {
             groupRepository.delete(group);
+            membershipCache.invalidateGroup(group.getId());
+        }
         else throw new UnauthorizedRequestException("Logged in user is not owner of this group, could not delete");
     }
 
+    // Cached answers are only dropped once the membership change is visible to other transactions
+    private void afterCommit(UUID groupId, String userId) {
+        Runnable update = () -> {
+            membershipCache.invalidate(groupId, userId);
+            principalResolver.invalidate(userId);
+            timelineService.invalidate(userId);
+        };
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            update.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                update.run();
+            }
+        });
+    }
 }
@@ -0,0 +1,11 @@
+package com.revature.groups;
+
+import java.util.UUID;
+
+/**
+ * Number of members of one group, counted in the database.
+ */
+public interface MemberCountRow {
+    UUID getGroupId();
+    long getMemberCount();
+}
@@ -0,0 +1,104 @@
+package com.revature.groups;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+
+/**
+ * Answers whether a user is a member of a group with a single indexed lookup on groups_users,
+ * never loading the member list. Answers, including "not a member", are kept for a short time
+ * per (group, user). {@link GroupService} invalidates them when a user joins or leaves.
+ */
+@Component
+public class MembershipCache {
+
+    private static class Cached {
+        private final boolean member;
+        private final long expiresAtNanos;
+
+        private Cached(boolean member, long expiresAtNanos) {
+            this.member = member;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final GroupRepository groupRepository;
+    private final MembershipCacheProperties props;
+    // Access ordered, guarded by the cache's monitor; the least recently used answer is dropped when full
+    private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public MembershipCache(GroupRepository groupRepository, MembershipCacheProperties props, MeterRegistry registry) {
+        this.groupRepository = groupRepository;
+        this.props = props;
+        this.hits = Counter.builder("cache.gets").tag("cache", "memberships").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "memberships").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "memberships").register(registry);
+        Gauge.builder("cache.size", this, MembershipCache::size).tag("cache", "memberships").register(registry);
+    }
+
+    /**
+     * @return true when the user is a member of the group; false for unknown groups and users
+     */
+    public boolean isMember(UUID groupId, String userId) {
+        String key = key(groupId, userId);
+        long now = System.nanoTime();
+        synchronized (this) {
+            Cached entry = cache.get(key);
+            if (entry != null && entry.expiresAtNanos - now > 0) {
+                hits.increment();
+                return entry.member;
+            }
+        }
+        misses.increment();
+
+        boolean member = groupRepository.countMembership(groupId.toString(), userId) > 0;
+        synchronized (this) {
+            cache.put(key, new Cached(member, now + props.getTtl().toNanos()));
+            Iterator<Cached> eldest = cache.values().iterator();
+            while (cache.size() > props.getMaxEntries() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return member;
+    }
+
+    public synchronized void invalidate(UUID groupId, String userId) {
+        if (cache.remove(key(groupId, userId)) != null)
+            evictions.increment();
+    }
+
+    /**
+     * Forgets every answer about the group, e.g. once it was deleted.
+     */
+    public synchronized void invalidateGroup(UUID groupId) {
+        String prefix = groupId + ":";
+        Iterator<String> keys = cache.keySet().iterator();
+        while (keys.hasNext()) {
+            if (keys.next().startsWith(prefix)) {
+                keys.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private static String key(UUID groupId, String userId) {
+        return groupId + ":" + userId;
+    }
+}
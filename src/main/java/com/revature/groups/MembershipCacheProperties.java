@@ -0,0 +1,21 @@
+package com.revature.groups;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.groups.membership-cache")
+public class MembershipCacheProperties {
+
+    // Upper bound on the number of (group, user) answers remembered
+    private int maxEntries = 100000;
+
+    // How long an answer is reused; joins and leaves made through this server invalidate it sooner
+    private Duration ttl = Duration.ofSeconds(60);
+}
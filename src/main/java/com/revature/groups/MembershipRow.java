@@ -0,0 +1,11 @@
+package com.revature.groups;
+
+import java.util.UUID;
+
+/**
+ * One row of groups_users, read without loading the group or the user.
+ */
+public interface MembershipRow {
+    String getUserId();
+    UUID getGroupId();
+}
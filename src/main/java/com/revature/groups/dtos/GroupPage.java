@@ -0,0 +1,14 @@
+package com.revature.groups.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class GroupPage {
+    private List<GroupResponse> groups;
+    // Cursor for the following page, null once the list is exhausted
+    private String nextCursor;
+}
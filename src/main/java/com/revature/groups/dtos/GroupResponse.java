@@ -4,9 +4,6 @@ import com.revature.groups.Group;
 import com.revature.users.dtos.UserDto;
 import lombok.Data;
 
-import java.util.List;
-import java.util.stream.Collectors;
-
 @Data
 public class GroupResponse {
 
@@ -16,18 +13,16 @@ public class GroupResponse {
     private String description;
     private String headerImg;
     private String profilePic;
-    private List<UserDto> joinedUsers;
+    // Members are listed page by page through /api/group/{groupName}/members
+    private long memberCount;
 
-    public GroupResponse(Group group) {
+    public GroupResponse(Group group, long memberCount) {
         this.groupID = group.getId().toString();
         this.owner = new UserDto(group.getOwner());
         this.name = group.getName();
         this.description = group.getDescription();
         this.headerImg = group.getHeaderImg();
         this.profilePic = group.getProfilePic();
-        this.joinedUsers = group.getUsers()
-                .stream()
-                .map(UserDto::new)
-                .collect(Collectors.toList());
+        this.memberCount = memberCount;
     }
 }
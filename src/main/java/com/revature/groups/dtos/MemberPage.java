@@ -0,0 +1,15 @@
+package com.revature.groups.dtos;
+
+import com.revature.follow.dtos.FollowSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MemberPage {
+    private List<FollowSummary> members;
+    // Cursor for the following page, null once the list is exhausted
+    private String nextCursor;
+}
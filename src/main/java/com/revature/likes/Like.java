@@ -11,6 +11,7 @@ import javax.persistence.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity(name = "likesTable")
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_likes_post_liker", columnNames = {"post_id", "liker_id"}))
 public class Like {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
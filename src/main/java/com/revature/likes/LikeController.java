@@ -1,5 +1,7 @@
 package com.revature.likes;
 
+import com.revature.likes.dtos.LikeStatusRequest;
+import com.revature.likes.dtos.LikeStatusResponse;
 import com.revature.users.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
@@ -7,6 +9,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.parameters.P;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.UUID;
 
 @RestController
@@ -86,4 +89,14 @@ public class LikeController {
     	}
     	return ResponseEntity.internalServerError().build();
     }
+
+    /*  Must be given the ids of the posts on screen (at most LikeService.MAX_BATCH_SIZE)
+        Returns the number of likes of each post and whether the logged in user liked it
+     */
+    @PostMapping(path = "/batch")
+    public ResponseEntity<List<LikeStatusResponse>> getLikeStatuses(@RequestBody LikeStatusRequest request,
+                                                                    @AuthenticationPrincipal User user)
+    {
+        return ResponseEntity.ok(likeService.getLikeStatuses(request.getPostIds(), user));
+    }
 }
@@ -0,0 +1,136 @@
+package com.revature.likes;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory like totals in front of the posts.like_count column. Entries are loaded from the
+ * database on a miss and dropped once a like or unlike on the post has been committed, so the
+ * next read loads the new total. A load only lands when no change was committed since it began,
+ * so a total read just before a like can never be cached after it.
+ *
+ * Reads take no lock: entries live in a ConcurrentHashMap and only stamp their last read time.
+ * When the cache outgrows its bound, one caller trims the least recently read tenth in a single
+ * pass, so the cost of eviction is spread over the inserts that filled it.
+ */
+@Component
+public class LikeCountCache {
+
+    // Upper bound on cached posts; the column stays the source of truth
+    static final int MAX_ENTRIES = 100_000;
+
+    /**
+     * A load in progress, handed back to {@link #load(UUID, Load, int)} with the total it read.
+     */
+    public static final class Load {
+        private Load() {
+        }
+    }
+
+    // Either a loaded total or the Load it awaits
+    private static final class Entry {
+        private final Load load;
+        private final int count;
+        private volatile long lastRead = System.nanoTime();
+
+        private Entry(Load load, int count) {
+            this.load = load;
+            this.count = count;
+        }
+    }
+
+    private static final class Candidate {
+        private final UUID postId;
+        private final Entry entry;
+        private final long lastRead;
+
+        private Candidate(UUID postId, Entry entry) {
+            this.postId = postId;
+            this.entry = entry;
+            this.lastRead = entry.lastRead;
+        }
+    }
+
+    private final int maxEntries;
+    private final Map<UUID, Entry> counts = new ConcurrentHashMap<>();
+    private final AtomicBoolean trimming = new AtomicBoolean();
+
+    public LikeCountCache() {
+        this(MAX_ENTRIES);
+    }
+
+    LikeCountCache(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * @return the cached total for the post, or null when it has not been loaded
+     */
+    public Integer get(UUID postId) {
+        Entry entry = counts.get(postId);
+        if (entry == null || entry.load != null)
+            return null;
+        entry.lastRead = System.nanoTime();
+        return entry.count;
+    }
+
+    /**
+     * Call before reading the total from the database.
+     */
+    public Load startLoad(UUID postId) {
+        Entry entry = counts.computeIfAbsent(postId, id -> new Entry(new Load(), 0));
+        trimIfFull();
+        // A total loaded meanwhile stays; this load then lands nowhere
+        return entry.load != null ? entry.load : new Load();
+    }
+
+    /**
+     * Stores a total read from the database, unless the post changed since the load started.
+     */
+    public void load(UUID postId, Load load, int count) {
+        counts.computeIfPresent(postId, (id, entry) -> entry.load == load ? new Entry(null, count) : entry);
+    }
+
+    /**
+     * Drops the total after a committed change; the next read loads it again.
+     */
+    public void invalidate(UUID postId) {
+        counts.remove(postId);
+    }
+
+    public void clear() {
+        counts.clear();
+    }
+
+    public int size() {
+        return counts.size();
+    }
+
+    private void trimIfFull() {
+        if (counts.size() <= maxEntries || !trimming.compareAndSet(false, true))
+            return;
+        try {
+            // Read times are copied first, since reads keep stamping entries while we sort
+            List<Candidate> oldestFirst = new ArrayList<>(counts.size());
+            for (Map.Entry<UUID, Entry> e : counts.entrySet())
+                oldestFirst.add(new Candidate(e.getKey(), e.getValue()));
+            oldestFirst.sort(Comparator.comparingLong(candidate -> candidate.lastRead));
+            int target = maxEntries - maxEntries / 10;
+            for (Candidate candidate : oldestFirst) {
+                if (counts.size() <= target)
+                    break;
+                // Leaves entries replaced since the snapshot alone
+                counts.remove(candidate.postId, candidate.entry);
+            }
+        } finally {
+            trimming.set(false);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.revature.likes;
+
+import java.util.UUID;
+
+/**
+ * A post id with its like counter, read without loading the post itself.
+ */
+public interface LikeCountRow {
+    UUID getPostId();
+    int getLikeCount();
+}
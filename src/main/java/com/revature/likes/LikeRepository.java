@@ -3,12 +3,38 @@ package com.revature.likes;
 import com.revature.posts.Post;
 import com.revature.users.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
 
 @Repository
 public interface LikeRepository extends JpaRepository<Like, Long> {
     List<Like> getLikeByPost(Post post);
     List<Like> getByPostAndUser(Post post, User user);
+
+    @Query("select count(l) > 0 from likesTable l where l.post.id = :postId and l.user.id = :userId")
+    boolean existsByPostIdAndUserId(@Param("postId") UUID postId, @Param("userId") String userId);
+
+    @Query("select p.id as postId, p.likeCount as likeCount from Post p where p.id in :postIds")
+    List<LikeCountRow> findLikeCountsByPostIds(@Param("postIds") Collection<UUID> postIds);
+
+    // The subset of the given posts that the user has liked
+    @Query("select l.post.id from likesTable l where l.user.id = :userId and l.post.id in :postIds")
+    List<UUID> findLikedPostIds(@Param("userId") String userId, @Param("postIds") Collection<UUID> postIds);
+
+    // Returns 1 when the like was added, 0 when the post is missing or the user had already liked it
+    @Modifying
+    @Query(value = "insert into likes_table (post_id, liker_id) select :postId, :userId "
+            + "where exists (select 1 from posts where post_id = :postId) "
+            + "and not exists (select 1 from likes_table where post_id = :postId and liker_id = :userId)", nativeQuery = true)
+    int insertIfAbsent(@Param("postId") String postId, @Param("userId") String userId);
+
+    @Modifying
+    @Query("delete from likesTable l where l.post.id = :postId and l.user.id = :userId")
+    int deleteByPostIdAndUserId(@Param("postId") UUID postId, @Param("userId") String userId);
 }
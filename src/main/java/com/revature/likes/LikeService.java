@@ -1,95 +1,175 @@
 package com.revature.likes;
 
+import com.revature.exceptions.InvalidRequestException;
 import com.revature.exceptions.PostNotFoundException;
+import com.revature.likes.dtos.LikeStatusResponse;
+import com.revature.notifications.events.PostLikedEvent;
 import com.revature.posts.Post;
 import com.revature.users.User;
 import com.revature.posts.PostRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.util.Optional;
-import java.util.UUID;
+import java.util.*;
 
 @Service
 public class LikeService {
+    public static final int MAX_BATCH_SIZE = 500;
+
     private PostRepository postRepository;
     private LikeRepository likeRepository;
+    private LikeCountCache likeCountCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     // constructor
     @Autowired
-    public LikeService(PostRepository postRepository, LikeRepository likeRepository)
+    public LikeService(PostRepository postRepository, LikeRepository likeRepository, LikeCountCache likeCountCache,
+                       ApplicationEventPublisher eventPublisher)
     {
         this.postRepository = postRepository;
         this.likeRepository = likeRepository;
+        this.likeCountCache = likeCountCache;
+        this.eventPublisher = eventPublisher;
     }
 
     /*  Parameter: postID
-        Pulls number of likes on specific post from database
+        Reads the post's like counter, from memory when it has been loaded since its last change
         Returns Integer
      */
     public Integer getNumberofLikes(UUID postId) throws PostNotFoundException
     {
-       Optional<Post> post = postRepository.findById(postId);
-
-       if(post.isPresent())
-       {
-           return likeRepository.getLikeByPost(post.get()).size();
-       }
+        Integer cached = likeCountCache.get(postId);
+        if (cached != null)
+            return cached;
 
-       throw new PostNotFoundException(); //make custom exception later
+        LikeCountCache.Load load = likeCountCache.startLoad(postId);
+        int count = postRepository.findLikeCountById(postId).orElseThrow(PostNotFoundException::new);
+        likeCountCache.load(postId, load, count);
+        return count;
     }
 
+    /*  Adds the like and bumps the post's counter in one transaction.
+        Two concurrent likes by the same user are stopped by the (post_id, liker_id) constraint;
+        the loser is told the post is liked already.
+     */
+    @Transactional
     public void likePost(UUID postId, User user)
     {
-        Optional<Post> post = postRepository.findById(postId);
+        int inserted;
+        try {
+            inserted = likeRepository.insertIfAbsent(postId.toString(), user.getId());
+        } catch (DataIntegrityViolationException e) {
+            throw new IllegalStateException("If a user has liked the post already");
+        }
+        if (inserted == 0) {
+            if (!postRepository.existsById(postId))
+                throw new IllegalStateException("post does not exist");
+            throw new IllegalStateException("If a user has liked the post already"); //create custom exception
+        }
 
+        postRepository.adjustLikeCount(postId, 1);
+        afterCommit(postId);
+        // Notifies the post's author once the like is committed
+        eventPublisher.publishEvent(new PostLikedEvent(postId, user.getId()));
+    }
 
-        if(post.isPresent())
-        {
-            if(!checkIfAlreadyLiked(post.get(), user))
-            {
-                Like like = new Like();
-                like.setPost(post.get());
-                like.setUser(user);
-                likeRepository.save(like);
-            }
-            else
-                throw new IllegalStateException("If a user has liked the post already"); //create custom exception
+    @Transactional
+    public void unlikePost(UUID postId, User user) {
+        if (likeRepository.deleteByPostIdAndUserId(postId, user.getId()) == 0) {
+            if (!postRepository.existsById(postId))
+                throw new IllegalStateException("post does not exist");
+            throw new IllegalStateException("User has not liked this post!");
         }
-        else
+
+        postRepository.adjustLikeCount(postId, -1);
+        afterCommit(postId);
+    }
+
+    public boolean checkIfAlreadyLiked(UUID postId, User user) {
+        if (likeRepository.existsByPostIdAndUserId(postId, user.getId()))
+            return true;
+        if (!postRepository.existsById(postId))
             throw new IllegalStateException("post does not exist");
+        return false;
     }
 
-    public void unlikePost(UUID postId, User user) {
-        Optional<Post> post = postRepository.findById(postId);
+    public boolean checkIfAlreadyLiked(Post post, User user) {
+    	return !likeRepository.getByPostAndUser(post, user).isEmpty();
+    }
 
-        if(post.isPresent()) {
-            if(checkIfAlreadyLiked(post.get(), user)){
-                Post query = postRepository.getById(postId);
-                Like like = likeRepository.getByPostAndUser(query, user).get(0);
-                likeRepository.delete(like);
+    /**
+     * Answers the like count and the caller's liked flag for a page of posts with two queries,
+     * in place of one get-number-of-likes and one check-if-liked call per post.
+     *
+     * @param postIds - ids of the posts being rendered, at most MAX_BATCH_SIZE
+     * @param user - the logged-in user
+     * @return one entry per existing post, in request order; unknown ids are left out
+     */
+    public List<LikeStatusResponse> getLikeStatuses(List<String> postIds, User user) {
+        if (postIds == null || postIds.isEmpty())
+            return new ArrayList<>();
+        if (postIds.size() > MAX_BATCH_SIZE)
+            throw new InvalidRequestException("At most " + MAX_BATCH_SIZE + " posts can be requested at once");
+
+        Set<UUID> ids = new LinkedHashSet<>();
+        for (String postId : postIds) {
+            try {
+                ids.add(UUID.fromString(postId));
+            } catch (IllegalArgumentException | NullPointerException e) {
+                throw new InvalidRequestException("Malformed post id: " + postId);
             }
-            else
-                throw new IllegalStateException("User has not liked this post!");
         }
-        else
-            throw new IllegalStateException("post does not exist");
 
-    }
-    
-    public boolean checkIfAlreadyLiked(UUID postId, User user) {
-    	Optional<Post> post = postRepository.findById(postId);
+        Map<UUID, Integer> counts = new HashMap<>();
+        for (LikeCountRow row : likeRepository.findLikeCountsByPostIds(ids))
+            counts.put(row.getPostId(), row.getLikeCount());
+        Set<UUID> liked = new HashSet<>(likeRepository.findLikedPostIds(user.getId(), ids));
 
-        if(post.isPresent())
-        {
-        	return checkIfAlreadyLiked(post.get(), user);
+        List<LikeStatusResponse> statuses = new ArrayList<>(counts.size());
+        for (UUID id : ids) {
+            Integer count = counts.get(id);
+            if (count != null)
+                statuses.add(new LikeStatusResponse(id.toString(), count, liked.contains(id)));
         }
-        else
-            throw new IllegalStateException("post does not exist");
-        
+        return statuses;
     }
-    
-    public boolean checkIfAlreadyLiked(Post post, User user) {
-    	return !likeRepository.getByPostAndUser(post, user).isEmpty();
+
+    /**
+     * Repairs counters that drifted from likesTable, e.g. after rows were removed by hand or
+     * through cascades, and drops the cached totals so they are read again.
+     */
+    @Scheduled(fixedDelayString = "${reverb.likes.reconcile-interval-ms:600000}",
+            initialDelayString = "${reverb.likes.reconcile-interval-ms:600000}")
+    public void reconcileLikeCounts() {
+        postRepository.reconcileLikeCounts();
+        likeCountCache.clear();
+    }
+
+    // Counters of posts written before the column existed start at 0, so they are repaired before first use
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileLikeCounts();
+    }
+
+    // Cached totals are dropped once the change is durable and read again on next use
+    private void afterCommit(UUID postId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            likeCountCache.invalidate(postId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                likeCountCache.invalidate(postId);
+            }
+        });
     }
 }
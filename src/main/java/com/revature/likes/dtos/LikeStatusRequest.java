@@ -0,0 +1,10 @@
+package com.revature.likes.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class LikeStatusRequest {
+    private List<String> postIds;
+}
@@ -0,0 +1,12 @@
+package com.revature.likes.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class LikeStatusResponse {
+    private String postId;
+    private int numberOfLikes;
+    private boolean liked;
+}
@@ -3,10 +3,14 @@ package com.revature.notifications;
         import com.fasterxml.jackson.annotation.JsonInclude;
         import com.revature.groups.Group;
         import com.revature.notifications.notificationType.NotificationType;
+        import com.revature.notifications.notificationType.NotificationTypeConverter;
+        import com.revature.posts.Post;
         import com.revature.search.Searchable;
         import com.revature.users.User;
         import com.revature.users.usersettings.UserSettings;
         import lombok.*;
+        import org.hibernate.annotations.OnDelete;
+        import org.hibernate.annotations.OnDeleteAction;
         import org.hibernate.annotations.Type;
         import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 
@@ -18,7 +22,12 @@ package com.revature.notifications;
 
 @Data
 @Entity
-@Table(name = "notifications")
+@Table(name = "notifications", indexes = {
+        // Serves the keyset-paginated inbox, unread-only pages and bulk mark-read
+        @Index(name = "idx_notifications_owner_read_date", columnList = "owner_id_fk, is_read, creation_date"),
+        // Serves the retention job, which looks for old notifications of every owner
+        @Index(name = "idx_notifications_read_date", columnList = "is_read, creation_date")
+})
 public class Notification {
 
     @Id
@@ -30,21 +39,34 @@ public class Notification {
     @Column(name = "is_read")
     private Boolean isRead;
 
-    @ManyToOne
+    // Lazy, like otherUser: pages are read through NotificationResponse projections that only need ids
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id_fk", referencedColumnName = "user_id")
     private User owner;
 
-    @ManyToOne
-    @JoinColumn(name = "type_id", referencedColumnName = "type_id")
+    // Same column as when types were rows of notification_type; now read straight into the enum
+    @Convert(converter = NotificationTypeConverter.class)
+    @Column(name = "type_id")
     private NotificationType type_id;
 
     @Column(name = "creation_date")
     private LocalDateTime date;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "other_user_id_fk", referencedColumnName = "user_id")//every foreign key should have JoinColumn
     private User otherUser;
 
+    // The liked or commented post, null for follows; its notifications go with it
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id_fk", referencedColumnName = "post_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Post post;
+
+    // Distinct users folded into this notification, e.g. everyone who liked the post since it was last read;
+    // they are listed in notification_actors so a user acting again is not counted twice
+    @Column(name = "actor_count", columnDefinition = "integer default 1 not null")
+    private int actorCount = 1;
+
     @Override
     public String toString() {
         return "Notification{" +
@@ -0,0 +1,36 @@
+package com.revature.notifications;
+
+import com.revature.users.User;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.OnDelete;
+import org.hibernate.annotations.OnDeleteAction;
+
+import javax.persistence.*;
+
+/**
+ * A user folded into a notification, so acting again (e.g. liking a post after unliking it)
+ * does not count them twice in its actor count.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@Entity
+@Table(name = "notification_actors", uniqueConstraints = @UniqueConstraint(name = "uk_notification_actors",
+        columnNames = {"notification_id_fk", "actor_id_fk"}))
+public class NotificationActor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "notification_id_fk", referencedColumnName = "notification_id")
+    @OnDelete(action = OnDeleteAction.CASCADE)
+    private Notification notification;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "actor_id_fk", referencedColumnName = "user_id")
+    private User actor;
+}
@@ -0,0 +1,9 @@
+package com.revature.notifications;
+
+/**
+ * A user recorded as folded into a notification.
+ */
+public interface NotificationActorRow {
+    String getNotificationId();
+    String getActorId();
+}
@@ -1,11 +1,16 @@
 package com.revature.notifications;
 
+import com.revature.notifications.dtos.MarkReadRequest;
 import com.revature.notifications.dtos.NewNotificationRequest;
+import com.revature.notifications.dtos.NotificationPage;
 import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.stream.NotificationStream;
 import com.revature.users.User;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.util.List;
 
@@ -16,9 +21,11 @@ public class NotificationController {
 
 
     private final NotificationService notificationService;
+    private final NotificationStream notificationStream;
 
-    public NotificationController(NotificationService notificationService) {
+    public NotificationController(NotificationService notificationService, NotificationStream notificationStream) {
         this.notificationService = notificationService;
+        this.notificationStream = notificationStream;
     }
 
     // Get all Notifications
@@ -35,7 +42,50 @@ public class NotificationController {
         return notificationService.getNotification(id);
     }
 
-    //Get all Notification by Owner
+    /**
+     * @param cursor returned as nextCursor by the previous page, omitted for the newest notifications
+     * @param limit maximum number of notifications in the page
+     * @param unreadOnly leave out notifications that were read already
+     * @return one page of the logged-in user's notifications, newest first
+     */
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/inbox", produces = "application/json")
+    public NotificationPage getInbox(@AuthenticationPrincipal User user,
+                                     @RequestParam(required = false) String cursor,
+                                     @RequestParam(defaultValue = "" + NotificationService.DEFAULT_PAGE_SIZE) int limit,
+                                     @RequestParam(defaultValue = "false") boolean unreadOnly) {
+        return notificationService.getInbox(user.getId(), cursor, limit, unreadOnly);
+    }
+
+    /**
+     * Streams the logged-in user's new notifications as Server-Sent Events named "notification".
+     * A "resync" event means more was missed than the stream replays; reload /inbox then.
+     * Polling /inbox remains the fallback for clients that cannot keep a connection open.
+     *
+     * @param lastEventId sent by reconnecting clients to resume after the last event they received
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@AuthenticationPrincipal User user,
+                             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return notificationStream.subscribe(user.getId(), lastEventId);
+    }
+
+    // Number of unread notifications of the logged-in user, e.g. for a badge
+    @ResponseStatus(HttpStatus.OK)
+    @GetMapping(value = "/unread-count", produces = "application/json")
+    public int getUnreadCount(@AuthenticationPrincipal User user) {
+        return notificationService.getUnreadCount(user.getId());
+    }
+
+    // Marks the given notifications of the logged-in user read, or all of them when no ids are given
+    @ResponseStatus(HttpStatus.OK)
+    @PatchMapping(value = "/mark-read", produces = "application/json")
+    public int markRead(@RequestBody(required = false) MarkReadRequest request, @AuthenticationPrincipal User user) {
+        return notificationService.markRead(user, request == null ? null : request.getIds());
+    }
+
+    //Get all Notification by Owner, at most NotificationService.MAX_PAGE_SIZE of them; /inbox pages through all
+    // Polling fallback: connected clients get new notifications from /stream
     @ResponseStatus(HttpStatus.OK)
     @GetMapping(value = "/owner/{ownerId}", produces = "application/json")
     public List<NotificationResponse> getNotificationByOwner(@PathVariable String ownerId) {
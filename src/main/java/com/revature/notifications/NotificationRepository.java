@@ -1,21 +1,108 @@
 package com.revature.notifications;
 
-import com.revature.groups.Group;
-import com.revature.posts.Post;
-import org.springframework.data.jpa.repository.JpaRepository;
+import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.notificationType.NotificationType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Repository
 public interface NotificationRepository extends CrudRepository<Notification, String> {
 
+    // Flat rows, so reading a page never loads the users themselves
+    String INBOX = "select new com.revature.notifications.dtos.NotificationResponse(n.id, n.isRead, n.owner.id, n.type_id, "
+            + "n.date, o.id, o.email, p.id, n.actorCount) from Notification n left join n.otherUser o left join n.post p "
+            + "where n.owner.id = :ownerId ";
+
+    String UNREAD = "and n.isRead = false ";
+
+    String NEWEST_FIRST = "order by n.date desc, n.id desc";
+
+    String BEFORE_CURSOR = "and (n.date < :date or (n.date = :date and n.id < :id)) ";
+
+    String OLDEST_FIRST = "order by n.date asc, n.id asc";
+
+    String AFTER_CURSOR = "and (n.date > :date or (n.date = :date and n.id > :id)) ";
+
     Optional<Notification> findNotificationById(String id);
 
     Iterable<Notification> findNotificationByOwnerId(String owner_id_fk);
 
+    @Query(INBOX + NEWEST_FIRST)
+    List<NotificationResponse> findInbox(@Param("ownerId") String ownerId, Pageable page);
+
+    @Query(INBOX + BEFORE_CURSOR + NEWEST_FIRST)
+    List<NotificationResponse> findInboxBefore(@Param("ownerId") String ownerId, @Param("date") LocalDateTime date,
+                                               @Param("id") String id, Pageable page);
+
+    // Streams notifications written or folded into since the given position, oldest first
+    @Query(INBOX + AFTER_CURSOR + OLDEST_FIRST)
+    List<NotificationResponse> findInboxAfter(@Param("ownerId") String ownerId, @Param("date") LocalDateTime date,
+                                              @Param("id") String id, Pageable page);
+
+    @Query(INBOX + UNREAD + NEWEST_FIRST)
+    List<NotificationResponse> findUnread(@Param("ownerId") String ownerId, Pageable page);
+
+    @Query(INBOX + UNREAD + BEFORE_CURSOR + NEWEST_FIRST)
+    List<NotificationResponse> findUnreadBefore(@Param("ownerId") String ownerId, @Param("date") LocalDateTime date,
+                                                @Param("id") String id, Pageable page);
+
+    // Returns the number of notifications that were unread until now
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.owner.id = :ownerId and n.isRead = false and n.id in :ids")
+    int markRead(@Param("ownerId") String ownerId, @Param("ids") Collection<String> ids);
+
+    @Modifying
+    @Query("update Notification n set n.isRead = true where n.owner.id = :ownerId and n.isRead = false")
+    int markAllRead(@Param("ownerId") String ownerId);
+
+    @Query("select n.owner.id from Notification n where n.id = :id")
+    Optional<String> findOwnerIdById(@Param("id") String id);
+
+    // Deletes the notification only while it is unread, so it races markRead for the row rather than the counter
+    @Modifying
+    @Query("delete from Notification n where n.id = :id and n.isRead = false")
+    int deleteUnreadNotificationById(@Param("id") String id);
+
+    @Modifying
+    @Query("delete from Notification n where n.id = :id")
+    int deleteNotificationById(@Param("id") String id);
+
+    @Modifying
+    @Query("delete from Notification n where n.id in :ids")
+    int deleteByIds(@Param("ids") Collection<String> ids);
+
+    // Read notifications past the retention age, a batch at a time
+    @Query("select n.id from Notification n where n.isRead = true and n.date < :cutoff")
+    List<String> findReadIdsBefore(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    // (owner, type) pairs with more than one unread notification past the roll-up age
+    @Query("select n.owner.id as ownerId, n.type_id as type from Notification n where n.type_id is not null "
+            + "and n.isRead = false and n.date < :cutoff group by n.owner.id, n.type_id having count(n) > 1")
+    List<RollupGroupRow> findRollupGroups(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    // The actors recorded for the given notifications
+    @Query("select a.notification.id as notificationId, a.actor.id as actorId from NotificationActor a "
+            + "where a.notification.id in :ids")
+    List<NotificationActorRow> findActors(@Param("ids") Collection<String> ids);
+
+    // Flushes first, so a notification saved in the same transaction exists for the foreign key
+    @Modifying(flushAutomatically = true)
+    @Query(value = "insert into notification_actors (notification_id_fk, actor_id_fk) values (:notificationId, :actorId)",
+            nativeQuery = true)
+    int addActor(@Param("notificationId") String notificationId, @Param("actorId") String actorId);
+
+    @Query("select n.id as id, n.actorCount as actorCount, n.date as date, o.id as otherUserId from Notification n "
+            + "left join n.otherUser o where n.owner.id = :ownerId and n.type_id = :type and n.isRead = false "
+            + "and n.date < :cutoff order by n.date asc")
+    List<RollupRow> findRollupRows(@Param("ownerId") String ownerId, @Param("type") NotificationType type,
+                                   @Param("cutoff") LocalDateTime cutoff, Pageable page);
 }
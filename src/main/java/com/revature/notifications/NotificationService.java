@@ -1,26 +1,46 @@
 package com.revature.notifications;
 
+import com.revature.common.util.KeysetCursor;
 import com.revature.exceptions.*;
 import com.revature.notifications.dtos.NewNotificationRequest;
+import com.revature.notifications.dtos.NotificationPage;
 import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.stream.NotificationStream;
 import com.revature.users.User;
 import com.revature.users.UserRepository;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.function.Predicate;
 
 @Service
 public class NotificationService {
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+    public static final int MAX_MARK_READ = 500;
+
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
+    private final NotificationStream notificationStream;
 
-    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository) {
+    public NotificationService(NotificationRepository notificationRepository, UserRepository userRepository,
+                               NotificationStream notificationStream) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
+        this.notificationStream = notificationStream;
     }
 
     Predicate<String> notNullOrEmpty = str -> str != null && !str.equals("");
@@ -50,29 +70,103 @@ public class NotificationService {
 
 
     /**
-     * @param ownerId - Id of notification to be fetched
-     * @return - Response entity representing notification
+     * @param ownerId - Id of the user whose notifications are fetched
+     * @return - the newest MAX_PAGE_SIZE notifications of the user; getInbox pages through all
      */
     public List<NotificationResponse> getNotificationByOwner(String ownerId) {
-        List<NotificationResponse> notificationResponseList = new ArrayList<>();
+        return notificationRepository.findInbox(ownerId, PageRequest.of(0, MAX_PAGE_SIZE));
+    }
 
-        notificationRepository.findNotificationByOwnerId(ownerId).iterator()
-                .forEachRemaining(n -> notificationResponseList.add(new NotificationResponse(n)));
+    /**
+     * @param ownerId - Id of the user whose notifications are listed
+     * @param cursor - position returned with the previous page, or null for the newest notifications
+     * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+     * @param unreadOnly - leave out notifications that were read already
+     * @return one page of the user's notifications, newest first
+     */
+    public NotificationPage getInbox(String ownerId, String cursor, int limit, boolean unreadOnly) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        KeysetCursor position = KeysetCursor.decode(cursor);
+
+        // Fetch one extra row so we know whether another page exists
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        List<NotificationResponse> notifications;
+        if (unreadOnly) {
+            notifications = position == null
+                    ? notificationRepository.findUnread(ownerId, page)
+                    : notificationRepository.findUnreadBefore(ownerId, position.getDate(), position.getId(), page);
+        } else {
+            notifications = position == null
+                    ? notificationRepository.findInbox(ownerId, page)
+                    : notificationRepository.findInboxBefore(ownerId, position.getDate(), position.getId(), page);
+        }
+
+        String nextCursor = null;
+        if (notifications.size() > pageSize) {
+            notifications = notifications.subList(0, pageSize);
+            NotificationResponse last = notifications.get(pageSize - 1);
+            nextCursor = new KeysetCursor(last.getDate(), last.getId()).encode();
+        }
+        return new NotificationPage(notifications, nextCursor);
+    }
 
-//        Notification notification = notificationRepository.findNotificationByOwnerId(ownerId)
-//                .orElseThrow(NotificationByOwnerNotFoundException::new);
-        return notificationResponseList;
+    /**
+     * @param ownerId - Id of the user
+     * @return the number of the user's unread notifications, read from their counter
+     */
+    public int getUnreadCount(String ownerId) {
+        return userRepository.findUnreadNotificationCountById(ownerId).orElseThrow(UserNotFoundException::new);
+    }
+
+    /**
+     * Marks notifications of the user read with one statement.
+     *
+     * @param user - the logged-in user; notifications of other users are left alone
+     * @param ids - ids of the notifications to mark, at most MAX_MARK_READ, or null or empty for all of them
+     * @return the number of notifications that were unread until now
+     */
+    @Transactional
+    public int markRead(User user, List<String> ids) {
+        int marked;
+        if (ids == null || ids.isEmpty()) {
+            marked = notificationRepository.markAllRead(user.getId());
+        } else {
+            if (ids.size() > MAX_MARK_READ)
+                throw new InvalidRequestException("At most " + MAX_MARK_READ + " notifications can be marked read at once");
+            Set<String> unique = new LinkedHashSet<>(ids);
+            unique.remove(null);
+            marked = unique.isEmpty() ? 0 : notificationRepository.markRead(user.getId(), unique);
+        }
+
+        if (marked > 0)
+            userRepository.adjustUnreadNotificationCount(user.getId(), -marked);
+        return marked;
     }
 
+    /**
+     * Repairs unread counters that drifted from the notifications, e.g. after rows were removed
+     * by hand or through cascades.
+     */
+    @Scheduled(fixedDelayString = "${reverb.notifications.reconcile-interval-ms:600000}",
+            initialDelayString = "${reverb.notifications.reconcile-interval-ms:600000}")
+    public void reconcileUnreadCounts() {
+        userRepository.reconcileUnreadNotificationCounts();
+    }
 
+    // Counters of users who had notifications before the column existed start at 0, so they are repaired before first use
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        reconcileUnreadCounts();
+    }
 
     /**
      * @param newNotificationRequest - contains notification Type_id of new notification and Other User.
      *
      */
+    @Transactional
     public void createNotification(NewNotificationRequest newNotificationRequest, User user) {
 
-        if (!notNullOrEmpty.test(newNotificationRequest.getType_id().toString()))
+        if (newNotificationRequest.getType_id() == null)
             throw new InvalidRequestException("Invalid notification type entered");
         if (!notNullOrEmpty.test(newNotificationRequest.getOtherUserId()))
             throw new InvalidRequestException("Invalid notification Other User entered");
@@ -81,26 +175,50 @@ public class NotificationService {
         newNotification.setId(UUID.randomUUID().toString());
         newNotification.setIsRead(false);
 
-        User owner = userRepository.getById(user.getId());
-        newNotification.setOwner(owner);
-        System.out.println(owner);
+        // References only: the notification just needs the foreign keys
+        newNotification.setOwner(userRepository.getById(user.getId()));
 
         newNotification.setType_id(newNotificationRequest.getType_id());
 
-        User otherUser = userRepository.getById(newNotificationRequest.getOtherUserId());
-        newNotification.setOtherUser(otherUser);
-        System.out.println(otherUser);
+        newNotification.setOtherUser(userRepository.getById(newNotificationRequest.getOtherUserId()));
 
         newNotification.setDate(LocalDateTime.now());
 
         notificationRepository.save(newNotification);
+        // Recorded like the pipeline's actors, so the same user folded in later is not counted again
+        notificationRepository.addActor(newNotification.getId(), newNotificationRequest.getOtherUserId());
+        userRepository.adjustUnreadNotificationCount(user.getId(), 1);
+        afterCommit(user.getId());
     }
 
+    /**
+     * Deletes the notification without loading it; its owner's unread counter drops if it was unread.
+     *
+     * @param notificationId - Id of the notification to delete
+     */
+    @Transactional
     public void deleteNotification(String notificationId) {
-//        UUID uuid = UUID.fromString(notificationId);
-        Notification notification = notificationRepository.findNotificationById(notificationId).get();
+        String ownerId = notificationRepository.findOwnerIdById(notificationId)
+                .orElseThrow(NotificationNotFoundException::new);
+        // Whichever of this delete and markRead changes the unread row first takes it off the counter
+        int unread = notificationRepository.deleteUnreadNotificationById(notificationId);
+        if (unread > 0)
+            userRepository.adjustUnreadNotificationCount(ownerId, -unread);
+        else if (notificationRepository.deleteNotificationById(notificationId) == 0)
+            throw new NotificationNotFoundException();
+    }
 
-        notificationRepository.delete(notification);
+    // Connected clients are only told about the notification once it is durable
+    private void afterCommit(String ownerId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            notificationStream.notifyChanged(ownerId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                notificationStream.notifyChanged(ownerId);
+            }
+        });
     }
 }
-
@@ -0,0 +1,11 @@
+package com.revature.notifications;
+
+import com.revature.notifications.notificationType.NotificationType;
+
+/**
+ * An owner and a notification type whose old unread notifications are rolled up together.
+ */
+public interface RollupGroupRow {
+    String getOwnerId();
+    NotificationType getType();
+}
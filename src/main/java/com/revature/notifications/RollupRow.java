@@ -0,0 +1,13 @@
+package com.revature.notifications;
+
+import java.time.LocalDateTime;
+
+/**
+ * The parts of an old unread notification kept in its summary.
+ */
+public interface RollupRow {
+    String getId();
+    int getActorCount();
+    LocalDateTime getDate();
+    String getOtherUserId();
+}
@@ -0,0 +1,11 @@
+package com.revature.notifications.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class MarkReadRequest {
+    // Notifications to mark read; every unread notification of the user when empty
+    private List<String> ids;
+}
@@ -0,0 +1,14 @@
+package com.revature.notifications.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class NotificationPage {
+    private List<NotificationResponse> notifications;
+    // Cursor for the following page, null once the inbox is exhausted
+    private String nextCursor;
+}
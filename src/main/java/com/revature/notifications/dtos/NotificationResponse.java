@@ -2,40 +2,52 @@ package com.revature.notifications.dtos;
 
 import com.revature.notifications.Notification;
 import com.revature.notifications.notificationType.NotificationType;
-import com.revature.users.User;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
 
+/**
+ * Flat view of a notification. Users and the post are referenced by id (plus the other user's
+ * email for display) so that building a page never loads either user's follow or group collections.
+ */
 @Data
+@AllArgsConstructor
 public class NotificationResponse {
     private String id;
     private Boolean isRead;
-    private User owner;
-    private NotificationType type_id;
+    private String ownerId;
+    private String typeId;
+    private String typeName;
     private LocalDateTime date;
-    private User otherUser;
+    private String otherUserId;
+    private String otherUserEmail;
+    private UUID postId;
+    private int actorCount;
+
+    public NotificationResponse(String id, Boolean isRead, String ownerId, NotificationType type, LocalDateTime date,
+                                String otherUserId, String otherUserEmail, UUID postId, int actorCount) {
+        this(id, isRead, ownerId, type == null ? null : type.getId(), type == null ? null : type.getTypeName(), date,
+                otherUserId, otherUserEmail, postId, actorCount);
+    }
 
     public NotificationResponse(Notification notification) {
         this.id = notification.getId();
         this.isRead = notification.getIsRead();
-        this.owner = notification.getOwner();
-        this.type_id = notification.getType_id();
+        this.ownerId = notification.getOwner() == null ? null : notification.getOwner().getId();
+        NotificationType type = notification.getType_id();
+        if (type != null) {
+            this.typeId = type.getId();
+            this.typeName = type.getTypeName();
+        }
         this.date = notification.getDate();
-        this.otherUser = notification.getOtherUser();
-
-    }
-
-    @Override
-    public String toString() {
-        return "NewNotificationResponse{" +
-                "id='" + id + '\'' +
-                ", isRead=" + isRead +
-                ", owner=" + owner +
-                ", type_id=" + type_id +
-                ", date=" + date +
-                ", otherUser=" + otherUser +
-                '}';
+        if (notification.getOtherUser() != null) {
+            this.otherUserId = notification.getOtherUser().getId();
+            this.otherUserEmail = notification.getOtherUser().getEmail();
+        }
+        if (notification.getPost() != null)
+            this.postId = notification.getPost().getId();
+        this.actorCount = notification.getActorCount();
     }
 }
@@ -0,0 +1,16 @@
+package com.revature.notifications.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published by CommentService once a comment was saved.
+ */
+@Getter
+@AllArgsConstructor
+public class CommentAddedEvent {
+    private final UUID postId;
+    private final String commenterId;
+}
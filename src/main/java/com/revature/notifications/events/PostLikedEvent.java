@@ -0,0 +1,16 @@
+package com.revature.notifications.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Published by LikeService once a like was added.
+ */
+@Getter
+@AllArgsConstructor
+public class PostLikedEvent {
+    private final UUID postId;
+    private final String likerId;
+}
@@ -0,0 +1,14 @@
+package com.revature.notifications.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Published by FollowingService once a follow was added.
+ */
+@Getter
+@AllArgsConstructor
+public class UserFollowedEvent {
+    private final String followerId;
+    private final String followeeId;
+}
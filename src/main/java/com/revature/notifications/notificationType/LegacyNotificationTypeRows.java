@@ -0,0 +1,50 @@
+package com.revature.notifications.notificationType;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Databases created while notification types were an entity still have the notification_type
+ * table, and a foreign key to it from notifications.type_id. Nothing reads the table any more, but
+ * it needs a row for every type so notifications of newer types can be written. Schemas without
+ * the table are left alone.
+ */
+@Component
+public class LegacyNotificationTypeRows {
+
+    private static final Logger logger = LoggerFactory.getLogger(LegacyNotificationTypeRows.class);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Autowired
+    public LegacyNotificationTypeRows(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void sync() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (NotificationType type : NotificationType.values()) {
+                    Integer found = jdbcTemplate.queryForObject("select count(*) from notification_type where type_id = ?",
+                            Integer.class, type.getId());
+                    if (found == null || found == 0)
+                        jdbcTemplate.update("insert into notification_type (type_id, type) values (?, ?)",
+                                type.getId(), type.getTypeName());
+                }
+            });
+        } catch (DataAccessException e) {
+            logger.debug("No notification_type table to keep in sync: {}", e.getMessage());
+        }
+    }
+}
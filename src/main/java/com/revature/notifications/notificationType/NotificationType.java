@@ -1,46 +1,42 @@
 package com.revature.notifications.notificationType;
 
-import com.revature.exceptions.NotificationNotFoundException;
-import com.revature.notifications.Notification;
-
-import javax.persistence.*;
-import java.util.List;
-import java.util.Objects;
-
-
-@Entity
-@Table(name = "notification_type")
-public class NotificationType {
-
-    @Id
-    @Column(name = "type_id")
-    private String id;
-
-    @Column(name = "type", unique = true, nullable = false)
-    private String typeName;
-
-    @OneToMany(
-            mappedBy = "type_id",
-            fetch = FetchType.EAGER,
-            cascade = CascadeType.ALL
-    )
-    private List<Notification> notification;
-
-    public NotificationType() {
-        super();
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The kinds of notification. Stored by id in notifications.type_id through NotificationTypeConverter,
+ * and written to JSON in the {"id", "typeName"} shape the notification_type rows used to have.
+ */
+@JsonFormat(shape = JsonFormat.Shape.OBJECT)
+public enum NotificationType {
+    LIKE("1", "Like"),
+    FOLLOW("2", "Follow"),
+    COMMENT("3", "Comment");
+
+    private static final Map<String, NotificationType> BY_ID;
+    private static final Map<String, NotificationType> BY_NAME;
+
+    static {
+        Map<String, NotificationType> byId = new HashMap<>();
+        Map<String, NotificationType> byName = new HashMap<>();
+        for (NotificationType type : values()) {
+            byId.put(type.id, type);
+            byName.put(type.typeName, type);
+        }
+        BY_ID = Collections.unmodifiableMap(byId);
+        BY_NAME = Collections.unmodifiableMap(byName);
     }
 
-    public NotificationType(String typeName){
-        switch (typeName) {
-            case "Like":
-                this.id = "1";
-                break;
-            case "Follow":
-                this.id = "2";
-                break;
-            default:
-                throw new NotificationNotFoundException();
-        }
+    private final String id;
+    private final String typeName;
+
+    NotificationType(String id, String typeName) {
+        this.id = id;
         this.typeName = typeName;
     }
 
@@ -48,36 +44,36 @@ public class NotificationType {
         return id;
     }
 
-    public void setId(String id) {
-        this.id = id;
-    }
-
     public String getTypeName() {
         return typeName;
     }
 
-    public void setTypeName(String typeName) {
-        this.typeName = typeName;
-    }
-
-    @Override
-    public boolean equals(Object o) {
-        if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
-        NotificationType that = (NotificationType) o;
-        return Objects.equals(id, that.id) && Objects.equals(typeName, that.typeName);
+    /**
+     * @return the type with this id, or null when there is none
+     */
+    public static NotificationType fromId(String id) {
+        return id == null ? null : BY_ID.get(id);
     }
 
-    @Override
-    public int hashCode() {
-        return Objects.hash(id, typeName);
+    /**
+     * @return the type with this name, e.g. "Like", or null when there is none
+     */
+    public static NotificationType fromName(String typeName) {
+        return typeName == null ? null : BY_NAME.get(typeName);
     }
 
-    @Override
-    public String toString() {
-        return "NotificationType{" +
-                "id='" + id + '\'' +
-                ", typeName='" + typeName + '\'' +
-                 '}';
+    /**
+     * Reads {"id": "1"}, {"typeName": "Like"} or a bare id or name; unknown types read as null.
+     */
+    @JsonCreator
+    public static NotificationType fromJson(JsonNode json) {
+        if (json == null || json.isNull())
+            return null;
+        if (json.isValueNode()) {
+            NotificationType type = fromId(json.asText());
+            return type != null ? type : fromName(json.asText());
+        }
+        NotificationType type = fromId(json.path("id").asText(null));
+        return type != null ? type : fromName(json.path("typeName").asText(null));
     }
 }
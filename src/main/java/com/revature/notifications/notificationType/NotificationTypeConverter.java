@@ -0,0 +1,21 @@
+package com.revature.notifications.notificationType;
+
+import javax.persistence.AttributeConverter;
+import javax.persistence.Converter;
+
+/**
+ * Stores a NotificationType as its id, the value notifications.type_id has always held.
+ */
+@Converter
+public class NotificationTypeConverter implements AttributeConverter<NotificationType, String> {
+
+    @Override
+    public String convertToDatabaseColumn(NotificationType type) {
+        return type == null ? null : type.getId();
+    }
+
+    @Override
+    public NotificationType convertToEntityAttribute(String id) {
+        return NotificationType.fromId(id);
+    }
+}
@@ -0,0 +1,377 @@
+package com.revature.notifications.pipeline;
+
+import com.revature.notifications.events.CommentAddedEvent;
+import com.revature.notifications.events.PostLikedEvent;
+import com.revature.notifications.events.UserFollowedEvent;
+import com.revature.notifications.notificationType.NotificationType;
+import com.revature.notifications.stream.NotificationStream;
+import com.revature.posts.PostAuthorRow;
+import com.revature.posts.PostRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns likes, follows and comments into notifications off the request threads. Events are queued
+ * once the transaction that published them commits; worker threads take them in batches, fold
+ * events about the same thing (e.g. many likes on one post) into one notification and write the
+ * batch with JDBC batching in one transaction. An event for a notification the owner has not read
+ * yet is folded into the newest such notification instead of adding another row.
+ *
+ * Each worker owns a queue, and all events about the same thing go to the same one, so two
+ * workers never race to fold into or create the same notification. Folding counts distinct users:
+ * the users of a notification are recorded in notification_actors and only new ones add to it.
+ *
+ * The queues are bounded: when the writers fall behind, further events are dropped and counted
+ * rather than holding up requests.
+ */
+@Component
+public class NotificationPipeline {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPipeline.class);
+
+    static final String INSERT = "insert into notifications (notification_id, is_read, owner_id_fk, type_id, "
+            + "creation_date, other_user_id_fk, post_id_fk, actor_count) values (?, false, ?, ?, ?, ?, ?, ?)";
+
+    // The newest unread notification of the owner about the same thing; an event folds into that row alone
+    static final String UNREAD_TARGET = "(select t.notification_id from notifications t where t.owner_id_fk = ? "
+            + "and t.type_id = ? and t.is_read = false %s order by t.creation_date desc, t.notification_id desc limit 1)";
+
+    static final String FOR_POST = "and t.post_id_fk = ?";
+
+    static final String FOR_NO_POST = "and t.post_id_fk is null";
+
+    static final String ADD_ACTOR_TO_UNREAD = "insert into notification_actors (notification_id_fk, actor_id_fk) "
+            + "select n.notification_id, ? from notifications n where n.notification_id = ";
+
+    static final String UNLESS_KNOWN = " and not exists (select 1 from notification_actors a "
+            + "where a.notification_id_fk = n.notification_id and a.actor_id_fk = ?)";
+
+    static final String FOLD_INTO_UNREAD = "update notifications set actor_count = actor_count + ?, "
+            + "other_user_id_fk = ?, creation_date = ? where notification_id = ";
+
+    static final String INSERT_ACTOR = "insert into notification_actors (notification_id_fk, actor_id_fk) values (?, ?)";
+
+    static final String ADD_UNREAD = "update users set unread_notification_count = unread_notification_count + ? "
+            + "where user_id = ?";
+
+    private final NotificationPipelineProperties properties;
+    private final PostRepository postRepository;
+    private final NotificationStream notificationStream;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BlockingQueue<Pending>> queues = new ArrayList<>();
+
+    private final Counter accepted;
+    private final Counter dropped;
+    private final Counter failed;
+    private final Counter inserted;
+    private final Counter folded;
+
+    private final List<Thread> workers = new ArrayList<>();
+    private volatile boolean running;
+
+    @Autowired
+    public NotificationPipeline(NotificationPipelineProperties properties, PostRepository postRepository,
+                                NotificationStream notificationStream, JdbcTemplate jdbcTemplate,
+                                PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.postRepository = postRepository;
+        this.notificationStream = notificationStream;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        int workerCount = Math.max(1, properties.getWorkers());
+        int perQueue = Math.max(1, (properties.getQueueCapacity() + workerCount - 1) / workerCount);
+        for (int i = 0; i < workerCount; i++)
+            queues.add(new ArrayBlockingQueue<>(perQueue));
+
+        this.accepted = eventCounter(meterRegistry, "accepted");
+        this.dropped = eventCounter(meterRegistry, "dropped");
+        this.failed = eventCounter(meterRegistry, "failed");
+        this.inserted = Counter.builder("notifications.pipeline.writes").tag("outcome", "inserted").register(meterRegistry);
+        this.folded = Counter.builder("notifications.pipeline.writes").tag("outcome", "folded").register(meterRegistry);
+        meterRegistry.gauge("notifications.pipeline.queue", this, NotificationPipeline::queued);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        for (int i = 0; i < queues.size(); i++) {
+            BlockingQueue<Pending> queue = queues.get(i);
+            Thread worker = new Thread(() -> work(queue), "notification-writer-" + (i + 1));
+            worker.setDaemon(true);
+            workers.add(worker);
+            worker.start();
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread worker : workers)
+            worker.interrupt();
+        for (Thread worker : workers)
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        // Whatever is still queued is written by the stopping thread
+        drain();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPostLiked(PostLikedEvent event) {
+        submit(new Pending(NotificationType.LIKE, null, event.getPostId(), event.getLikerId(), LocalDateTime.now()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserFollowed(UserFollowedEvent event) {
+        submit(new Pending(NotificationType.FOLLOW, event.getFolloweeId(), null, event.getFollowerId(), LocalDateTime.now()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommentAdded(CommentAddedEvent event) {
+        submit(new Pending(NotificationType.COMMENT, null, event.getPostId(), event.getCommenterId(), LocalDateTime.now()));
+    }
+
+    /**
+     * Writes everything queued so far on the calling thread.
+     *
+     * @return the number of events taken from the queues
+     */
+    public int drain() {
+        int total = 0;
+        for (BlockingQueue<Pending> queue : queues) {
+            List<Pending> batch = new ArrayList<>();
+            while (queue.drainTo(batch, properties.getBatchSize()) > 0) {
+                write(batch);
+                total += batch.size();
+                batch = new ArrayList<>();
+            }
+        }
+        return total;
+    }
+
+    public int queued() {
+        int queued = 0;
+        for (BlockingQueue<Pending> queue : queues)
+            queued += queue.size();
+        return queued;
+    }
+
+    private void submit(Pending pending) {
+        if (queueFor(pending).offer(pending)) {
+            accepted.increment();
+        } else {
+            dropped.increment();
+            logger.debug("Notification queue is full, dropped a {} event", pending.type.getTypeName());
+        }
+    }
+
+    // A post's notifications belong to its author, so the post alone decides where they are written
+    private BlockingQueue<Pending> queueFor(Pending pending) {
+        Object subject = pending.postId != null ? pending.postId : pending.ownerId;
+        return queues.get(Math.floorMod(Objects.hash(pending.type, subject), queues.size()));
+    }
+
+    private void work(BlockingQueue<Pending> queue) {
+        while (running) {
+            Pending first;
+            try {
+                first = queue.poll(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (first == null)
+                continue;
+
+            try {
+                Thread.sleep(properties.getLinger().toMillis());
+            } catch (InterruptedException e) {
+                // Stopping: write what was taken, the loop ends afterwards
+                Thread.currentThread().interrupt();
+            }
+            List<Pending> batch = new ArrayList<>();
+            batch.add(first);
+            queue.drainTo(batch, properties.getBatchSize() - 1);
+            write(batch);
+        }
+    }
+
+    private void write(List<Pending> batch) {
+        try {
+            Set<String> owners = transactionTemplate.execute(status -> writeFolded(fold(batch)));
+            notificationStream.notifyChanged(owners);
+        } catch (RuntimeException e) {
+            failed.increment(batch.size());
+            logger.error("Could not write {} notification events", batch.size(), e);
+        }
+    }
+
+    /**
+     * Groups a batch by owner, type and post. Events on posts deleted meanwhile, and users acting
+     * on their own posts, notify nobody.
+     */
+    private Collection<Folded> fold(List<Pending> batch) {
+        Set<UUID> postIds = new HashSet<>();
+        for (Pending pending : batch) {
+            if (pending.ownerId == null)
+                postIds.add(pending.postId);
+        }
+        Map<UUID, String> authors = new HashMap<>();
+        if (!postIds.isEmpty()) {
+            for (PostAuthorRow row : postRepository.findAuthorIds(postIds))
+                authors.put(row.getPostId(), row.getAuthorId());
+        }
+
+        Map<String, Folded> folded = new LinkedHashMap<>();
+        for (Pending pending : batch) {
+            String ownerId = pending.ownerId != null ? pending.ownerId : authors.get(pending.postId);
+            if (ownerId == null || ownerId.equals(pending.actorId))
+                continue;
+            folded.computeIfAbsent(ownerId + ":" + pending.type + ":" + pending.postId,
+                    key -> new Folded(ownerId, pending.type, pending.postId)).add(pending.actorId, pending.date);
+        }
+        return folded.values();
+    }
+
+    // Returns the owners whose notifications changed
+    private Set<String> writeFolded(Collection<Folded> batch) {
+        List<Folded> onPosts = new ArrayList<>();
+        List<Folded> onUsers = new ArrayList<>();
+        for (Folded notification : batch)
+            (notification.postId == null ? onUsers : onPosts).add(notification);
+
+        Set<String> owners = new HashSet<>();
+        for (Folded notification : batch)
+            owners.add(notification.ownerId);
+
+        // Stamped with the time of writing; another writer may commit a later stamp first, which the stream's
+        // reorder window allows for
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Folded> fresh = new ArrayList<>();
+        fresh.addAll(foldIntoUnread(onPosts, true, now));
+        fresh.addAll(foldIntoUnread(onUsers, false, now));
+        if (fresh.isEmpty())
+            return owners;
+
+        List<Object[]> rows = new ArrayList<>(fresh.size());
+        List<Object[]> actors = new ArrayList<>();
+        Map<String, Integer> unread = new HashMap<>();
+        for (Folded notification : fresh) {
+            String id = UUID.randomUUID().toString();
+            rows.add(new Object[] { id, notification.ownerId, notification.type.getId(),
+                    now, notification.latestActorId,
+                    notification.postId == null ? null : notification.postId.toString(), notification.actorIds.size() });
+            for (String actorId : notification.actorIds)
+                actors.add(new Object[] { id, actorId });
+            unread.merge(notification.ownerId, 1, Integer::sum);
+        }
+        jdbcTemplate.batchUpdate(INSERT, rows);
+        jdbcTemplate.batchUpdate(INSERT_ACTOR, actors);
+
+        List<Object[]> counters = new ArrayList<>(unread.size());
+        for (Map.Entry<String, Integer> owner : unread.entrySet())
+            counters.add(new Object[] { owner.getValue(), owner.getKey() });
+        jdbcTemplate.batchUpdate(ADD_UNREAD, counters);
+        inserted.increment(fresh.size());
+        return owners;
+    }
+
+    // Returns the notifications that had no unread row to fold into
+    private List<Folded> foldIntoUnread(List<Folded> notifications, boolean onPost, Timestamp now) {
+        if (notifications.isEmpty())
+            return notifications;
+
+        // Records the users new to each unread notification; a user it has already counted adds nothing
+        List<Object[]> actorArgs = new ArrayList<>();
+        List<Folded> actorOwners = new ArrayList<>();
+        for (Folded notification : notifications) {
+            for (String actorId : notification.actorIds) {
+                List<Object> values = new ArrayList<>(Arrays.asList(actorId, notification.ownerId, notification.type.getId()));
+                if (onPost)
+                    values.add(notification.postId.toString());
+                values.add(actorId);
+                actorArgs.add(values.toArray());
+                actorOwners.add(notification);
+            }
+        }
+        int[] added = jdbcTemplate.batchUpdate(ADD_ACTOR_TO_UNREAD + unreadTarget(onPost) + UNLESS_KNOWN, actorArgs);
+        Map<Folded, Integer> newActors = new IdentityHashMap<>();
+        for (int i = 0; i < added.length; i++)
+            newActors.merge(actorOwners.get(i), Math.max(0, added[i]), Integer::sum);
+
+        List<Object[]> args = new ArrayList<>(notifications.size());
+        for (Folded notification : notifications) {
+            List<Object> values = new ArrayList<>(Arrays.asList(newActors.getOrDefault(notification, 0),
+                    notification.latestActorId, now, notification.ownerId, notification.type.getId()));
+            if (onPost)
+                values.add(notification.postId.toString());
+            args.add(values.toArray());
+        }
+        int[] updated = jdbcTemplate.batchUpdate(FOLD_INTO_UNREAD + unreadTarget(onPost), args);
+
+        List<Folded> fresh = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0)
+                fresh.add(notifications.get(i));
+        }
+        folded.increment(notifications.size() - fresh.size());
+        return fresh;
+    }
+
+    private static String unreadTarget(boolean onPost) {
+        return String.format(UNREAD_TARGET, onPost ? FOR_POST : FOR_NO_POST);
+    }
+
+    private static Counter eventCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("notifications.pipeline.events").tag("result", result).register(meterRegistry);
+    }
+
+    // An event as queued; the owner of a post's notification is looked up when the batch is written
+    @AllArgsConstructor
+    private static class Pending {
+        private final NotificationType type;
+        private final String ownerId;
+        private final UUID postId;
+        private final String actorId;
+        private final LocalDateTime date;
+    }
+
+    private static class Folded {
+        private final String ownerId;
+        private final NotificationType type;
+        private final UUID postId;
+        private final Set<String> actorIds = new HashSet<>();
+        private String latestActorId;
+        private LocalDateTime date;
+
+        Folded(String ownerId, NotificationType type, UUID postId) {
+            this.ownerId = ownerId;
+            this.type = type;
+            this.postId = postId;
+        }
+
+        void add(String actorId, LocalDateTime at) {
+            actorIds.add(actorId);
+            if (date == null || !at.isBefore(date)) {
+                latestActorId = actorId;
+                date = at;
+            }
+        }
+    }
+}
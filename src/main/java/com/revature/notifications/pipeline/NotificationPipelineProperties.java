@@ -0,0 +1,27 @@
+package com.revature.notifications.pipeline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.notifications.pipeline")
+public class NotificationPipelineProperties {
+
+    // Events waiting to be written, split evenly between the workers' queues; events for a full queue are dropped and counted
+    private int queueCapacity = 10000;
+
+    // Threads writing notifications, each owning the events about its share of posts and users
+    private int workers = 2;
+
+    // Most events written in one transaction
+    private int batchSize = 500;
+
+    // How long a worker waits after the first event of a batch, so bursts coalesce into one write
+    private Duration linger = Duration.ofMillis(250);
+}
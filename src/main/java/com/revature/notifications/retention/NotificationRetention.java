@@ -0,0 +1,161 @@
+package com.revature.notifications.retention;
+
+import com.revature.notifications.NotificationActorRow;
+import com.revature.notifications.NotificationRepository;
+import com.revature.notifications.RollupGroupRow;
+import com.revature.notifications.RollupRow;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Keeps the notifications table down to its working set. Read notifications past readMaxAge are
+ * deleted, and an owner's unread notifications of one type past unreadMaxAge are replaced by a
+ * single summary row that carries their distinct actors. Both work in bounded batches, one
+ * transaction each, so a run never holds many rows locked at once.
+ */
+@Component
+public class NotificationRetention {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationRetention.class);
+
+    static final String INSERT_SUMMARY = "insert into notifications (notification_id, is_read, owner_id_fk, type_id, "
+            + "creation_date, other_user_id_fk, post_id_fk, actor_count) values (?, false, ?, ?, ?, ?, null, ?)";
+
+    static final String INSERT_ACTOR = "insert into notification_actors (notification_id_fk, actor_id_fk) values (?, ?)";
+
+    private final NotificationRepository notificationRepository;
+    private final UserRepository userRepository;
+    private final NotificationRetentionProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    private final Counter expired;
+    private final Counter rolledUp;
+    private final DistributionSummary removedPerRun;
+
+    @Autowired
+    public NotificationRetention(NotificationRepository notificationRepository, UserRepository userRepository,
+                                 NotificationRetentionProperties properties, JdbcTemplate jdbcTemplate,
+                                 PlatformTransactionManager transactionManager, MeterRegistry meterRegistry) {
+        this.notificationRepository = notificationRepository;
+        this.userRepository = userRepository;
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        this.expired = Counter.builder("notifications.retention.removed").tag("reason", "expired").register(meterRegistry);
+        this.rolledUp = Counter.builder("notifications.retention.removed").tag("reason", "rolled-up").register(meterRegistry);
+        this.removedPerRun = DistributionSummary.builder("notifications.retention.run.removed").register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${reverb.notifications.retention.interval-ms:3600000}",
+            initialDelayString = "${reverb.notifications.retention.interval-ms:3600000}")
+    public void purge() {
+        run();
+    }
+
+    /**
+     * @return the number of rows removed, counting each roll-up as the rows it replaced minus its summary
+     */
+    public int run() {
+        long start = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        int budget = properties.getMaxBatchesPerRun();
+
+        int deleted = 0;
+        int batch;
+        do {
+            batch = deleteReadBatch(now.minus(properties.getReadMaxAge()));
+            deleted += batch;
+            budget--;
+        } while (batch == properties.getBatchSize() && budget > 0);
+
+        int summarized = 0;
+        LocalDateTime unreadCutoff = now.minus(properties.getUnreadMaxAge());
+        List<RollupGroupRow> groups;
+        while (budget > 0
+                && !(groups = notificationRepository.findRollupGroups(unreadCutoff, PageRequest.of(0, properties.getBatchSize()))).isEmpty()) {
+            for (RollupGroupRow group : groups) {
+                if (budget-- <= 0)
+                    break;
+                summarized += rollUp(group, unreadCutoff);
+            }
+        }
+
+        expired.increment(deleted);
+        rolledUp.increment(summarized);
+        removedPerRun.record(deleted + summarized);
+        if (deleted + summarized > 0)
+            logger.info("Notification retention removed {} read and rolled up {} unread notifications in {} ms",
+                    deleted, summarized, System.currentTimeMillis() - start);
+        return deleted + summarized;
+    }
+
+    private int deleteReadBatch(LocalDateTime cutoff) {
+        Integer deleted = transactionTemplate.execute(status -> {
+            List<String> ids = notificationRepository.findReadIdsBefore(cutoff, PageRequest.of(0, properties.getBatchSize()));
+            return ids.isEmpty() ? 0 : notificationRepository.deleteByIds(ids);
+        });
+        return deleted == null ? 0 : deleted;
+    }
+
+    // Replaces the oldest batch of the group with one summary; a larger group shrinks further on the next pass
+    private int rollUp(RollupGroupRow group, LocalDateTime cutoff) {
+        Integer removed = transactionTemplate.execute(status -> {
+            List<RollupRow> rows = notificationRepository.findRollupRows(group.getOwnerId(), group.getType(), cutoff,
+                    PageRequest.of(0, properties.getBatchSize()));
+            if (rows.size() < 2)
+                return 0;
+
+            List<String> ids = new ArrayList<>(rows.size());
+            for (RollupRow row : rows)
+                ids.add(row.getId());
+
+            // Users recorded on several of the rows count once; rows without recorded actors keep their count
+            Set<String> actors = new HashSet<>();
+            Set<String> recorded = new HashSet<>();
+            for (NotificationActorRow actor : notificationRepository.findActors(ids)) {
+                actors.add(actor.getActorId());
+                recorded.add(actor.getNotificationId());
+            }
+            int actorCount = actors.size();
+            for (RollupRow row : rows) {
+                if (!recorded.contains(row.getId()))
+                    actorCount += row.getActorCount();
+            }
+
+            String summaryId = UUID.randomUUID().toString();
+            RollupRow newest = rows.get(rows.size() - 1);
+            jdbcTemplate.update(INSERT_SUMMARY, summaryId, group.getOwnerId(), group.getType().getId(),
+                    Timestamp.valueOf(newest.getDate()), newest.getOtherUserId(), actorCount);
+            List<Object[]> actorRows = new ArrayList<>(actors.size());
+            for (String actorId : actors)
+                actorRows.add(new Object[] { summaryId, actorId });
+            jdbcTemplate.batchUpdate(INSERT_ACTOR, actorRows);
+            notificationRepository.deleteByIds(ids);
+            // The summary is unread itself, so it takes the place of one of the rows it replaced
+            userRepository.adjustUnreadNotificationCount(group.getOwnerId(), -(rows.size() - 1));
+            return rows.size() - 1;
+        });
+        return removed == null ? 0 : removed;
+    }
+}
@@ -0,0 +1,27 @@
+package com.revature.notifications.retention;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.notifications.retention")
+public class NotificationRetentionProperties {
+
+    // Read notifications older than this are deleted
+    private Duration readMaxAge = Duration.ofDays(30);
+
+    // Unread notifications older than this are rolled up into one summary per owner and type
+    private Duration unreadMaxAge = Duration.ofDays(90);
+
+    // Rows deleted, or rolled up, per transaction
+    private int batchSize = 1000;
+
+    // Upper bound on transactions per run; whatever is left waits for the next run
+    private int maxBatchesPerRun = 100;
+}
@@ -0,0 +1,314 @@
+package com.revature.notifications.stream;
+
+import com.revature.common.util.KeysetCursor;
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.notifications.NotificationRepository;
+import com.revature.notifications.dtos.NotificationResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes new notifications to connected users over Server-Sent Events. Each connection remembers
+ * the position of the last notification it was sent; when a user's notifications change, their
+ * connections read what came after that position and send it. Event ids are those positions, so a
+ * client reconnecting with Last-Event-ID resumes where it left off.
+ *
+ * Notifications are stamped before their transaction commits, so one can become visible behind a
+ * position already sent. Each read therefore starts reorderWindow behind the position and skips
+ * what the connection was sent already. A client resuming with Last-Event-ID may get notifications
+ * from that window again and should key them by id.
+ *
+ * Writers only mark connections for an update; reading and sending happen on a small dispatch
+ * pool, and updates requested while one is in flight are folded into a single read. A connection
+ * is sent at most bufferSize notifications per read; a client further behind gets a resync event
+ * and should reload its inbox over HTTP.
+ */
+@Component
+public class NotificationStream {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStream.class);
+
+    static final String NOTIFICATION = "notification";
+    static final String RESYNC = "resync";
+
+    // Starting point for users without any notifications yet
+    private static final KeysetCursor BEGINNING = new KeysetCursor(LocalDateTime.of(1970, 1, 1, 0, 0), "");
+
+    private final NotificationRepository notificationRepository;
+    private final NotificationStreamProperties properties;
+    private final Executor dispatcher;
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService heartbeats = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "notification-stream-heartbeat");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final Counter sent;
+    private final Counter resyncs;
+
+    @Autowired
+    public NotificationStream(NotificationRepository notificationRepository, NotificationStreamProperties properties,
+                              MeterRegistry meterRegistry) {
+        this(notificationRepository, properties, meterRegistry, newDispatcher(properties));
+    }
+
+    NotificationStream(NotificationRepository notificationRepository, NotificationStreamProperties properties,
+                       MeterRegistry meterRegistry, Executor dispatcher) {
+        this.notificationRepository = notificationRepository;
+        this.properties = properties;
+        this.dispatcher = dispatcher;
+        this.sent = Counter.builder("notifications.stream.events").tag("event", NOTIFICATION).register(meterRegistry);
+        this.resyncs = Counter.builder("notifications.stream.events").tag("event", RESYNC).register(meterRegistry);
+        meterRegistry.gauge("notifications.stream.connections", connections);
+    }
+
+    @PostConstruct
+    public void start() {
+        long interval = properties.getHeartbeat().toMillis();
+        heartbeats.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        heartbeats.shutdownNow();
+        if (dispatcher instanceof ExecutorService)
+            ((ExecutorService) dispatcher).shutdownNow();
+        for (List<Subscription> open : subscriptions.values()) {
+            for (Subscription subscription : open)
+                subscription.emitter.complete();
+        }
+    }
+
+    /**
+     * @param userId - the logged-in user
+     * @param lastEventId - id of the last event the client received, or null for only new notifications
+     * @return an open stream of the user's notifications
+     */
+    public SseEmitter subscribe(String userId, String lastEventId) {
+        SseEmitter emitter = createEmitter();
+        Subscription subscription = new Subscription(userId, emitter);
+        start(subscription, lastEventId);
+
+        Subscription evicted = add(subscription);
+        if (evicted != null) {
+            remove(evicted);
+            evicted.emitter.complete();
+        }
+        emitter.onCompletion(() -> remove(subscription));
+        emitter.onTimeout(() -> remove(subscription));
+        emitter.onError(e -> remove(subscription));
+
+        // Sends what the client missed, if anything
+        schedule(subscription);
+        return emitter;
+    }
+
+    /**
+     * Called once notifications of the user were written or changed; sends them to the user's
+     * open connections without waiting for it.
+     */
+    public void notifyChanged(String userId) {
+        List<Subscription> open = subscriptions.get(userId);
+        if (open == null)
+            return;
+        for (Subscription subscription : open)
+            schedule(subscription);
+    }
+
+    public void notifyChanged(Collection<String> userIds) {
+        for (String userId : userIds)
+            notifyChanged(userId);
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    SseEmitter createEmitter() {
+        return new SseEmitter(properties.getTimeout().toMillis());
+    }
+
+    private void start(Subscription subscription, String lastEventId) {
+        if (lastEventId != null) {
+            try {
+                KeysetCursor resumed = KeysetCursor.decode(lastEventId);
+                if (resumed != null) {
+                    subscription.position = resumed;
+                    subscription.sent.put(resumed.getId(), resumed.getDate());
+                    return;
+                }
+            } catch (InvalidRequestException e) {
+                logger.debug("Ignoring malformed Last-Event-ID from user {}", subscription.userId);
+            }
+        }
+        // Everything up to the newest notification has been seen through the inbox already
+        skipToNewest(subscription);
+    }
+
+    // Moves the connection past every notification written so far, counting those in the window behind as sent
+    private void skipToNewest(Subscription subscription) {
+        List<NotificationResponse> newest = notificationRepository.findInbox(subscription.userId, PageRequest.of(0, 1));
+        subscription.sent.clear();
+        if (newest.isEmpty()) {
+            subscription.position = BEGINNING;
+            return;
+        }
+        subscription.position = cursorOf(newest.get(0));
+        List<NotificationResponse> window = notificationRepository.findInboxAfter(subscription.userId,
+                subscription.position.getDate().minus(properties.getReorderWindow()), "",
+                PageRequest.of(0, properties.getBufferSize()));
+        for (NotificationResponse notification : window) {
+            if (!isAfter(cursorOf(notification), subscription.position))
+                subscription.sent.put(notification.getId(), notification.getDate());
+        }
+    }
+
+    // Returns the connection closed to make room, if any
+    private Subscription add(Subscription subscription) {
+        Subscription[] evicted = new Subscription[1];
+        subscriptions.compute(subscription.userId, (id, open) -> {
+            List<Subscription> updated = open == null ? new CopyOnWriteArrayList<>() : open;
+            if (updated.size() >= properties.getMaxConnectionsPerUser())
+                evicted[0] = updated.remove(0);
+            updated.add(subscription);
+            return updated;
+        });
+        connections.incrementAndGet();
+        return evicted[0];
+    }
+
+    private void remove(Subscription subscription) {
+        if (!subscription.closed.compareAndSet(false, true))
+            return;
+        subscriptions.computeIfPresent(subscription.userId, (id, open) -> {
+            open.remove(subscription);
+            return open.isEmpty() ? null : open;
+        });
+        connections.decrementAndGet();
+    }
+
+    private void schedule(Subscription subscription) {
+        if (subscription.closed.get() || !subscription.scheduled.compareAndSet(false, true))
+            return;
+        try {
+            dispatcher.execute(() -> {
+                // Cleared first, so a change arriving while we read schedules another pass
+                subscription.scheduled.set(false);
+                catchUp(subscription);
+            });
+        } catch (RejectedExecutionException e) {
+            subscription.scheduled.set(false);
+        }
+    }
+
+    private void catchUp(Subscription subscription) {
+        if (subscription.closed.get())
+            return;
+        int bufferSize = properties.getBufferSize();
+        synchronized (subscription) {
+            // A notification may commit after one stamped later, so the window behind the position is read again
+            LocalDateTime from = subscription.position.getDate().minus(properties.getReorderWindow());
+            // Fetch one extra row so we know whether the client is further behind than we hold
+            List<NotificationResponse> rows = notificationRepository.findInboxAfter(subscription.userId, from, "",
+                    PageRequest.of(0, bufferSize + subscription.sent.size() + 1));
+            List<NotificationResponse> missed = new ArrayList<>();
+            for (NotificationResponse row : rows) {
+                // A folded notification moves to a new date and is sent again
+                if (!row.getDate().equals(subscription.sent.get(row.getId())))
+                    missed.add(row);
+            }
+            try {
+                if (missed.size() > bufferSize) {
+                    skipToNewest(subscription);
+                    subscription.emitter.send(SseEmitter.event().id(subscription.position.encode()).name(RESYNC).data(""));
+                    resyncs.increment();
+                    return;
+                }
+                for (NotificationResponse notification : missed) {
+                    KeysetCursor at = cursorOf(notification);
+                    // A late arrival leaves the position where it is, so resuming never skips past it
+                    if (isAfter(at, subscription.position))
+                        subscription.position = at;
+                    subscription.emitter.send(SseEmitter.event().id(subscription.position.encode()).name(NOTIFICATION).data(notification));
+                    subscription.sent.put(notification.getId(), notification.getDate());
+                    sent.increment();
+                }
+            } catch (IOException | IllegalStateException e) {
+                drop(subscription, e);
+                return;
+            }
+            LocalDateTime horizon = subscription.position.getDate().minus(properties.getReorderWindow());
+            subscription.sent.values().removeIf(date -> date.isBefore(horizon));
+        }
+    }
+
+    private void heartbeat() {
+        for (List<Subscription> open : subscriptions.values()) {
+            for (Subscription subscription : open) {
+                try {
+                    subscription.emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    drop(subscription, e);
+                }
+            }
+        }
+    }
+
+    // The client went away; its next connection resumes from the last event it received
+    private void drop(Subscription subscription, Exception e) {
+        logger.debug("Closing notification stream of user {}: {}", subscription.userId, e.getMessage());
+        remove(subscription);
+        subscription.emitter.completeWithError(e);
+    }
+
+    private static KeysetCursor cursorOf(NotificationResponse notification) {
+        return new KeysetCursor(notification.getDate(), notification.getId());
+    }
+
+    private static boolean isAfter(KeysetCursor a, KeysetCursor b) {
+        int byDate = a.getDate().compareTo(b.getDate());
+        return byDate > 0 || (byDate == 0 && a.getId().compareTo(b.getId()) > 0);
+    }
+
+    private static ExecutorService newDispatcher(NotificationStreamProperties properties) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(properties.getDispatchThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "notification-stream-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static class Subscription {
+        private final String userId;
+        private final SseEmitter emitter;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        // Newest position sent, and what was sent within the reorder window behind it by id; guarded by the subscription's monitor
+        private KeysetCursor position;
+        private final Map<String, LocalDateTime> sent = new HashMap<>();
+
+        Subscription(String userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+    }
+}
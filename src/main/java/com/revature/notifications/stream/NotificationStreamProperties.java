@@ -0,0 +1,33 @@
+package com.revature.notifications.stream;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.notifications.stream")
+public class NotificationStreamProperties {
+
+    // Comment lines sent this often keep idle connections open through proxies and find dead ones
+    private Duration heartbeat = Duration.ofSeconds(20);
+
+    // Connections are closed after this long; clients reconnect and resume from their last event
+    private Duration timeout = Duration.ofMinutes(30);
+
+    // Most notifications held for one connection; a client further behind is told to reload its inbox
+    private int bufferSize = 100;
+
+    // How far behind its stamp a notification may commit; reads start this far behind the position sent
+    private Duration reorderWindow = Duration.ofSeconds(10);
+
+    // Open connections per user; opening another closes the oldest
+    private int maxConnectionsPerUser = 5;
+
+    // Threads sending events, so that writers never wait on a client
+    private int dispatchThreads = 2;
+}
@@ -34,6 +34,10 @@ public class Post {
     @Column(name = "content_link")
     private String contentLink;
 
+    // Number of rows in likesTable for this post, maintained by LikeService in the same transaction
+    @Column(name = "like_count", columnDefinition = "integer default 0 not null")
+    private int likeCount;
+
     // Link to the post's meta data
     @OneToOne
     @JoinColumn(name="post_content_fk", referencedColumnName = "post_meta_id", unique = true)
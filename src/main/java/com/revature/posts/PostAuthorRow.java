@@ -0,0 +1,11 @@
+package com.revature.posts;
+
+import java.util.UUID;
+
+/**
+ * A post and the id of the user who wrote it.
+ */
+public interface PostAuthorRow {
+    UUID getPostId();
+    String getAuthorId();
+}
@@ -1,14 +1,23 @@
 package com.revature.posts;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.common.util.LegacyListResponse;
 import com.revature.posts.dtos.NewPostRequest;
+import com.revature.posts.dtos.PostPage;
 import com.revature.posts.dtos.PostResponse;
 import com.revature.users.User;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,10 +26,12 @@ import java.util.List;
 @CrossOrigin
 public class PostController {
     private final PostService postService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public PostController(PostService postService) {
+    public PostController(PostService postService, ObjectMapper objectMapper) {
         this.postService = postService;
+        this.objectMapper = objectMapper;
     }
 
     /*
@@ -33,13 +44,45 @@ public class PostController {
     }
 
     /**
-     * @param groupName of group being queried
-     * @return list of PostResponses attached to a given group
+     * Streams every post as newline-delimited JSON, one PostResponse per line.
+     * Unlike get-all-posts the table is never held in memory at once.
      */
+    @GetMapping(path = "/get-all-posts/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamPosts() {
+        StreamingResponseBody body = out -> postService.streamPosts(batch -> {
+            try {
+                for (PostResponse post : batch) {
+                    out.write(objectMapper.writeValueAsBytes(post));
+                    out.write('\n');
+                }
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // Deprecated: answers the newest MAX_PAGE_SIZE posts, with a Next-Cursor header to continue on /group-feed
+    @Deprecated
     @GetMapping(path = "/get-group-posts/{groupName}")
     public ResponseEntity<List<PostResponse>> getGroupPosts(@PathVariable String groupName) {
-        return ResponseEntity.ok(postService.getGroupPosts(groupName));
+        PostPage page = postService.getGroupPosts(groupName);
+        String successor = "/api/post/group-feed/" + UriUtils.encodePathSegment(groupName, StandardCharsets.UTF_8);
+        return LegacyListResponse.firstPage(page.getPosts(), page.getNextCursor(), successor);
+    }
 
+    /**
+     * @param groupName of group being queried
+     * @param cursor returned as nextCursor by the previous page, omitted for the newest posts
+     * @param limit maximum number of posts in the page
+     * @return one page of the group's posts, newest first, with comment counts and the newest comments
+     */
+    @GetMapping(path = "/group-feed/{groupName}")
+    public ResponseEntity<PostPage> getGroupFeed(@PathVariable String groupName,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(postService.getGroupFeed(groupName, cursor, limit));
     }
 
     /**
@@ -51,9 +94,17 @@ public class PostController {
         return ResponseEntity.ok(postService.getPostsOfFollowing(user.getId()));
     }
 
+    /**
+     * @param user of logged-in user
+     * @param cursor returned as nextCursor by the previous page, omitted for the newest posts
+     * @param limit maximum number of posts in the page
+     * @return one page of the user's own, followed and group posts, newest first
+     */
     @GetMapping(path = "/get-personal-posts")
-    public ResponseEntity<List<PostResponse>> getPersonalPosts(@AuthenticationPrincipal User user) {
-        return ResponseEntity.ok(postService.getPersonalPosts(user.getId()));
+    public ResponseEntity<PostPage> getPersonalPosts(@AuthenticationPrincipal User user,
+                                                     @RequestParam(required = false) String cursor,
+                                                     @RequestParam(defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit) {
+        return ResponseEntity.ok(postService.getPersonalPosts(user.getId(), cursor, limit));
     }
 
 
@@ -1,17 +1,110 @@
 package com.revature.posts;
 
-import com.revature.groups.Group;
+import com.revature.posts.search.PostIndexRow;
+import com.revature.posts.timeline.TimelineEntry;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, UUID> {
-    @Query("from Post p join PostMeta pm on p.postMeta = pm.id where pm.group = :group")
-    public List<Post> findPostsByGroupId(Group group);
+
+    // Loads posts together with their meta data and group so building responses needs no further selects
+    String WITH_META = "select p from Post p join fetch p.postMeta pm left join fetch pm.group ";
+
+    // Posts written by the user, by anyone they follow, or inside any group they belong to
+    String FEED_FILTER = "(pm.author.id = :userId "
+            + "or pm.author.id in (select f.id from User u join u.following f where u.id = :userId) "
+            + "or pm.group.id in (select g.id from Group g join g.users m where m.id = :userId)) ";
+
+    String PERSONAL_FEED = WITH_META + "where " + FEED_FILTER;
+
+    String NEWEST_FIRST = "order by pm.date desc, pm.id desc";
+
+    String BEFORE_CURSOR = "and (pm.date < :date or (pm.date = :date and pm.id < :id)) ";
+
+    String GROUP_FEED = WITH_META + "where pm.group.id = :groupId ";
+
+    @Query(GROUP_FEED + NEWEST_FIRST)
+    List<Post> findGroupFeed(@Param("groupId") UUID groupId, Pageable page);
+
+    @Query(GROUP_FEED + BEFORE_CURSOR + NEWEST_FIRST)
+    List<Post> findGroupFeedBefore(@Param("groupId") UUID groupId, @Param("date") LocalDateTime date,
+                                   @Param("id") UUID id, Pageable page);
+
+    @Query(WITH_META)
+    List<Post> findAllWithMeta();
+
+    // Rows pulled from the database per round trip while streaming
+    int STREAM_FETCH_SIZE = 100;
+
+    // Must be consumed inside a transaction and closed afterwards
+    @QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = "" + STREAM_FETCH_SIZE))
+    @Query(WITH_META + NEWEST_FIRST)
+    Stream<Post> streamAllWithMeta();
+
+    @Query(PERSONAL_FEED + NEWEST_FIRST)
+    List<Post> findPersonalFeed(@Param("userId") String userId, Pageable page);
+
+    @Query(PERSONAL_FEED + BEFORE_CURSOR + NEWEST_FIRST)
+    List<Post> findPersonalFeedBefore(@Param("userId") String userId, @Param("date") LocalDateTime date,
+                                      @Param("id") UUID id, Pageable page);
+
+    // Positions only, used to seed in-memory home timelines
+    @Query("select new com.revature.posts.timeline.TimelineEntry(pm.date, pm.id) from PostMeta pm where "
+            + FEED_FILTER + NEWEST_FIRST)
+    List<TimelineEntry> findPersonalFeedEntries(@Param("userId") String userId, Pageable page);
+
+    @Query(WITH_META + "where pm.id in :postMetaIds")
+    List<Post> findByPostMetaIds(@Param("postMetaIds") Collection<UUID> postMetaIds);
+
+    @Query(WITH_META + "where p.id in :postIds")
+    List<Post> findByIdsWithMeta(@Param("postIds") Collection<UUID> postIds);
+
+    // Walks posts in (date, id) order, a page after the given position at a time, to build or catch up the search index
+    @Query("select p.id as id, p.postText as postText, pm.date as date, pm.author.id as authorId, g.id as groupId "
+            + "from Post p join p.postMeta pm left join pm.group g "
+            + "where pm.date > :date or (pm.date = :date and p.id > :id) order by pm.date, p.id")
+    List<PostIndexRow> findIndexRowsAfter(@Param("date") LocalDateTime date, @Param("id") UUID id, Pageable page);
+
+    // Case insensitive substring match on the post text, newest first; % and _ in the text match themselves
+    @Query("select p.id as id, p.postText as postText from Post p join p.postMeta pm "
+            + "where lower(p.postText) like lower(concat('%', :#{escape(#text)}, '%')) escape :#{escapeCharacter()} " + NEWEST_FIRST)
+    List<PostSearchRow> searchByText(@Param("text") String text, Pageable page);
+
+    @Query("select p.id as id, p.postText as postText from Post p where p.id in :postIds")
+    List<PostSearchRow> findSearchRowsByIds(@Param("postIds") Collection<UUID> postIds);
+
+    // Owners of liked and commented posts, looked up for a whole batch of notifications at once
+    @Query("select p.id as postId, pm.author.id as authorId from Post p join p.postMeta pm where p.id in :postIds")
+    List<PostAuthorRow> findAuthorIds(@Param("postIds") Collection<UUID> postIds);
+
+    @Query("select p.likeCount from Post p where p.id = :postId")
+    Optional<Integer> findLikeCountById(@Param("postId") UUID postId);
+
+    // Also locks the post row until the surrounding transaction ends, serializing likes on the same post
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :postId")
+    int adjustLikeCount(@Param("postId") UUID postId, @Param("delta") int delta);
+
+    // Rewrites every counter that no longer matches its likes; returns the number of posts repaired
+    @Modifying
+    @Transactional
+    @Query(value = "update posts set like_count = (select count(*) from likes_table l where l.post_id = posts.post_id) "
+            + "where like_count <> (select count(*) from likes_table l where l.post_id = posts.post_id)", nativeQuery = true)
+    int reconcileLikeCounts();
 
 }
@@ -1,11 +1,15 @@
 package com.revature.posts;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.revature.posts.PostService;
+import com.revature.posts.dtos.PostPage;
 
 @RestController
 @RequestMapping(path = "api/search")
@@ -19,6 +23,21 @@ public class PostSearchController {
 		this.postService = svc;
 	}
 
+	/*
+	 * Full-text search over posts and their comments.
+	 * Optional group (group id) and author (user id) narrow the results,
+	 * cursor is the nextCursor of the previous page.
+	 * returns ResponseEntity<PostPage> */
+	@GetMapping(path = "/posts")
+	public ResponseEntity<PostPage> searchPosts(@RequestParam(name = "query", required = false) String query,
+												@RequestParam(name = "group", required = false) String groupId,
+												@RequestParam(name = "author", required = false) String authorId,
+												@RequestParam(name = "cursor", required = false) String cursor,
+												@RequestParam(name = "limit", defaultValue = "" + PostService.DEFAULT_PAGE_SIZE) int limit)
+	{
+		return ResponseEntity.ok(postService.searchPosts(query, groupId, authorId, cursor, limit));
+	}
+
 	/*
 	 * Get all Posts from a specific user.
 	 * User object in RequestBody
@@ -0,0 +1,11 @@
+package com.revature.posts;
+
+import java.util.UUID;
+
+/**
+ * The parts of a post shown in search results.
+ */
+public interface PostSearchRow {
+    UUID getId();
+    String getPostText();
+}
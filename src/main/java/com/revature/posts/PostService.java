@@ -1,33 +1,53 @@
 package com.revature.posts;
 
-import com.revature.comments.Comment;
+import com.revature.comments.CommentCountRow;
+import com.revature.comments.CommentRow;
 import com.revature.comments.dtos.AuthorDto;
 import com.revature.comments.dtos.CommentRequest;
+import com.revature.common.util.KeysetCursor;
 import com.revature.exceptions.GroupNotFoundException;
+import com.revature.exceptions.InvalidRequestException;
 import com.revature.exceptions.UserNotInGroupException;
 import com.revature.groups.Group;
 import com.revature.groups.GroupRepository;
+import com.revature.groups.MembershipCache;
 import com.revature.follow.FollowRepository;
 import com.revature.posts.dtos.NewPostRequest;
+import com.revature.posts.dtos.PostPage;
 import com.revature.posts.dtos.PostResponse;
 import com.revature.exceptions.UserNotFoundException;
 import com.revature.posts.postmeta.PostMeta;
 import com.revature.users.User;
 import com.revature.comments.CommentRepository;
 import com.revature.posts.postmeta.PostMetaRepository;
+import com.revature.posts.search.PostIndex;
+import com.revature.posts.timeline.TimelineService;
 import com.revature.users.UserRepository;
 import com.revature.users.profiles.ProfileRepository;
+import com.revature.users.profiles.ProfileSummary;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
 
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Service
 public class PostService {
+	public static final int DEFAULT_PAGE_SIZE = 20;
+	public static final int MAX_PAGE_SIZE = 100;
+	// Newest comments shown with each post of the group feed
+	public static final int COMMENT_PREVIEW_SIZE = 3;
+
 	private final FollowRepository followRepository;
 	private final PostRepository postRepository;
 	private final CommentRepository commentRepository;
@@ -35,11 +55,16 @@ public class PostService {
 	private final PostMetaRepository postMetaRepository;
 	private final UserRepository userRepository;
     private final GroupRepository groupRepository;
+	private final TimelineService timelineService;
+	private final PostIndex postIndex;
+	private final EntityManager entityManager;
+	private final MembershipCache membershipCache;
 
 	// constructor
 	@Autowired
 	public PostService(PostRepository postRepository, CommentRepository commentRepository,
-			ProfileRepository profileRepository, PostMetaRepository postMetaRepository, FollowRepository followRepository, GroupRepository groupRepository, UserRepository userRepository) {
+			ProfileRepository profileRepository, PostMetaRepository postMetaRepository, FollowRepository followRepository, GroupRepository groupRepository, UserRepository userRepository,
+			TimelineService timelineService, PostIndex postIndex, EntityManager entityManager, MembershipCache membershipCache) {
 		this.postRepository = postRepository;
 		this.commentRepository = commentRepository;
 		this.profileRepository = profileRepository;
@@ -47,24 +72,89 @@ public class PostService {
         this.groupRepository = groupRepository;
 		this.followRepository = followRepository;
 		this.userRepository = userRepository;
+		this.timelineService = timelineService;
+		this.postIndex = postIndex;
+		this.entityManager = entityManager;
+		this.membershipCache = membershipCache;
 	}
 
 	/**  No parameters
 		Returns all Post objects in database
 	 */
 	public List<PostResponse> getPosts() {
-		List<Post> rawRepository = postRepository.findAll();
+		List<Post> rawRepository = postRepository.findAllWithMeta();
 
 		return getComments(rawRepository);
 	}
 
-    public List<PostResponse> getGroupPosts(String groupName) {
+	/**
+	 * Reads every post through a database cursor and hands them to the consumer a batch at a
+	 * time. Each batch is detached once consumed, so memory use does not grow with the table.
+	 *
+	 * @param batchConsumer - receives the responses of each batch, newest posts first
+	 */
+	@Transactional(readOnly = true)
+	public void streamPosts(Consumer<List<PostResponse>> batchConsumer) {
+		try (Stream<Post> posts = postRepository.streamAllWithMeta()) {
+			List<Post> batch = new ArrayList<>(PostRepository.STREAM_FETCH_SIZE);
+			Iterator<Post> iterator = posts.iterator();
+			while (iterator.hasNext()) {
+				batch.add(iterator.next());
+				if (batch.size() == PostRepository.STREAM_FETCH_SIZE || !iterator.hasNext()) {
+					batchConsumer.accept(getComments(batch));
+					batch.clear();
+					entityManager.clear();
+				}
+			}
+		}
+	}
+
+	/**
+	 * @param groupName - group whose posts are listed
+	 * @return the newest MAX_PAGE_SIZE posts of the group with all their comments, and the cursor
+	 *         getGroupFeed continues from when the group has more
+	 */
+	public PostPage getGroupPosts(String groupName) {
+		return getGroupPosts(groupName, MAX_PAGE_SIZE);
+	}
 
-        Group group = groupRepository.findGroupByName(groupName).orElseThrow(GroupNotFoundException::new);
-        List<Post> actualPosts = postRepository.findPostsByGroupId(group);
-        return getComments(actualPosts);
+	PostPage getGroupPosts(String groupName, int pageSize) {
+		UUID groupId = groupRepository.findIdByName(groupName).orElseThrow(GroupNotFoundException::new);
+		List<Post> posts = postRepository.findGroupFeed(groupId, PageRequest.of(0, pageSize + 1));
 
-    }
+		String nextCursor = null;
+		if (posts.size() > pageSize) {
+			posts = posts.subList(0, pageSize);
+			nextCursor = nextCursor(posts.get(pageSize - 1));
+		}
+		return new PostPage(getComments(posts), nextCursor);
+	}
+
+	/**
+	 * @param groupName - group whose posts are listed
+	 * @param cursor - position returned with the previous page, or null for the newest posts
+	 * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+	 * @return one page of the group's posts, newest first, each with its comment count and
+	 *         newest COMMENT_PREVIEW_SIZE comments
+	 */
+	public PostPage getGroupFeed(String groupName, String cursor, int limit) {
+		UUID groupId = groupRepository.findIdByName(groupName).orElseThrow(GroupNotFoundException::new);
+		int pageSize = clampPageSize(limit);
+		KeysetCursor position = KeysetCursor.decode(cursor);
+
+		// Fetch one extra row so we know whether another page exists
+		Pageable page = PageRequest.of(0, pageSize + 1);
+		List<Post> posts = position == null
+				? postRepository.findGroupFeed(groupId, page)
+				: postRepository.findGroupFeedBefore(groupId, position.getDate(), parseCursorId(position), page);
+
+		String nextCursor = null;
+		if (posts.size() > pageSize) {
+			posts = posts.subList(0, pageSize);
+			nextCursor = nextCursor(posts.get(pageSize - 1));
+		}
+		return new PostPage(getCommentPreviews(posts), nextCursor);
+	}
 
 	/**
 	 * @param userId
@@ -81,33 +171,59 @@ public class PostService {
 		return filteredPosts;
 	}
 
-	public List<PostResponse> getPersonalPosts(String userId){
-		//combined list of group posts, user posts, and following posts
-        Set<PostResponse> personalPosts = new HashSet<>();
-
-		//retrieve following posts
-		List<PostResponse> followingPosts = getPostsOfFollowing(userId);
-		//retrieve user posts
-		List<PostResponse> userPosts = getPostsOfUserId(userId);
-		//get the groups attached to a user
-		User user = userRepository.getById(userId);
-		List<Group> groups = user.getGroups();
-
-		//find all posts in groups that user belongs to
-		for(Group g : groups){
-            personalPosts.addAll(getGroupPosts(g.getName()));
+	/**
+	 * @param userId - id of the logged-in user
+	 * @param cursor - position returned with the previous page, or null for the newest posts
+	 * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+	 * @return one page of the user's own, followed users' and groups' posts, newest first
+	 */
+	public PostPage getPersonalPosts(String userId, String cursor, int limit) {
+		int pageSize = clampPageSize(limit);
+		KeysetCursor position = KeysetCursor.decode(cursor);
+
+		UUID positionId = position == null ? null : parseCursorId(position);
+
+		// Read from the in-memory timeline when fan-out is on and it can answer the page
+		if (timelineService.isPushEnabled()) {
+			List<UUID> postMetaIds = timelineService.getPage(userId, position, pageSize + 1);
+			if (postMetaIds != null && postMetaIds.isEmpty())
+				return new PostPage(new ArrayList<>(), null);
+			if (postMetaIds != null)
+				return toPage(inOrder(postRepository.findByPostMetaIds(postMetaIds), postMetaIds, post -> post.getPostMeta().getId()), pageSize);
 		}
 
-        personalPosts.addAll(followingPosts);
-        personalPosts.addAll(userPosts);
+		// Fetch one extra row so we know whether another page exists
+		Pageable page = PageRequest.of(0, pageSize + 1);
+		List<Post> posts = position == null
+				? postRepository.findPersonalFeed(userId, page)
+				: postRepository.findPersonalFeedBefore(userId, position.getDate(), positionId, page);
 
-		//sorts post by date. .reversed() should sort newest to oldest
+		return toPage(posts, pageSize);
+	}
 
-		List<PostResponse> list = personalPosts.stream()
-				.sorted(Comparator.comparing(PostResponse::getDate))
-				.collect(Collectors.toList());
-        System.out.println(list);
-        return list;
+	/**
+	 * @param query - words to look for in post and comment text
+	 * @param groupId - only posts of this group, or null
+	 * @param authorId - only posts written by this user, or null
+	 * @param cursor - position returned with the previous page, or null for the best matches
+	 * @param limit - requested page size, clamped to MAX_PAGE_SIZE
+	 * @return one page of matching posts, most relevant first with recent posts boosted
+	 */
+	public PostPage searchPosts(String query, String groupId, String authorId, String cursor, int limit) {
+		int pageSize = clampPageSize(limit);
+		int offset = parseOffset(cursor);
+		if (offset + pageSize > postIndex.getMaxWindow())
+			throw new InvalidRequestException("Search results can only be paged " + postIndex.getMaxWindow() + " posts deep");
+
+		PostIndex.Hits hits = postIndex.search(query, blankToNull(groupId), blankToNull(authorId), offset, pageSize);
+		List<UUID> postIds = hits.getPostIds();
+		List<Post> posts = postIds.isEmpty()
+				? new ArrayList<>()
+				: inOrder(postRepository.findByIdsWithMeta(postIds), postIds, Post::getId);
+
+		int next = offset + pageSize;
+		String nextCursor = next < hits.getTotal() && next < postIndex.getMaxWindow() ? String.valueOf(next) : null;
+		return new PostPage(getComments(posts), nextCursor);
 	}
 
 	/**
@@ -141,16 +257,12 @@ public class PostService {
 		Post newPost = new Post();
 
 		if (post.getGroupID() != null && !post.getGroupID().trim().equals("")) {
-			newPostMeta.setGroup(groupRepository.findById(UUID.fromString(post.getGroupID())).get());
-
-            List<User> users = newPostMeta.getGroup()
-                                          .getUsers()
-                                          .stream()
-                                          .filter(e -> e.getEmail().equals(user.getEmail()))
-                                          .collect(Collectors.toList());
-            if(users.size() != 1) {
-                throw new UserNotInGroupException();
-            }
+			UUID groupId = UUID.fromString(post.getGroupID());
+			// One indexed lookup, however many members the group has; unknown groups have none
+			if (!membershipCache.isMember(groupId, user.getId())) {
+				throw new UserNotInGroupException();
+			}
+			newPostMeta.setGroup(entityManager.getReference(Group.class, groupId));
         }
 
 		// Set the author
@@ -179,44 +291,163 @@ public class PostService {
 		postMetaRepository.save(newPostMeta);
 		newPost.setPostMeta(newPostMeta);
 
-		// Save the new post and return the status
-        return postRepository.save(newPost);
+		// Save the new post, copy it into followers' timelines when fan-out is on, and return the status
+		Post savedPost = postRepository.save(newPost);
+		timelineService.fanOut(newPostMeta);
+		postIndex.indexPost(savedPost);
+        return savedPost;
     }
 
+	/**
+	 * Builds the responses for a page of posts. Comments for every post are read with one
+	 * query and their authors' profiles with another, so the number of statements does not
+	 * grow with the number of posts or comments.
+	 */
 	private List<PostResponse> getComments(List<Post> posts) {
-		List<PostResponse> refinedRepo = new LinkedList<>();
+		if (posts.isEmpty())
+			return new ArrayList<>();
+
+		// Collect the ids of the page and load every comment on it at once
+		List<UUID> postIds = new ArrayList<>(posts.size());
+		for (Post post : posts)
+			postIds.add(post.getId());
+		List<CommentRow> rawComments = commentRepository.findRowsByPostIds(postIds);
+
+		Map<UUID, List<CommentRequest>> commentsByPost = groupByPost(rawComments);
 
-		for (int i = 0; i < posts.size(); i++) {
-			// Record the relevant data from the posts.
-			Post rawPost = posts.get(i);
+		List<PostResponse> refinedRepo = new ArrayList<>(posts.size());
+		for (Post rawPost : posts) {
 			PostResponse refinedPost = new PostResponse(rawPost);
+			refinedPost.setComments(commentsByPost.getOrDefault(rawPost.getId(), new ArrayList<>()));
+			refinedPost.setCommentCount(refinedPost.getComments().size());
+			refinedRepo.add(refinedPost);
+		}
+		return refinedRepo;
+	}
 
-			// Get the post's comments
-			List<Comment> rawComments = rawPost.getComments();
-			List<CommentRequest> refinedComments = new LinkedList<>();
-			for (int j = 0; j < rawComments.size(); j++){
-				// Record the relevant data for a comment.
-				Comment rawComment = rawComments.get(j);
-				CommentRequest refinedComment = new CommentRequest();
+	/**
+	 * Like getComments, but only the newest COMMENT_PREVIEW_SIZE comments of each post are
+	 * loaded, next to a count of all of them. Counts, previews and the preview authors' profiles
+	 * are each read with one query, so a post with thousands of comments costs the same as one
+	 * with a few.
+	 */
+	private List<PostResponse> getCommentPreviews(List<Post> posts) {
+		if (posts.isEmpty())
+			return new ArrayList<>();
+
+		List<UUID> postIds = new ArrayList<>(posts.size());
+		List<String> postKeys = new ArrayList<>(posts.size());
+		for (Post post : posts) {
+			postIds.add(post.getId());
+			postKeys.add(post.getId().toString());
+		}
 
-				// Get the simple values
-				refinedComment.setCommentId(rawComment.getId().toString());
-				refinedComment.setCommentText(rawComment.getCommentText());
-				refinedComment.setDate(rawComment.getDate());
+		Map<UUID, Long> counts = new HashMap<>();
+		for (CommentCountRow row : commentRepository.countByPostIds(postIds))
+			counts.put(row.getPostId(), row.getCommentCount());
+
+		List<CommentRow> previews = new ArrayList<>();
+		if (!counts.isEmpty()) {
+			List<UUID> previewIds = new ArrayList<>();
+			for (String id : commentRepository.findNewestIdsByPostIds(postKeys, COMMENT_PREVIEW_SIZE))
+				previewIds.add(UUID.fromString(id));
+			if (!previewIds.isEmpty())
+				previews = commentRepository.findRowsByIds(previewIds);
+		}
+		Map<UUID, List<CommentRequest>> commentsByPost = groupByPost(previews);
+
+		List<PostResponse> responses = new ArrayList<>(posts.size());
+		for (Post post : posts) {
+			PostResponse response = new PostResponse(post);
+			response.setComments(commentsByPost.getOrDefault(post.getId(), new ArrayList<>()));
+			response.setCommentCount(counts.getOrDefault(post.getId(), 0L));
+			responses.add(response);
+		}
+		return responses;
+	}
 
-				// Create the author object we need
-				AuthorDto refinedAuthor = new AuthorDto(rawComment.getAuthor(), profileRepository);
-				refinedComment.setAuthor(refinedAuthor);
+	// Groups the comments under their posts, keeping the date order of the rows, with their authors' profiles
+	private Map<UUID, List<CommentRequest>> groupByPost(List<CommentRow> rawComments) {
+		// Load the profiles of everyone who commented
+		Set<String> authorIds = new HashSet<>();
+		for (CommentRow comment : rawComments)
+			authorIds.add(comment.getAuthorId());
+		Map<String, ProfileSummary> profiles = new HashMap<>();
+		if (!authorIds.isEmpty()) {
+			for (ProfileSummary profile : profileRepository.findSummariesByUserIds(authorIds))
+				profiles.put(profile.getUserId(), profile);
+		}
 
-				// Add the result to the list
-				refinedComments.add(refinedComment);
+		Map<UUID, List<CommentRequest>> commentsByPost = new HashMap<>();
+		for (CommentRow rawComment : rawComments) {
+			CommentRequest refinedComment = new CommentRequest();
+			refinedComment.setCommentId(rawComment.getId().toString());
+			refinedComment.setCommentText(rawComment.getCommentText());
+			refinedComment.setDate(rawComment.getDate());
+			refinedComment.setAuthor(new AuthorDto(rawComment.getAuthorId(), profiles.get(rawComment.getAuthorId())));
 
-			}
-			refinedPost.setComments(refinedComments);
+			commentsByPost.computeIfAbsent(rawComment.getPostId(), id -> new ArrayList<>()).add(refinedComment);
+		}
+		return commentsByPost;
+	}
 
-			refinedRepo.add(refinedPost);
+	private PostPage toPage(List<Post> posts, int pageSize) {
+		String nextCursor = null;
+		if (posts.size() > pageSize) {
+			posts = posts.subList(0, pageSize);
+			nextCursor = nextCursor(posts.get(pageSize - 1));
+		}
+		return new PostPage(getComments(posts), nextCursor);
+	}
+
+	private static String nextCursor(Post last) {
+		PostMeta meta = last.getPostMeta();
+		return new KeysetCursor(meta.getDate(), meta.getId().toString()).encode();
+	}
+
+	// Puts posts loaded by id back into the order of the given ids, skipping any that no longer exist
+	private static List<Post> inOrder(List<Post> posts, List<UUID> ids, Function<Post, UUID> idOf) {
+		Map<UUID, Post> byId = new HashMap<>();
+		for (Post post : posts)
+			byId.put(idOf.apply(post), post);
+
+		List<Post> ordered = new ArrayList<>(ids.size());
+		for (UUID id : ids) {
+			Post post = byId.get(id);
+			if (post != null)
+				ordered.add(post);
+		}
+		return ordered;
+	}
+
+	// Search cursors are the number of results already returned
+	private static int parseOffset(String cursor) {
+		if (cursor == null || cursor.trim().isEmpty())
+			return 0;
+		try {
+			int offset = Integer.parseInt(cursor);
+			if (offset >= 0)
+				return offset;
+		} catch (NumberFormatException e) {
+			// reported below
+		}
+		throw new InvalidRequestException("Malformed page cursor");
+	}
+
+	private static String blankToNull(String value) {
+		return value == null || value.trim().isEmpty() ? null : value.trim();
+	}
+
+	private static int clampPageSize(int limit) {
+		return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+	}
+
+	private static UUID parseCursorId(KeysetCursor cursor) {
+		try {
+			return UUID.fromString(cursor.getId());
+		} catch (IllegalArgumentException e) {
+			throw new InvalidRequestException("Malformed page cursor");
 		}
-		return refinedRepo;
 	}
 
 }
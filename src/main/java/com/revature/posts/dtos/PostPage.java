@@ -0,0 +1,14 @@
+package com.revature.posts.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PostPage {
+    private List<PostResponse> posts;
+    // Cursor for the following page, null once the feed is exhausted
+    private String nextCursor;
+}
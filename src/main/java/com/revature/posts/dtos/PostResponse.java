@@ -22,6 +22,8 @@ public class PostResponse {
     private String authorID;
     private String groupName;
     private List<CommentRequest> comments;
+    // All comments on the post; comments may hold only the newest of them, e.g. in the group feed
+    private long commentCount;
 
     public PostResponse(Post raw) {
         this.id = raw.getId().toString();
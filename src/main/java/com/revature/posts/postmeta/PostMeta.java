@@ -15,7 +15,14 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "post_meta")
+@Table(name = "post_meta", indexes = {
+        // Serves the keyset-paginated feeds: author lookups ordered by (date, id)
+        @Index(name = "idx_post_meta_author_date", columnList = "author_id_fk, creation_date, post_meta_id"),
+        // Serves the keyset-paginated group feed
+        @Index(name = "idx_post_meta_group_date", columnList = "group_id_fk, creation_date, post_meta_id"),
+        // Lets the search index catch up on posts written since its last commit
+        @Index(name = "idx_post_meta_date", columnList = "creation_date")
+})
 @Getter
 @Setter
 public class PostMeta {
@@ -27,12 +34,13 @@ public class PostMeta {
     private UUID id;
 
     //add unique = true whenever there is a constraint, if we want an error thrown for non-unique values
-    @ManyToOne
+    // Lazy so that listing posts does not load every author; responses only need the id
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="author_id_fk", referencedColumnName="user_id")//every foreign key should have JoinColumn
     private User author;
 
     // The group that a post is placed in.
-    @ManyToOne()
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="group_id_fk", referencedColumnName = "group_id")
     @OnDelete(action = OnDeleteAction.CASCADE)
     private Group group;
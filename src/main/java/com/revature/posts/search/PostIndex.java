@@ -0,0 +1,404 @@
+package com.revature.posts.search;
+
+import com.revature.comments.CommentRepository;
+import com.revature.comments.CommentRow;
+import com.revature.posts.Post;
+import com.revature.posts.PostRepository;
+import com.revature.posts.postmeta.PostMeta;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.standard.StandardAnalyzer;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.*;
+import org.apache.lucene.index.DocValues;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.SortedDocValues;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.*;
+import org.apache.lucene.store.ByteBuffersDirectory;
+import org.apache.lucene.store.Directory;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+
+/**
+ * Embedded Lucene index over post and comment text. Posts and comments are written to it once
+ * their transaction commits, each comment as its own document keyed by its post, and become
+ * searchable at the next periodic refresh. The files are committed in the background and on
+ * shutdown; each commit records the point from which rows may be missing from it, and startup
+ * catches up on everything written since, or builds the whole index when there is none.
+ */
+@Component
+public class PostIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(PostIndex.class);
+
+    static final String TYPE = "type";
+    static final String ID = "id";
+    static final String TEXT = "text";
+    static final String AUTHOR = "author";
+    static final String GROUP = "group";
+    static final String DATE = "date";
+    static final String COMMENT_ID = "commentId";
+    static final String POST = "post";
+    static final String COMMENTS = "comments";
+
+    private static final String POST_TYPE = "post";
+    private static final String COMMENT_TYPE = "comment";
+
+    // Commit user data: the layout of the documents, and the date from which rows may be missing
+    private static final String FORMAT = "format";
+    private static final String FORMAT_VERSION = "2";
+    private static final String CATCH_UP_FROM = "catchUpFrom";
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Words found in the post itself count for more than words in its comments, which add a fixed
+    // amount below a typical match in the text since they are joined to their post without a score
+    private static final float TEXT_BOOST = 2.0f;
+    private static final float COMMENT_WEIGHT = 0.1f;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Hits {
+        // Post ids, best match first
+        private final List<UUID> postIds;
+        private final long total;
+    }
+
+    private final PostIndexProperties properties;
+    private final PostRepository postRepository;
+    private final CommentRepository commentRepository;
+    private final Analyzer analyzer = new StandardAnalyzer();
+
+    private Directory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    // Set once the index holds every post, i.e. it was committed before or a catch-up completed
+    private volatile boolean ready;
+
+    // Until a catch-up completes, commits keep the date it starts from, so a crash midway starts it over
+    private volatile LocalDateTime catchingUpFrom;
+
+    @Autowired
+    public PostIndex(PostIndexProperties properties, PostRepository postRepository, CommentRepository commentRepository) {
+        this.properties = properties;
+        this.postRepository = postRepository;
+        this.commentRepository = commentRepository;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        String path = properties.getPath();
+        directory = path == null || path.trim().isEmpty() ? new ByteBuffersDirectory() : FSDirectory.open(Paths.get(path));
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer).setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        searcherManager = new SearcherManager(writer, null);
+        catchingUpFrom = committedCatchUpFrom();
+        ready = !BEGINNING.equals(catchingUpFrom);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Where the last commit says rows may be missing from; an index in an older layout is cleared and built again
+    private LocalDateTime committedCatchUpFrom() throws IOException {
+        Map<String, String> committed = new HashMap<>();
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data != null)
+            data.forEach(entry -> committed.put(entry.getKey(), entry.getValue()));
+        if (FORMAT_VERSION.equals(committed.get(FORMAT)) && committed.containsKey(CATCH_UP_FROM))
+            return LocalDateTime.parse(committed.get(CATCH_UP_FROM));
+        if (writer.getDocStats().numDocs > 0)
+            writer.deleteAll();
+        return BEGINNING;
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        commit();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    // Caught up off the startup thread so the application can serve requests meanwhile
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread builder = new Thread(this::catchUp, "post-index-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @Scheduled(fixedDelayString = "${reverb.search.post-index.commit-interval-ms:5000}")
+    public void commit() {
+        try {
+            if (writer.hasUncommittedChanges())
+                commitFrom(catchUpFrom());
+        } catch (IOException e) {
+            logger.error("Could not commit the post index", e);
+        }
+    }
+
+    // Makes writes since the last refresh visible to searches
+    @Scheduled(fixedDelayString = "${reverb.search.post-index.refresh-interval-ms:1000}")
+    public void refresh() {
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.error("Could not refresh the post index", e);
+        }
+    }
+
+    /**
+     * Indexes the posts and comments written since the last commit recorded, or all of them when
+     * the index holds none.
+     */
+    public void catchUp() {
+        catchUp(catchUpFrom());
+    }
+
+    /**
+     * Indexes every post and comment in the database, a batch at a time.
+     */
+    public void rebuild() {
+        catchUp(BEGINNING);
+    }
+
+    private void catchUp(LocalDateTime from) {
+        catchingUpFrom = from;
+        try {
+            long start = System.currentTimeMillis();
+            int batchSize = properties.getBuildBatchSize();
+            long posts = 0;
+            LocalDateTime date = from;
+            UUID after = new UUID(0, 0);
+            List<PostIndexRow> postBatch;
+            do {
+                postBatch = postRepository.findIndexRowsAfter(date, after, PageRequest.of(0, batchSize));
+                for (PostIndexRow row : postBatch) {
+                    writer.updateDocument(new Term(ID, row.getId().toString()), toDocument(row.getId(), row.getPostText(),
+                            toMillis(row.getDate()), row.getAuthorId(), row.getGroupId()));
+                    date = row.getDate();
+                    after = row.getId();
+                }
+                posts += postBatch.size();
+            } while (postBatch.size() == batchSize);
+
+            long comments = 0;
+            date = from;
+            after = new UUID(0, 0);
+            List<CommentRow> commentBatch;
+            do {
+                commentBatch = commentRepository.findRowsAfter(date, after, PageRequest.of(0, batchSize));
+                for (CommentRow row : commentBatch) {
+                    writer.updateDocument(new Term(COMMENT_ID, row.getId().toString()),
+                            toDocument(row.getId(), row.getPostId(), row.getCommentText()));
+                    date = row.getDate();
+                    after = row.getId();
+                }
+                comments += commentBatch.size();
+            } while (commentBatch.size() == batchSize);
+
+            // Everything written from here on is indexed as it commits
+            catchingUpFrom = null;
+            ready = true;
+            commitFrom(catchUpFrom());
+            searcherManager.maybeRefresh();
+            logger.info("Post index caught up from {} with {} posts and {} comments in {} ms",
+                    from, posts, comments, System.currentTimeMillis() - start);
+        } catch (IOException | RuntimeException e) {
+            logger.error("Could not catch up the post index", e);
+        }
+    }
+
+    public void indexPost(Post post) {
+        PostMeta meta = post.getPostMeta();
+        Document document = toDocument(post.getId(), post.getPostText(), toMillis(meta.getDate()), meta.getAuthor().getId(),
+                meta.getGroup() == null ? null : meta.getGroup().getId());
+        afterCommit(() -> write(new Term(ID, post.getId().toString()), document));
+    }
+
+    /**
+     * Makes a comment's text find its post.
+     */
+    public void addComment(UUID commentId, UUID postId, String commentText) {
+        Document document = toDocument(commentId, postId, commentText);
+        afterCommit(() -> write(new Term(COMMENT_ID, commentId.toString()), document));
+    }
+
+    /**
+     * @param text - words to look for in posts and their comments; all must occur
+     * @param groupId - only posts of this group, or null
+     * @param authorId - only posts of this user, or null
+     * @param offset - number of best matches to skip
+     * @param limit - number of matches to return
+     * @return matching post ids, scored by relevance plus a boost for recent posts
+     */
+    public Hits search(String text, String groupId, String authorId, int offset, int limit) {
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                BooleanQuery.Builder query = new BooleanQuery.Builder();
+                query.add(new TermQuery(new Term(TYPE, POST_TYPE)), BooleanClause.Occur.FILTER);
+                boolean matchesText = false;
+                for (String token : analyze(text)) {
+                    query.add(new BooleanQuery.Builder()
+                            .add(new BoostQuery(new TermQuery(new Term(TEXT, token)), TEXT_BOOST), BooleanClause.Occur.SHOULD)
+                            .add(commentedPosts(searcher, token), BooleanClause.Occur.SHOULD)
+                            .build(), BooleanClause.Occur.MUST);
+                    matchesText = true;
+                }
+                if (!matchesText)
+                    query.add(new MatchAllDocsQuery(), BooleanClause.Occur.MUST);
+                if (groupId != null)
+                    query.add(new TermQuery(new Term(GROUP, groupId)), BooleanClause.Occur.FILTER);
+                if (authorId != null)
+                    query.add(new TermQuery(new Term(AUTHOR, authorId)), BooleanClause.Occur.FILTER);
+                query.add(LongPoint.newDistanceFeatureQuery(DATE, properties.getRecencyWeight(),
+                        System.currentTimeMillis(), properties.getRecencyPivot().toMillis()), BooleanClause.Occur.SHOULD);
+
+                TopDocs top = searcher.search(query.build(), offset + limit);
+                List<UUID> postIds = new ArrayList<>(limit);
+                for (int i = offset; i < top.scoreDocs.length; i++)
+                    postIds.add(UUID.fromString(searcher.doc(top.scoreDocs[i].doc, Collections.singleton(ID)).get(ID)));
+                return new Hits(postIds, top.totalHits.value);
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public int getMaxWindow() {
+        return properties.getMaxWindow();
+    }
+
+    // Matches the posts that have a comment containing the token
+    private static Query commentedPosts(IndexSearcher searcher, String token) throws IOException {
+        Set<BytesRef> postIds = new HashSet<>();
+        searcher.search(new TermQuery(new Term(COMMENTS, token)), new SimpleCollector() {
+            private SortedDocValues posts;
+
+            @Override
+            protected void doSetNextReader(LeafReaderContext context) throws IOException {
+                posts = DocValues.getSorted(context.reader(), POST);
+            }
+
+            @Override
+            public void collect(int doc) throws IOException {
+                if (posts.advanceExact(doc))
+                    postIds.add(BytesRef.deepCopyOf(posts.binaryValue()));
+            }
+
+            @Override
+            public ScoreMode scoreMode() {
+                return ScoreMode.COMPLETE_NO_SCORES;
+            }
+        });
+        return new BoostQuery(new ConstantScoreQuery(new TermInSetQuery(ID, postIds)), COMMENT_WEIGHT);
+    }
+
+    private void write(Term id, Document document) {
+        try {
+            writer.updateDocument(id, document);
+        } catch (IOException e) {
+            logger.error("Could not index {}", id, e);
+        }
+    }
+
+    // Rows written from this date on may be missing from a commit made now
+    private LocalDateTime catchUpFrom() {
+        LocalDateTime from = catchingUpFrom;
+        return from != null ? from : LocalDateTime.now(ZoneOffset.UTC).minus(properties.getCatchUpOverlap());
+    }
+
+    private synchronized void commitFrom(LocalDateTime from) throws IOException {
+        Map<String, String> data = new HashMap<>();
+        data.put(FORMAT, FORMAT_VERSION);
+        data.put(CATCH_UP_FROM, from.toString());
+        writer.setLiveCommitData(data.entrySet());
+        writer.commit();
+    }
+
+    // Rolled back posts and comments never reach the index
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+
+    private static Document toDocument(UUID postId, String text, long millis, String authorId, UUID groupId) {
+        Document document = new Document();
+        document.add(new StringField(TYPE, POST_TYPE, Field.Store.NO));
+        document.add(new StringField(ID, postId.toString(), Field.Store.YES));
+        document.add(new TextField(TEXT, text == null ? "" : text, Field.Store.NO));
+        document.add(new StringField(AUTHOR, authorId, Field.Store.NO));
+        if (groupId != null)
+            document.add(new StringField(GROUP, groupId.toString(), Field.Store.NO));
+        document.add(new LongPoint(DATE, millis));
+        document.add(new NumericDocValuesField(DATE, millis));
+        return document;
+    }
+
+    private static Document toDocument(UUID commentId, UUID postId, String text) {
+        Document document = new Document();
+        document.add(new StringField(TYPE, COMMENT_TYPE, Field.Store.NO));
+        document.add(new StringField(COMMENT_ID, commentId.toString(), Field.Store.NO));
+        document.add(new StringField(POST, postId.toString(), Field.Store.NO));
+        document.add(new SortedDocValuesField(POST, new BytesRef(postId.toString())));
+        document.add(new TextField(COMMENTS, text == null ? "" : text, Field.Store.NO));
+        return document;
+    }
+
+    // Post dates are stored in UTC
+    private static long toMillis(LocalDateTime date) {
+        return date.toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    private List<String> analyze(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null)
+            return tokens;
+        try (TokenStream stream = analyzer.tokenStream(TEXT, text)) {
+            CharTermAttribute term = stream.addAttribute(CharTermAttribute.class);
+            stream.reset();
+            while (stream.incrementToken())
+                tokens.add(term.toString());
+            stream.end();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,32 @@
+package com.revature.posts.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.search.post-index")
+public class PostIndexProperties {
+
+    // Directory holding the index; kept in memory when blank
+    private String path = "";
+
+    // Posts read from the database per round trip while building the index
+    private int buildBatchSize = 1000;
+
+    // How long before its commit a row may be stamped; a catch-up re-reads this much before the last commit
+    private Duration catchUpOverlap = Duration.ofMinutes(1);
+
+    // Deepest result that can be paged to
+    private int maxWindow = 1000;
+
+    // Score added to a post written right now, halved for a post recencyPivot old
+    private float recencyWeight = 1.0f;
+
+    private Duration recencyPivot = Duration.ofDays(7);
+}
@@ -0,0 +1,15 @@
+package com.revature.posts.search;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * The parts of a post that are written to the search index.
+ */
+public interface PostIndexRow {
+    UUID getId();
+    String getPostText();
+    LocalDateTime getDate();
+    String getAuthorId();
+    UUID getGroupId();
+}
@@ -0,0 +1,27 @@
+package com.revature.posts.timeline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.feed")
+public class FeedProperties {
+
+    private FeedStrategy strategy = FeedStrategy.PULL;
+
+    // Number of posts remembered per user timeline
+    private int timelineSize = 500;
+
+    // Upper bound on the number of timelines held in memory at once
+    private int maxTimelines = 20000;
+
+    // Posts whose audience is larger than this are not fanned out and are merged in on read instead
+    private int fanOutCap = 5000;
+
+    // Number of recent capped posts remembered for the read-time merge
+    private int highFanOutSize = 1000;
+}
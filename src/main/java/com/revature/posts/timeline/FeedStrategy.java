@@ -0,0 +1,8 @@
+package com.revature.posts.timeline;
+
+public enum FeedStrategy {
+    // Build every feed page with a query over posts, follows and group memberships
+    PULL,
+    // Copy new posts into the in-memory timeline of each follower and group member when they are written
+    PUSH
+}
@@ -0,0 +1,155 @@
+package com.revature.posts.timeline;
+
+import com.revature.common.util.KeysetCursor;
+import lombok.Getter;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process home timelines keyed by user id. A timeline is installed before its seed is read
+ * from the database, so posts fanned out during the read are kept and merged with the seed;
+ * it only answers reads once seeded. When there are too many, the least recently read timeline
+ * is dropped. Posts with too large an audience are kept in a single shared list instead and
+ * merged into each reader's page.
+ */
+@Component
+public class HomeTimelineStore {
+
+    private final FeedProperties feedProperties;
+    private final ConcurrentHashMap<String, Timeline> timelines = new ConcurrentHashMap<>();
+    // The same timelines, least recently read first; guarded by its own monitor
+    private final LinkedHashMap<String, Timeline> byLastRead = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Deque<HighFanOutPost> highFanOut = new ArrayDeque<>();
+    // Date of the newest capped post that has been dropped from highFanOut, null if none has
+    private LocalDateTime highFanOutHorizon;
+
+    public HomeTimelineStore(FeedProperties feedProperties) {
+        this.feedProperties = feedProperties;
+    }
+
+    public boolean isSeeded(String userId) {
+        Timeline timeline = timelines.get(userId);
+        return timeline != null && timeline.isSeeded();
+    }
+
+    /**
+     * Installs an empty timeline for the user, which keeps the posts fanned out to them until
+     * {@link #seed(Timeline, List)} merges in their feed read from the database.
+     *
+     * @return the timeline to seed, or null when the user has one already
+     */
+    Timeline startSeeding(String userId) {
+        Timeline timeline = new Timeline(feedProperties.getTimelineSize());
+        if (timelines.putIfAbsent(userId, timeline) != null)
+            return null;
+
+        synchronized (byLastRead) {
+            byLastRead.put(userId, timeline);
+            Iterator<Map.Entry<String, Timeline>> eldest = byLastRead.entrySet().iterator();
+            while (byLastRead.size() > feedProperties.getMaxTimelines() && eldest.hasNext()) {
+                Map.Entry<String, Timeline> entry = eldest.next();
+                eldest.remove();
+                timelines.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        return timeline;
+    }
+
+    /**
+     * @param newestFirst - the newest posts of the user's feed, at most one more than the timeline size
+     */
+    void seed(Timeline timeline, List<TimelineEntry> newestFirst) {
+        timeline.seed(newestFirst);
+    }
+
+    /**
+     * Drops a timeline whose seed could not be read, unless it was replaced meanwhile.
+     */
+    void abandon(String userId, Timeline timeline) {
+        timelines.remove(userId, timeline);
+        synchronized (byLastRead) {
+            byLastRead.remove(userId, timeline);
+        }
+    }
+
+    /**
+     * Adds a post to a user's timeline if that timeline is in memory.
+     */
+    public void append(String userId, TimelineEntry entry) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline != null)
+            timeline.add(entry);
+    }
+
+    /**
+     * @return the page after the cursor, or null if the timeline cannot answer it and the feed must be queried
+     */
+    public List<TimelineEntry> before(String userId, KeysetCursor cursor, int limit) {
+        Timeline timeline = timelines.get(userId);
+        if (timeline == null || !timeline.isSeeded())
+            return null;
+        synchronized (byLastRead) {
+            byLastRead.get(userId);
+        }
+        List<TimelineEntry> page = timeline.before(cursor, limit);
+        if (page.size() < limit && !timeline.isComplete())
+            return null;
+        return page;
+    }
+
+    public void evict(String userId) {
+        timelines.remove(userId);
+        synchronized (byLastRead) {
+            byLastRead.remove(userId);
+        }
+    }
+
+    public synchronized void addHighFanOut(HighFanOutPost post) {
+        highFanOut.addFirst(post);
+        if (highFanOut.size() > feedProperties.getHighFanOutSize()) {
+            HighFanOutPost dropped = highFanOut.removeLast();
+            if (highFanOutHorizon == null || dropped.getEntry().getDate().isAfter(highFanOutHorizon))
+                highFanOutHorizon = dropped.getEntry().getDate();
+        }
+    }
+
+    public synchronized List<HighFanOutPost> highFanOutBefore(KeysetCursor cursor) {
+        List<HighFanOutPost> posts = new ArrayList<>();
+        for (HighFanOutPost post : highFanOut) {
+            if (post.getEntry().isBefore(cursor))
+                posts.add(post);
+        }
+        return posts;
+    }
+
+    public synchronized LocalDateTime getHighFanOutHorizon() {
+        return highFanOutHorizon;
+    }
+
+    /**
+     * A post that was not copied into its audience's timelines.
+     */
+    @Getter
+    public static class HighFanOutPost {
+        private final TimelineEntry entry;
+        private final String authorId;
+        private final UUID groupId;
+
+        public HighFanOutPost(TimelineEntry entry, String authorId, UUID groupId) {
+            this.entry = entry;
+            this.authorId = authorId;
+            this.groupId = groupId;
+        }
+    }
+}
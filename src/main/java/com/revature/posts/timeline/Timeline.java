@@ -0,0 +1,113 @@
+package com.revature.posts.timeline;
+
+import com.revature.common.util.KeysetCursor;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Fixed-size ring buffer of feed entries kept newest first. New posts normally arrive in
+ * date order and are written over the oldest slot; the rare late arrival is shifted into place.
+ * A timeline is created empty and collects posts while its seed is read from the database;
+ * {@link #seed(List)} then merges the two.
+ */
+class Timeline {
+
+    private final TimelineEntry[] ring;
+    private int head;
+    private int size;
+
+    // True while the buffer holds the user's whole feed, false once older posts have been dropped
+    private boolean complete = true;
+
+    // False until the feed read from the database has been merged in
+    private boolean seeded;
+
+    Timeline(int capacity) {
+        this.ring = new TimelineEntry[capacity];
+    }
+
+    /**
+     * @param newestFirst - the newest posts of the user's feed, at most one more than the capacity
+     */
+    synchronized void seed(List<TimelineEntry> newestFirst) {
+        List<TimelineEntry> merged = new ArrayList<>(newestFirst);
+        // Posts added while the seed was read are kept, unless the seed holds them already
+        if (size > 0) {
+            Set<UUID> known = new HashSet<>();
+            for (TimelineEntry entry : newestFirst)
+                known.add(entry.getPostMetaId());
+            for (int i = 0; i < size; i++) {
+                if (known.add(at(i).getPostMetaId()))
+                    merged.add(at(i));
+            }
+            merged.sort(TimelineEntry.NEWEST_FIRST);
+        }
+
+        int count = Math.min(ring.length, merged.size());
+        for (int i = 0; i < count; i++)
+            ring[i] = merged.get(i);
+        head = 0;
+        size = count;
+        complete = complete && newestFirst.size() <= ring.length && merged.size() <= ring.length;
+        seeded = true;
+    }
+
+    synchronized void add(TimelineEntry entry) {
+        // Find where the entry belongs, ignoring posts we already hold
+        int position = 0;
+        while (position < size && TimelineEntry.NEWEST_FIRST.compare(at(position), entry) < 0)
+            position++;
+        if (position < size && at(position).getPostMetaId().equals(entry.getPostMetaId()))
+            return;
+
+        if (size == ring.length) {
+            complete = false;
+            if (position == size)
+                return;
+        }
+
+        head = (head - 1 + ring.length) % ring.length;
+        ring[head] = entry;
+        size = Math.min(size + 1, ring.length);
+        for (int i = 0; i < position; i++)
+            swap(i, i + 1);
+    }
+
+    /**
+     * @param cursor - position of the last post already shown, or null for the newest posts
+     * @param limit - maximum number of entries to return
+     */
+    synchronized List<TimelineEntry> before(KeysetCursor cursor, int limit) {
+        List<TimelineEntry> page = new ArrayList<>(Math.min(limit, size));
+        for (int i = 0; i < size && page.size() < limit; i++) {
+            TimelineEntry entry = at(i);
+            if (entry.isBefore(cursor))
+                page.add(entry);
+        }
+        return page;
+    }
+
+    synchronized boolean isComplete() {
+        return complete;
+    }
+
+    synchronized boolean isSeeded() {
+        return seeded;
+    }
+
+    private TimelineEntry at(int index) {
+        return ring[(head + index) % ring.length];
+    }
+
+    private void swap(int a, int b) {
+        int first = (head + a) % ring.length;
+        int second = (head + b) % ring.length;
+        TimelineEntry temp = ring[first];
+        ring[first] = ring[second];
+        ring[second] = temp;
+    }
+}
@@ -0,0 +1,44 @@
+package com.revature.posts.timeline;
+
+import com.revature.common.util.KeysetCursor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * A post's position in a feed: its meta data id and creation date.
+ */
+@Getter
+public class TimelineEntry {
+
+    // Same order as the feed queries: date then id, newest first
+    public static final Comparator<TimelineEntry> NEWEST_FIRST = Comparator
+            .comparing(TimelineEntry::getDate)
+            .thenComparing(entry -> entry.getPostMetaId().toString())
+            .reversed();
+
+    private final LocalDateTime date;
+    private final UUID postMetaId;
+
+    public TimelineEntry(LocalDateTime date, UUID postMetaId) {
+        this.date = date;
+        this.postMetaId = postMetaId;
+    }
+
+    /**
+     * @param cursor - position of the last post already shown, or null for the first page
+     * @return true if this entry belongs on a page after the cursor
+     */
+    public boolean isBefore(KeysetCursor cursor) {
+        if (cursor == null)
+            return true;
+        int byDate = date.compareTo(cursor.getDate());
+        return byDate < 0 || (byDate == 0 && postMetaId.toString().compareTo(cursor.getId()) < 0);
+    }
+
+    public KeysetCursor toCursor() {
+        return new KeysetCursor(date, postMetaId.toString());
+    }
+}
@@ -0,0 +1,150 @@
+package com.revature.posts.timeline;
+
+import com.revature.common.util.KeysetCursor;
+import com.revature.groups.GroupRepository;
+import com.revature.posts.PostRepository;
+import com.revature.posts.postmeta.PostMeta;
+import com.revature.posts.timeline.HomeTimelineStore.HighFanOutPost;
+import com.revature.security.PrincipalResolver;
+import com.revature.security.UserContext;
+import com.revature.users.UserRepository;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Push side of the personal feed. When enabled, new posts are copied into the timelines of the
+ * author's followers and the group's members, and feed pages are read from those timelines.
+ */
+@Service
+public class TimelineService {
+
+    private final FeedProperties feedProperties;
+    private final HomeTimelineStore timelineStore;
+    private final PostRepository postRepository;
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final PrincipalResolver principalResolver;
+
+    public TimelineService(FeedProperties feedProperties, HomeTimelineStore timelineStore, PostRepository postRepository,
+                           UserRepository userRepository, GroupRepository groupRepository, PrincipalResolver principalResolver) {
+        this.feedProperties = feedProperties;
+        this.timelineStore = timelineStore;
+        this.postRepository = postRepository;
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.principalResolver = principalResolver;
+    }
+
+    public boolean isPushEnabled() {
+        return feedProperties.getStrategy() == FeedStrategy.PUSH;
+    }
+
+    /**
+     * Copies a saved post into the timeline of everyone who should see it. Posts with an audience
+     * above the fan-out cap are only recorded once and merged into readers' pages instead.
+     *
+     * @param postMeta - meta data of the post that was just saved
+     */
+    public void fanOut(PostMeta postMeta) {
+        if (!isPushEnabled())
+            return;
+
+        TimelineEntry entry = new TimelineEntry(postMeta.getDate(), postMeta.getId());
+        String authorId = postMeta.getAuthor().getId();
+        UUID groupId = postMeta.getGroup() == null ? null : postMeta.getGroup().getId();
+
+        timelineStore.append(authorId, entry);
+
+        long audience = userRepository.countFollowers(authorId);
+        if (groupId != null)
+            audience += groupRepository.countMembers(groupId);
+        if (audience > feedProperties.getFanOutCap()) {
+            timelineStore.addHighFanOut(new HighFanOutPost(entry, authorId, groupId));
+            return;
+        }
+
+        Set<String> recipients = new HashSet<>(userRepository.findFollowerIds(authorId));
+        if (groupId != null)
+            recipients.addAll(groupRepository.findMemberIds(groupId));
+        for (String recipient : recipients)
+            timelineStore.append(recipient, entry);
+    }
+
+    /**
+     * @param userId - owner of the feed
+     * @param cursor - position of the last post already shown, or null for the newest posts
+     * @param limit - maximum number of posts on the page
+     * @return the post meta ids of the page, newest first, or null if the feed has to be queried instead
+     */
+    public List<UUID> getPage(String userId, KeysetCursor cursor, int limit) {
+        if (!timelineStore.isSeeded(userId))
+            seed(userId);
+
+        List<TimelineEntry> page = timelineStore.before(userId, cursor, limit);
+        if (page == null)
+            return null;
+
+        List<HighFanOutPost> capped = timelineStore.highFanOutBefore(cursor);
+        if (!capped.isEmpty())
+            page = mergeHighFanOut(userId, page, capped, limit);
+
+        // Older capped posts have been forgotten, so only the query can page past them
+        LocalDateTime horizon = timelineStore.getHighFanOutHorizon();
+        if (horizon != null && (page.size() < limit || !page.get(page.size() - 1).getDate().isAfter(horizon)))
+            return null;
+
+        List<UUID> postMetaIds = new ArrayList<>(page.size());
+        for (TimelineEntry entry : page)
+            postMetaIds.add(entry.getPostMetaId());
+        return postMetaIds;
+    }
+
+    /**
+     * Forgets a user's timeline, e.g. after they follow someone or join a group, so it is
+     * seeded again from the database on their next read.
+     */
+    public void invalidate(String userId) {
+        timelineStore.evict(userId);
+    }
+
+    // Another reader seeding the same timeline meanwhile leaves this page to the query
+    private void seed(String userId) {
+        Timeline timeline = timelineStore.startSeeding(userId);
+        if (timeline == null)
+            return;
+        try {
+            PageRequest seedSize = PageRequest.of(0, feedProperties.getTimelineSize() + 1);
+            timelineStore.seed(timeline, postRepository.findPersonalFeedEntries(userId, seedSize));
+        } catch (RuntimeException e) {
+            timelineStore.abandon(userId, timeline);
+            throw e;
+        }
+    }
+
+    private List<TimelineEntry> mergeHighFanOut(String userId, List<TimelineEntry> page,
+                                                List<HighFanOutPost> capped, int limit) {
+        UserContext reader = principalResolver.resolve(userId);
+
+        Set<UUID> seen = new HashSet<>();
+        List<TimelineEntry> merged = new ArrayList<>(page);
+        for (TimelineEntry entry : page)
+            seen.add(entry.getPostMetaId());
+
+        for (HighFanOutPost post : capped) {
+            boolean visible = post.getAuthorId().equals(userId)
+                    || (reader != null && (reader.isFollowing(post.getAuthorId()) || reader.isMember(post.getGroupId())));
+            if (visible && seen.add(post.getEntry().getPostMetaId()))
+                merged.add(post.getEntry());
+        }
+
+        merged.sort(TimelineEntry.NEWEST_FIRST);
+        return merged.size() > limit ? new ArrayList<>(merged.subList(0, limit)) : merged;
+    }
+}
@@ -0,0 +1,32 @@
+package com.revature.search;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * A searchable entity as read when building the typeahead index.
+ */
+@Getter
+public class IndexRow {
+    private final String key;
+    private final String label;
+    private final String aliases;
+
+    // A user with the names of their profile, which may be missing
+    public IndexRow(String userId, String email, String firstName, String lastName) {
+        this.key = userId;
+        this.label = email;
+        this.aliases = names(firstName, lastName);
+    }
+
+    public IndexRow(UUID groupId, String name) {
+        this.key = groupId.toString();
+        this.label = name;
+        this.aliases = "";
+    }
+
+    public static String names(String firstName, String lastName) {
+        return ((firstName == null ? "" : firstName) + " " + (lastName == null ? "" : lastName)).trim();
+    }
+}
@@ -2,16 +2,17 @@ package com.revature.search;
 
 import com.revature.search.dtos.SearchResponse;
 
-import java.time.LocalTime;
+import java.time.Duration;
 
 public class ResponseBucket {
 
     private final SearchResponse response;
-    private final LocalTime maxCacheAge;
+    // Read from System.nanoTime, so wall clock changes and midnight do not affect expiry
+    private final long expiresAtNanos;
 
-    public ResponseBucket(SearchResponse response) {
+    public ResponseBucket(SearchResponse response, Duration timeToLive) {
         this.response = response;
-        this.maxCacheAge = LocalTime.now().plusSeconds(360);
+        this.expiresAtNanos = System.nanoTime() + timeToLive.toNanos();
     }
 
     public SearchResponse get() {
@@ -19,6 +20,11 @@ public class ResponseBucket {
     }
 
     public boolean isValid() {
-        return LocalTime.now().isBefore(this.maxCacheAge);
+        return System.nanoTime() - this.expiresAtNanos < 0;
+    }
+
+    // Rough memory cost of the bucket, counted in results
+    public int getWeight() {
+        return this.response.getResponses().size() + 1;
     }
 }
@@ -1,22 +1,141 @@
 package com.revature.search;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 
 import com.revature.search.dtos.SearchResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 
+/**
+ * Least recently used cache of search responses, bounded by entry count and by the total number
+ * of results held. Entries expire after a fixed time to live, and concurrent misses for the same
+ * query share a single load. Hits, misses, evictions, size and load time are published under the
+ * standard cache.* meter names, tagged with the cache's name.
+ */
 public class SearchCache {
 
-    private final ConcurrentHashMap<String, ResponseBucket> cache = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final int maxWeight;
+    private final Duration timeToLive;
 
-    public SearchResponse get(String query) {
-        return cache.get(query).get();
+    // Access ordered, guarded by its own monitor
+    private final LinkedHashMap<String, ResponseBucket> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private int weight;
+
+    private final ConcurrentHashMap<String, CompletableFuture<SearchResponse>> loading = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private final Timer loads;
+
+    public SearchCache(String name, SearchCacheProperties properties, MeterRegistry registry) {
+        this.maxEntries = properties.getMaxEntries();
+        this.maxWeight = properties.getMaxWeight();
+        this.timeToLive = properties.ttlFor(name);
+
+        this.hits = Counter.builder("cache.gets").tag("cache", name).tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", name).tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", name).register(registry);
+        this.loads = Timer.builder("cache.load").tag("cache", name).register(registry);
+        Gauge.builder("cache.size", this, SearchCache::size).tag("cache", name).register(registry);
+    }
+
+    /**
+     * Returns the cached response for the query, or runs the loader and caches its result. When
+     * several threads miss on the same query at once only one of them runs the loader.
+     */
+    public SearchResponse get(String query, Function<String, SearchResponse> loader) {
+        ResponseBucket bucket = lookup(query);
+        if (bucket != null) {
+            hits.increment();
+            return bucket.get();
+        }
+        misses.increment();
+
+        CompletableFuture<SearchResponse> load = new CompletableFuture<>();
+        CompletableFuture<SearchResponse> running = loading.putIfAbsent(query, load);
+        if (running != null)
+            return await(running);
+
+        try {
+            long start = System.nanoTime();
+            SearchResponse response = loader.apply(query);
+            loads.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+            put(query, response);
+            load.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(query, load);
+        }
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    public synchronized void invalidateAll() {
+        cache.clear();
+        weight = 0;
+    }
+
+    private synchronized ResponseBucket lookup(String query) {
+        ResponseBucket bucket = cache.get(query);
+        if (bucket == null)
+            return null;
+        if (!bucket.isValid()) {
+            remove(query, bucket);
+            return null;
+        }
+        return bucket;
+    }
+
+    private synchronized void put(String query, SearchResponse response) {
+        ResponseBucket bucket = new ResponseBucket(response, timeToLive);
+        ResponseBucket previous = cache.put(query, bucket);
+        if (previous != null)
+            weight -= previous.getWeight();
+        weight += bucket.getWeight();
+
+        // Drop the least recently used entries until both bounds hold again
+        Iterator<Map.Entry<String, ResponseBucket>> eldest = cache.entrySet().iterator();
+        while (eldest.hasNext() && (cache.size() > maxEntries || weight > maxWeight)) {
+            Map.Entry<String, ResponseBucket> entry = eldest.next();
+            if (entry.getValue() == bucket)
+                continue;
+            weight -= entry.getValue().getWeight();
+            eldest.remove();
+            evictions.increment();
+        }
     }
 
-    public  void put(String query, SearchResponse response) {
-        cache.put(query, new ResponseBucket(response));
+    private void remove(String query, ResponseBucket bucket) {
+        cache.remove(query);
+        weight -= bucket.getWeight();
+        evictions.increment();
     }
 
-    public  boolean contains(String query) {
-        return cache.containsKey(query) && cache.get(query).isValid();
+    private static SearchResponse await(CompletableFuture<SearchResponse> load) {
+        try {
+            return load.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw e;
+        }
     }
 }
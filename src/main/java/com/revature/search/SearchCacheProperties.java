@@ -0,0 +1,33 @@
+package com.revature.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.search.cache")
+public class SearchCacheProperties {
+
+    // Upper bound on the number of cached queries
+    private int maxEntries = 10000;
+
+    // Upper bound on the total number of results held across all cached queries
+    private int maxWeight = 200000;
+
+    // How long a cached response is served before the query runs again
+    private Duration ttl = Duration.ofSeconds(360);
+
+    // Per cache overrides of the ttl, keyed by cache name (users, groups, posts)
+    private Map<String, Duration> ttlByCache = new HashMap<>();
+
+    public Duration ttlFor(String cacheName) {
+        return ttlByCache.getOrDefault(cacheName, ttl);
+    }
+}
@@ -21,4 +21,10 @@ public class SearchController {
         return searchService.userQuery(query);
     }
 
+    // Users, groups and posts at once, ranked together and tagged with their type
+    @GetMapping(path = "/all")
+    public SearchResponse queryAllByString(@RequestParam(name = "query", required = true) String query) {
+        return searchService.combinedQuery(query);
+    }
+
 }
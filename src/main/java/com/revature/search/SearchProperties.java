@@ -0,0 +1,30 @@
+package com.revature.search;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.search")
+public class SearchProperties {
+
+    // Threads given to each source (users, groups, posts) of the combined search
+    private int sourceThreads = 4;
+
+    // How long the combined search waits on a source before answering without it
+    private Duration sourceTimeout = Duration.ofMillis(500);
+
+    // Upper bound on the results returned by the combined search
+    private int maxResults = 50;
+
+    // Number of best matches returned by the user and group typeahead
+    private int typeaheadLimit = 20;
+
+    // Upper bound on the posts read for a single query
+    private int maxPostResults = 50;
+}
@@ -1,13 +1,23 @@
 package com.revature.search;
 
 import com.revature.groups.GroupRepository;
+import com.revature.posts.PostRepository;
+import com.revature.posts.PostSearchRow;
+import com.revature.posts.search.PostIndex;
 import com.revature.users.UserRepository;
 import com.revature.search.dtos.SearchResponse;
+import com.revature.search.dtos.SearchResponse.EntitySearchResult;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -16,40 +26,187 @@ public class SearchService {
 
     Logger logger = LoggerFactory.getLogger(SearchService.class);
 
-    private final SearchCache searchCache;
+    // Longest post excerpt returned as a result label
+    static final int POST_LABEL_LENGTH = 100;
+
     private final UserRepository userRepository;
     private final GroupRepository groupRepository;
+    private final PostRepository postRepository;
+    private final PostIndex postIndex;
+    private final SearchProperties searchProperties;
+    private final TypeaheadIndexer typeahead;
+
+    // One cache per source, so a query string never returns results of another type
+    private final SearchCache userCache;
+    private final SearchCache groupCache;
+    private final SearchCache postCache;
+
+    // One pool per source, so a slow source cannot starve the others
+    private final ExecutorService userExecutor;
+    private final ExecutorService groupExecutor;
+    private final ExecutorService postExecutor;
 
     @Autowired
-    public SearchService(UserRepository userRepository, GroupRepository groupRepository) {
+    public SearchService(UserRepository userRepository, GroupRepository groupRepository, PostRepository postRepository,
+                         PostIndex postIndex, TypeaheadIndexer typeahead, SearchProperties searchProperties,
+                         SearchCacheProperties cacheProperties, MeterRegistry meterRegistry) {
         this.userRepository = userRepository;
         this.groupRepository = groupRepository;
-        this.searchCache = new SearchCache();
+        this.postRepository = postRepository;
+        this.postIndex = postIndex;
+        this.searchProperties = searchProperties;
+        this.typeahead = typeahead;
+
+        this.userCache = new SearchCache("users", cacheProperties, meterRegistry);
+        this.groupCache = new SearchCache("groups", cacheProperties, meterRegistry);
+        this.postCache = new SearchCache("posts", cacheProperties, meterRegistry);
+
+        this.userExecutor = newSourceExecutor("users");
+        this.groupExecutor = newSourceExecutor("groups");
+        this.postExecutor = newSourceExecutor("posts");
     }
 
+    // Served from the typeahead index once it is built, from the database until then
     public SearchResponse userQuery(String query) {
-        if (searchCache.contains(query)) {
-            logger.info("Cache HIT for valid bucket containing SearchResponse for query: {}", query);
-            return searchCache.get(query);
-        }
-        Stream<Searchable> userSearch = userRepository.findByEmailContains(query).stream();
-        SearchResponse response = new SearchResponse(userSearch.collect(Collectors.toList()));
-        searchCache.put(query, response);
-        return searchCache.get(query);
+        if (typeahead.isReady())
+            return fromIndex(typeahead.getUsers(), query, SearchResponse.USER);
+
+        return userCache.get(query, q -> {
+            logger.debug("Cache MISS, searching users for query: {}", q);
+            Stream<Searchable> userSearch = userRepository.findByEmailContains(q).stream();
+            return new SearchResponse(userSearch.collect(Collectors.toList()), SearchResponse.USER);
+        });
     }
 
     public SearchResponse groupQuery(String query) {
-        if (searchCache.contains(query)) {
-            logger.info("Cache HIT for valid bucket containing SearchResponse for query: {}", query);
-            return searchCache.get(query);
+        if (typeahead.isReady())
+            return fromIndex(typeahead.getGroups(), query, SearchResponse.GROUP);
+
+        return groupCache.get(query, q -> {
+            logger.debug("Cache MISS, searching groups for query: {}", q);
+            Stream<Searchable> groupSearch = groupRepository.findByNameContains(q).stream();
+            return new SearchResponse(groupSearch.collect(Collectors.toList()), SearchResponse.GROUP);
+        });
+    }
+
+    // Served from the post index once it holds every post, from a scan of the posts table until then
+    public SearchResponse postQuery(String query) {
+        return postCache.get(query, q -> {
+            logger.debug("Cache MISS, searching posts for query: {}", q);
+            List<PostSearchRow> rows = postIndex.isReady() ? fromPostIndex(q)
+                    : postRepository.searchByText(q, PageRequest.of(0, searchProperties.getMaxPostResults()));
+            List<EntitySearchResult> posts = new ArrayList<>(rows.size());
+            for (PostSearchRow row : rows)
+                posts.add(new EntitySearchResult(excerpt(row.getPostText()), row.getId().toString()));
+            return new SearchResponse(posts, SearchResponse.POST);
+        });
+    }
+
+    /**
+     * Searches users, groups and posts in parallel and merges the matches into one ranked list.
+     * A source that fails or does not answer within the configured timeout is left out.
+     *
+     * @param query - text to look for
+     * @return tagged results, best matches first
+     */
+    public SearchResponse combinedQuery(String query) {
+        Map<String, Future<SearchResponse>> sources = new LinkedHashMap<>();
+        sources.put(SearchResponse.USER, userExecutor.submit(() -> userQuery(query)));
+        sources.put(SearchResponse.GROUP, groupExecutor.submit(() -> groupQuery(query)));
+        sources.put(SearchResponse.POST, postExecutor.submit(() -> postQuery(query)));
+
+        long deadline = System.nanoTime() + searchProperties.getSourceTimeout().toNanos();
+        List<EntitySearchResult> merged = new ArrayList<>();
+        for (Map.Entry<String, Future<SearchResponse>> source : sources.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                merged.addAll(source.getValue().get(remaining, TimeUnit.NANOSECONDS).getResponses());
+            } catch (TimeoutException e) {
+                source.getValue().cancel(true);
+                logger.warn("Search source {} timed out for query: {}", source.getKey(), query);
+            } catch (ExecutionException e) {
+                logger.warn("Search source {} failed for query: {}", source.getKey(), query, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
         }
-        Stream<Searchable> groupSearch = groupRepository.findByNameContains(query).stream();
-        SearchResponse response = new SearchResponse(groupSearch.collect(Collectors.toList()));
-        searchCache.put(query, response);
-        return searchCache.get(query);
+
+        return SearchResponse.of(rank(merged, query, searchProperties.getMaxResults()));
     }
 
-//    public SearchResponse query2(String query) {
-//        return new SearchResponse(searchRepository.findByLabelContains(query));
-//    }
-}
\ No newline at end of file
+    @PreDestroy
+    public void shutdown() {
+        userExecutor.shutdownNow();
+        groupExecutor.shutdownNow();
+        postExecutor.shutdownNow();
+    }
+
+    /**
+     * Orders results by how closely their label matches the query: exact matches first, then
+     * prefix matches, then matches at the start of a word, then any other match. Ties go to the
+     * shorter label, keeping the source order (users, groups, posts) otherwise.
+     */
+    static List<EntitySearchResult> rank(List<EntitySearchResult> results, String query, int limit) {
+        String needle = query.toLowerCase(Locale.ROOT);
+        List<EntitySearchResult> ranked = new ArrayList<>(results);
+        ranked.sort(Comparator.<EntitySearchResult>comparingInt(result -> matchRank(result.getLabel(), needle))
+                .thenComparingInt(result -> result.getLabel() == null ? Integer.MAX_VALUE : result.getLabel().length()));
+        return ranked.size() > limit ? new ArrayList<>(ranked.subList(0, limit)) : ranked;
+    }
+
+    private static int matchRank(String label, String needle) {
+        if (label == null)
+            return 4;
+        String haystack = label.toLowerCase(Locale.ROOT);
+        if (haystack.equals(needle))
+            return 0;
+        if (haystack.startsWith(needle))
+            return 1;
+        int at = haystack.indexOf(needle);
+        if (at > 0 && !Character.isLetterOrDigit(haystack.charAt(at - 1)))
+            return 2;
+        return 3;
+    }
+
+    private SearchResponse fromIndex(TypeaheadIndex index, String query, String type) {
+        List<EntitySearchResult> results = new ArrayList<>();
+        for (TypeaheadIndex.Entry entry : index.search(query, searchProperties.getTypeaheadLimit()))
+            results.add(new EntitySearchResult(entry.getLabel(), entry.getKey(), type));
+        return SearchResponse.of(results);
+    }
+
+    // Best matches first; posts deleted since they were indexed are left out
+    private List<PostSearchRow> fromPostIndex(String query) {
+        int limit = Math.min(searchProperties.getMaxPostResults(), postIndex.getMaxWindow());
+        List<UUID> postIds = postIndex.search(query, null, null, 0, limit).getPostIds();
+        if (postIds.isEmpty())
+            return new ArrayList<>();
+
+        Map<UUID, PostSearchRow> byId = new HashMap<>();
+        for (PostSearchRow row : postRepository.findSearchRowsByIds(postIds))
+            byId.put(row.getId(), row);
+        List<PostSearchRow> rows = new ArrayList<>(byId.size());
+        for (UUID postId : postIds) {
+            PostSearchRow row = byId.get(postId);
+            if (row != null)
+                rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String excerpt(String postText) {
+        if (postText == null || postText.length() <= POST_LABEL_LENGTH)
+            return postText;
+        return postText.substring(0, POST_LABEL_LENGTH);
+    }
+
+    private ExecutorService newSourceExecutor(String source) {
+        AtomicInteger count = new AtomicInteger();
+        return Executors.newFixedThreadPool(searchProperties.getSourceThreads(), runnable -> {
+            Thread thread = new Thread(runnable, "search-" + source + "-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.revature.search;
+
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+/**
+ * JPA callbacks on User, Profile and Group that keep the typeahead index current. Created by
+ * Hibernate through Spring, so the indexer is looked up lazily and may be absent, e.g. in
+ * repository slice tests.
+ */
+public class TypeaheadEntityListener {
+
+    private final ObjectProvider<TypeaheadIndexer> indexer;
+
+    public TypeaheadEntityListener(ObjectProvider<TypeaheadIndexer> indexer) {
+        this.indexer = indexer;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void saved(Object entity) {
+        indexer.ifAvailable(i -> i.saved(entity));
+    }
+
+    @PostRemove
+    public void removed(Object entity) {
+        indexer.ifAvailable(i -> i.removed(entity));
+    }
+}
@@ -0,0 +1,262 @@
+package com.revature.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index used for search-as-you-type. Every entry is split into overlapping
+ * three character grams, and each gram keeps a sorted posting list of entry numbers in a plain
+ * int array. A query of three or more characters intersects the lists of its own grams, so it
+ * matches anywhere in the text like the LIKE '%q%' queries it replaces. Shorter queries match the
+ * start of a word, read from the grams that are anchored at word boundaries.
+ *
+ * Replacing or removing an entry only marks its old number dead; the lists are rebuilt once dead
+ * numbers outweigh live ones.
+ */
+public class TypeaheadIndex {
+
+    // Pads word starts so one and two character prefixes still form a trigram
+    private static final char BOUNDARY = '\u0002';
+
+    private static final int MIN_COMPACTION = 1024;
+
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final String key;
+        // Shown as the search result, e.g. a user's email or a group's name
+        private final String label;
+        // Extra searchable text, e.g. a user's first and last name
+        private final String aliases;
+    }
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Entry number to entry, null once the entry was replaced or removed
+    private List<Entry> entries = new ArrayList<>();
+    private Map<String, Integer> numbersByKey = new HashMap<>();
+    private Map<Long, Postings> postings = new HashMap<>();
+    private int dead;
+
+    public void put(String key, String label, String aliases) {
+        Entry entry = new Entry(key, label == null ? "" : label, aliases == null ? "" : aliases);
+        lock.writeLock().lock();
+        try {
+            kill(key);
+            add(entry);
+            if (dead > MIN_COMPACTION && dead > numbersByKey.size())
+                compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String key) {
+        lock.writeLock().lock();
+        try {
+            kill(key);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Entry get(String key) {
+        lock.readLock().lock();
+        try {
+            Integer number = numbersByKey.get(key);
+            return number == null ? null : entries.get(number);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return numbersByKey.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query - text typed so far
+     * @param limit - number of results to keep
+     * @return the best matching entries, best first: exact label, label prefix, word start in the
+     *         label, anywhere in the label, then matches found only in the aliases
+     */
+    public List<Entry> search(String query, int limit) {
+        String needle = normalize(query);
+        if (needle.isEmpty() || limit <= 0)
+            return new ArrayList<>();
+
+        long[] grams = needle.length() < 3
+                ? new long[] { needle.length() == 1 ? gram(BOUNDARY, BOUNDARY, needle.charAt(0)) : gram(BOUNDARY, needle.charAt(0), needle.charAt(1)) }
+                : uniqueGrams(needle, false);
+
+        // Worst of the kept results at the head, so it can be replaced by a better one
+        Comparator<Scored> best = Comparator.comparingInt((Scored s) -> s.rank)
+                .thenComparingInt(s -> s.entry.getLabel().length())
+                .thenComparing(s -> s.entry.getKey());
+        PriorityQueue<Scored> top = new PriorityQueue<>(limit + 1, best.reversed());
+
+        lock.readLock().lock();
+        try {
+            Postings[] lists = new Postings[grams.length];
+            for (int i = 0; i < grams.length; i++) {
+                lists[i] = postings.get(grams[i]);
+                if (lists[i] == null)
+                    return new ArrayList<>();
+            }
+            // Walk the shortest list and probe the others
+            Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+            Postings shortest = lists[0];
+            candidates:
+            for (int i = 0; i < shortest.size; i++) {
+                int number = shortest.numbers[i];
+                for (int j = 1; j < lists.length; j++) {
+                    if (!lists[j].contains(number))
+                        continue candidates;
+                }
+                Entry entry = entries.get(number);
+                if (entry == null)
+                    continue;
+                int rank = rank(entry, needle);
+                if (rank < 0)
+                    continue;
+
+                top.add(new Scored(entry, rank));
+                if (top.size() > limit)
+                    top.poll();
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<Scored> ranked = new ArrayList<>(top);
+        ranked.sort(best);
+        List<Entry> results = new ArrayList<>(ranked.size());
+        for (Scored scored : ranked)
+            results.add(scored.entry);
+        return results;
+    }
+
+    private void kill(String key) {
+        Integer previous = numbersByKey.remove(key);
+        if (previous != null) {
+            entries.set(previous, null);
+            dead++;
+        }
+    }
+
+    private void add(Entry entry) {
+        int number = entries.size();
+        entries.add(entry);
+        numbersByKey.put(entry.getKey(), number);
+        // Numbers only grow, so appending keeps every posting list sorted
+        for (long gram : uniqueGrams(normalize(entry.getLabel() + " " + entry.getAliases()), true))
+            postings.computeIfAbsent(gram, g -> new Postings()).add(number);
+    }
+
+    private void compact() {
+        List<Entry> live = new ArrayList<>(numbersByKey.size());
+        for (Entry entry : entries) {
+            if (entry != null)
+                live.add(entry);
+        }
+        entries = new ArrayList<>(live.size());
+        numbersByKey = new HashMap<>();
+        postings = new HashMap<>();
+        dead = 0;
+        for (Entry entry : live)
+            add(entry);
+    }
+
+    // -1 when the grams matched but the text does not actually contain the query
+    private static int rank(Entry entry, String needle) {
+        int label = rank(normalize(entry.getLabel()), needle);
+        if (label >= 0)
+            return label;
+        int aliases = rank(normalize(entry.getAliases()), needle);
+        return aliases < 0 ? -1 : 4;
+    }
+
+    private static int rank(String text, String needle) {
+        if (text.equals(needle))
+            return 0;
+        if (text.startsWith(needle))
+            return 1;
+        int from = 0;
+        boolean contained = false;
+        int at;
+        while ((at = text.indexOf(needle, from)) > 0) {
+            if (!Character.isLetterOrDigit(text.charAt(at - 1)))
+                return 2;
+            contained = true;
+            from = at + 1;
+        }
+        // Short queries only ever match word starts
+        return contained && needle.length() >= 3 ? 3 : -1;
+    }
+
+    /**
+     * Grams of the whole text, plus the boundary grams of every word start when indexing.
+     */
+    private static long[] uniqueGrams(String text, boolean anchorWords) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + 2 < text.length(); i++)
+            grams.add(gram(text.charAt(i), text.charAt(i + 1), text.charAt(i + 2)));
+
+        if (anchorWords) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (!Character.isLetterOrDigit(c) || (i > 0 && Character.isLetterOrDigit(text.charAt(i - 1))))
+                    continue;
+                grams.add(gram(BOUNDARY, BOUNDARY, c));
+                if (i + 1 < text.length())
+                    grams.add(gram(BOUNDARY, c, text.charAt(i + 1)));
+            }
+        }
+
+        long[] packed = new long[grams.size()];
+        int i = 0;
+        for (Long gram : grams)
+            packed[i++] = gram;
+        return packed;
+    }
+
+    private static long gram(char a, char b, char c) {
+        return ((long) a << 32) | ((long) b << 16) | c;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @AllArgsConstructor
+    private static class Scored {
+        private final Entry entry;
+        private final int rank;
+    }
+
+    // Growable, sorted array of entry numbers
+    private static class Postings {
+        private int[] numbers = new int[4];
+        private int size;
+
+        void add(int number) {
+            if (size == numbers.length)
+                numbers = Arrays.copyOf(numbers, size * 2);
+            numbers[size++] = number;
+        }
+
+        boolean contains(int number) {
+            return Arrays.binarySearch(numbers, 0, size, number) >= 0;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.revature.search;
+
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.Profile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Owns the typeahead indexes of users and groups. They are filled from the database once the
+ * application has started and then kept current by TypeaheadEntityListener. Until the first
+ * build has finished isReady() is false and searches go to the database instead.
+ */
+@Component
+public class TypeaheadIndexer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TypeaheadIndexer.class);
+
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+
+    private final TypeaheadIndex users = new TypeaheadIndex();
+    private final TypeaheadIndex groups = new TypeaheadIndex();
+    private volatile boolean ready;
+
+    @Autowired
+    public TypeaheadIndexer(UserRepository userRepository, GroupRepository groupRepository) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public TypeaheadIndex getUsers() {
+        return users;
+    }
+
+    public TypeaheadIndex getGroups() {
+        return groups;
+    }
+
+    // Built off the startup thread so the application can serve requests meanwhile
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        Thread builder = new Thread(this::build, "typeahead-warm-up");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    public void build() {
+        try {
+            long start = System.currentTimeMillis();
+            for (IndexRow row : userRepository.findIndexRows())
+                users.put(row.getKey(), row.getLabel(), row.getAliases());
+            for (IndexRow row : groupRepository.findIndexRows())
+                groups.put(row.getKey(), row.getLabel(), row.getAliases());
+            ready = true;
+            logger.info("Typeahead index built with {} users and {} groups in {} ms",
+                    users.size(), groups.size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            logger.error("Could not build the typeahead index, searches keep using the database", e);
+        }
+    }
+
+    public void saved(Object entity) {
+        if (entity instanceof User) {
+            User user = (User) entity;
+            afterCommit(() -> {
+                TypeaheadIndex.Entry current = users.get(user.getId());
+                users.put(user.getId(), user.getEmail(), current == null ? "" : current.getAliases());
+            });
+        } else if (entity instanceof Profile && ((Profile) entity).getUser() != null) {
+            Profile profile = (Profile) entity;
+            User user = profile.getUser();
+            String names = IndexRow.names(profile.getFirstName(), profile.getLastName());
+            afterCommit(() -> users.put(user.getId(), user.getEmail(), names));
+        } else if (entity instanceof Group) {
+            Group group = (Group) entity;
+            afterCommit(() -> groups.put(group.getKey(), group.getLabel(), ""));
+        }
+    }
+
+    public void removed(Object entity) {
+        if (entity instanceof User) {
+            String userId = ((User) entity).getId();
+            afterCommit(() -> users.remove(userId));
+        } else if (entity instanceof Profile && ((Profile) entity).getUser() != null) {
+            User user = ((Profile) entity).getUser();
+            afterCommit(() -> {
+                if (users.get(user.getId()) != null)
+                    users.put(user.getId(), user.getEmail(), "");
+            });
+        } else if (entity instanceof Group) {
+            String groupId = ((Group) entity).getKey();
+            afterCommit(() -> groups.remove(groupId));
+        }
+    }
+
+    // Rolled back changes never reach the index
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -12,26 +12,58 @@ public class SearchResponse {
     private final List<EntitySearchResult> responses;
 
     public SearchResponse(List<Searchable> entities) {
+        this(entities, null);
+    }
+
+    /**
+     * @param entities - matches from a single source
+     * @param type - tag copied onto every result, e.g. SearchResponse.USER
+     */
+    public SearchResponse(List<? extends Searchable> entities, String type) {
         this.responses = new ArrayList<EntitySearchResult>();
         for (Searchable entity : entities) {
-            EntitySearchResult result = new EntitySearchResult(entity);
+            EntitySearchResult result = new EntitySearchResult(entity, type);
             this.responses.add(result);
         }
     }
 
+    // Result types of the combined search
+    public static final String USER = "user";
+    public static final String GROUP = "group";
+    public static final String POST = "post";
+
+    /**
+     * Wraps results that were already tagged and ranked, e.g. the merge of several sources.
+     */
+    public static SearchResponse of(List<EntitySearchResult> results) {
+        return new SearchResponse(results, null);
+    }
+
     @Data
     public static class EntitySearchResult implements Searchable {
         private final String label;
         private final String key;
+        private final String type;
 
         public EntitySearchResult(Searchable entity) {
+            this(entity, null);
+        }
+
+        public EntitySearchResult(Searchable entity, String type) {
             this.label = entity.getLabel();
             this.key = entity.getKey();
+            // Keep the tag of results that are being merged
+            this.type = type == null && entity instanceof EntitySearchResult ? ((EntitySearchResult) entity).getType() : type;
         }
 
         public EntitySearchResult(String label, String key) {
+            this(label, key, null);
+        }
+
+        public EntitySearchResult(String label, String key, String type) {
             this.label = label;
             this.key = key;
+            this.type = type;
         }
     }
 }
@@ -0,0 +1,145 @@
+package com.revature.security;
+
+import com.revature.exceptions.UserNotFoundException;
+import com.revature.groups.GroupRepository;
+import com.revature.security.props.PrincipalCacheProps;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Optional;
+
+/**
+ * Turns the detached principal of the security context into a {@link UserContext}. The snapshot
+ * is loaded at most once per request, where it is kept as a request attribute, and is shared
+ * between requests for a short time. Services that change who a user follows or which groups
+ * they are in call {@link #invalidate(String)}.
+ */
+@Component
+public class PrincipalResolver {
+
+    private static final String REQUEST_ATTRIBUTE = PrincipalResolver.class.getName() + ".";
+
+    private static class Cached {
+        private final UserContext context;
+        private final long expiresAtNanos;
+
+        private Cached(UserContext context, long expiresAtNanos) {
+            this.context = context;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+    }
+
+    private final UserRepository userRepository;
+    private final GroupRepository groupRepository;
+    private final PrincipalCacheProps props;
+    // Access ordered, guarded by the resolver's monitor; the least recently used user is dropped when full
+    private final LinkedHashMap<String, Cached> cache = new LinkedHashMap<>(16, 0.75f, true);
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public PrincipalResolver(UserRepository userRepository, GroupRepository groupRepository, PrincipalCacheProps props,
+                             MeterRegistry registry) {
+        this.userRepository = userRepository;
+        this.groupRepository = groupRepository;
+        this.props = props;
+        this.hits = Counter.builder("cache.gets").tag("cache", "principals").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "principals").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "principals").register(registry);
+        Gauge.builder("cache.size", this, PrincipalResolver::size).tag("cache", "principals").register(registry);
+    }
+
+    /**
+     * @param principal - user from the security context
+     * @return the user's snapshot, or null when they have no row yet (i.e. not registered)
+     */
+    public UserContext resolve(User principal) {
+        return resolve(principal.getId());
+    }
+
+    public UserContext resolve(String userId) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null) {
+            Object memo = request.getAttribute(REQUEST_ATTRIBUTE + userId, RequestAttributes.SCOPE_REQUEST);
+            if (memo != null)
+                return (UserContext) memo;
+        }
+
+        UserContext context = cached(userId);
+        if (context != null && request != null)
+            request.setAttribute(REQUEST_ATTRIBUTE + userId, context, RequestAttributes.SCOPE_REQUEST);
+        return context;
+    }
+
+    /**
+     * @throws UserNotFoundException when the user has no row
+     */
+    public UserContext require(User principal) {
+        UserContext context = resolve(principal);
+        if (context == null)
+            throw new UserNotFoundException();
+        return context;
+    }
+
+    /**
+     * Forgets the user's snapshot, so the next lookup, including one later in this request,
+     * reads it from the database again.
+     */
+    public void invalidate(String userId) {
+        synchronized (this) {
+            if (cache.remove(userId) != null)
+                evictions.increment();
+        }
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null)
+            request.removeAttribute(REQUEST_ATTRIBUTE + userId, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    public synchronized int size() {
+        return cache.size();
+    }
+
+    private UserContext cached(String userId) {
+        long now = System.nanoTime();
+        synchronized (this) {
+            Cached entry = cache.get(userId);
+            if (entry != null && entry.expiresAtNanos - now > 0) {
+                hits.increment();
+                return entry.context;
+            }
+        }
+        misses.increment();
+
+        UserContext context = load(userId);
+        if (context == null)
+            return null;
+
+        synchronized (this) {
+            cache.put(userId, new Cached(context, now + props.getTtl().toNanos()));
+            Iterator<Cached> eldest = cache.values().iterator();
+            while (cache.size() > props.getMaxEntries() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+        return context;
+    }
+
+    private UserContext load(String userId) {
+        Optional<String> email = userRepository.findEmailById(userId);
+        return email.map(found -> new UserContext(userId, found, userRepository.findFolloweeIds(userId),
+                groupRepository.findGroupIdsByMember(userId))).orElse(null);
+    }
+}
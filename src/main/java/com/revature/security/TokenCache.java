@@ -0,0 +1,188 @@
+package com.revature.security;
+
+import com.revature.security.props.TokenCacheProps;
+import com.revature.users.User;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the principal of ID tokens that have already been verified, so later requests with
+ * the same token skip signature checking. Entries are keyed by a SHA-256 hash of the token, so
+ * raw tokens are never held in memory, and expire with the token's exp claim. When full, the
+ * least recently used token is forgotten.
+ *
+ * Logging out revokes a user's tokens on this instance: cached ones are forgotten and tokens
+ * issued up to then are refused even though they verify, until they could no longer be valid.
+ */
+@Component
+public class TokenCache {
+
+    private static class Verified {
+        private final String userId;
+        private final String email;
+        private final long expiresAtMillis;
+
+        private Verified(String userId, String email, long expiresAtMillis) {
+            this.userId = userId;
+            this.email = email;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final TokenCacheProps props;
+
+    // Access ordered, guarded by the cache's monitor
+    private final LinkedHashMap<String, Verified> verified = new LinkedHashMap<>(16, 0.75f, true);
+
+    // When each user's tokens were last revoked, in milliseconds since the epoch
+    private final Map<String, Long> revokedAt = new ConcurrentHashMap<>();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    @Autowired
+    public TokenCache(TokenCacheProps props, MeterRegistry registry) {
+        this.props = props;
+        this.hits = Counter.builder("cache.gets").tag("cache", "tokens").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("cache.gets").tag("cache", "tokens").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("cache.evictions").tag("cache", "tokens").register(registry);
+        Gauge.builder("cache.size", this, TokenCache::size).tag("cache", "tokens").register(registry);
+    }
+
+    /**
+     * @return a fresh principal for a token verified earlier, or null when it must be verified
+     */
+    public User get(String token) {
+        String key = hash(token);
+        Verified entry;
+        synchronized (this) {
+            entry = verified.get(key);
+            if (entry != null && entry.expiresAtMillis <= System.currentTimeMillis()) {
+                verified.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+
+        // Callers get their own copy, so nothing they change leaks into other requests
+        User user = new User();
+        user.setId(entry.userId);
+        user.setEmail(entry.email);
+        return user;
+    }
+
+    /**
+     * @param token - the verified token
+     * @param user - principal read from the token
+     * @param issuedAtSeconds - the token's iat claim, in seconds since the epoch
+     * @param expiresAtSeconds - the token's exp claim, in seconds since the epoch
+     */
+    public void put(String token, User user, long issuedAtSeconds, long expiresAtSeconds) {
+        long now = System.currentTimeMillis();
+        long expiresAt = Math.min(expiresAtSeconds * 1000, now + props.getMaxTtl().toMillis());
+        if (expiresAt <= now)
+            return;
+
+        String key = hash(token);
+        synchronized (this) {
+            // Checked under the monitor, so a revocation racing with verification cannot be undone here
+            if (isRevoked(user.getId(), issuedAtSeconds))
+                return;
+            verified.put(key, new Verified(user.getId(), user.getEmail(), expiresAt));
+
+            Iterator<Verified> eldest = verified.values().iterator();
+            while (verified.size() > props.getMaxEntries() && eldest.hasNext()) {
+                eldest.next();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    /**
+     * @param issuedAtSeconds - the token's iat claim, in seconds since the epoch
+     * @return whether the user's tokens were revoked after this one was issued
+     */
+    public boolean isRevoked(String userId, long issuedAtSeconds) {
+        Long revoked = revokedAt.get(userId);
+        return revoked != null && issuedAtSeconds * 1000 <= revoked;
+    }
+
+    /**
+     * Refuses every token of the user issued until now, e.g. when they log out. Their next
+     * request needs a token issued afterwards.
+     */
+    public void revokeUser(String userId) {
+        revokedAt.put(userId, System.currentTimeMillis());
+        invalidateUser(userId);
+    }
+
+    public synchronized void invalidateToken(String token) {
+        if (verified.remove(hash(token)) != null)
+            evictions.increment();
+    }
+
+    /**
+     * Forgets every token of the user, so the next request is verified against the identity
+     * provider again.
+     */
+    public synchronized void invalidateUser(String userId) {
+        Iterator<Verified> entries = verified.values().iterator();
+        while (entries.hasNext()) {
+            if (entries.next().userId.equals(userId)) {
+                entries.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return verified.size();
+    }
+
+    @Scheduled(fixedDelayString = "${reverb.security.token-cache.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            Iterator<Verified> entries = verified.values().iterator();
+            while (entries.hasNext()) {
+                if (entries.next().expiresAtMillis <= now) {
+                    entries.remove();
+                    evictions.increment();
+                }
+            }
+        }
+        // Tokens issued before an old revocation have expired by now
+        long forgetBefore = now - props.getRevocationWindow().toMillis();
+        revokedAt.values().removeIf(revoked -> revoked <= forgetBefore);
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to provide SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -14,18 +14,22 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.auth.FirebaseAuthException;
-import com.google.firebase.auth.FirebaseToken;
+import com.revature.security.verifier.TokenVerificationException;
+import com.revature.security.verifier.TokenVerifier;
+import com.revature.security.verifier.VerifiedToken;
 import com.revature.users.User;
 
 @Component
 public class TokenPresentFilter extends OncePerRequestFilter {
 
 	private SecurityService securityService;
+	private TokenVerifier tokenVerifier;
+	private TokenCache tokenCache;
 
-	public TokenPresentFilter(SecurityService securityService) {
+	public TokenPresentFilter(SecurityService securityService, TokenVerifier tokenVerifier, TokenCache tokenCache) {
 		this.securityService = securityService;
+		this.tokenVerifier = tokenVerifier;
+		this.tokenCache = tokenCache;
 	}
 
 	@Override
@@ -35,39 +39,41 @@ public class TokenPresentFilter extends OncePerRequestFilter {
 		filterChain.doFilter(request, response);
 	}
 
-	/* Verifies Token from request header through firebase, and sets the authority for requests
+	/* Verifies Token from request header through the configured TokenVerifier, and sets the authority for requests
+	 Tokens verified before are answered from the token cache until they expire
 	 This filter is automatically applied to every request */
 
 	private void authorize(HttpServletRequest request) {
 		String token = securityService.getBearerToken(request);
 		if (token != null) {
-			FirebaseToken decodedToken = null;
-			try {
-				decodedToken = FirebaseAuth.getInstance().verifyIdToken(token);
-				User user = firebaseTokenToUserDto(decodedToken);
-				if (user != null) {
-					UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, null, null);
-					auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-					SecurityContextHolder.getContext().setAuthentication(auth);
-				}	
-			} catch (FirebaseAuthException e) {
-//				e.printStackTrace();
+			User user = tokenCache.get(token);
+			if (user == null) {
+				try {
+					VerifiedToken verifiedToken = tokenVerifier.verify(token);
+					// Tokens issued before the user logged out are refused
+					if (!tokenCache.isRevoked(verifiedToken.getUserId(), verifiedToken.getIssuedAt())) {
+						user = verifiedTokenToUserDto(verifiedToken);
+						tokenCache.put(token, user, verifiedToken.getIssuedAt(), verifiedToken.getExpiresAt());
+					}
+				} catch (TokenVerificationException e) {
+//					e.printStackTrace();
+				}
 			}
 
-			User user = firebaseTokenToUserDto(decodedToken);
+			if (user != null) {
+				UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(user, null, null);
+				auth.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+				SecurityContextHolder.getContext().setAuthentication(auth);
+			}
 		}
 
 	}
 
-	private User firebaseTokenToUserDto(FirebaseToken decodedToken) {
-		User user = null;
-		if (decodedToken != null) {
-			user = new User();
-			user.setId(decodedToken.getUid());
-			user.setEmail(decodedToken.getEmail());
-		}
+	private User verifiedTokenToUserDto(VerifiedToken verifiedToken) {
+		User user = new User();
+		user.setId(verifiedToken.getUserId());
+		user.setEmail(verifiedToken.getEmail());
 		return user;
 	}
 
 }
-
@@ -0,0 +1,64 @@
+package com.revature.security;
+
+import com.revature.users.User;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Read-only snapshot of the logged-in user: their row plus the ids of the users they follow and
+ * the groups they belong to. Ids are kept in sorted arrays and looked up by binary search, so a
+ * snapshot is small to cache and cheap to query.
+ */
+public class UserContext {
+
+    private final String id;
+    private final String email;
+    private final String[] followeeIds;
+    private final UUID[] groupIds;
+
+    public UserContext(String id, String email, List<String> followeeIds, List<UUID> groupIds) {
+        this.id = id;
+        this.email = email;
+        this.followeeIds = followeeIds.toArray(new String[0]);
+        this.groupIds = groupIds.toArray(new UUID[0]);
+        Arrays.sort(this.followeeIds);
+        Arrays.sort(this.groupIds);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public boolean isFollowing(String userId) {
+        return userId != null && Arrays.binarySearch(followeeIds, userId) >= 0;
+    }
+
+    public boolean isMember(UUID groupId) {
+        return groupId != null && Arrays.binarySearch(groupIds, groupId) >= 0;
+    }
+
+    public List<String> getFolloweeIds() {
+        return Collections.unmodifiableList(Arrays.asList(followeeIds));
+    }
+
+    public List<UUID> getGroupIds() {
+        return Collections.unmodifiableList(Arrays.asList(groupIds));
+    }
+
+    /**
+     * @return a detached principal like the one the token filter puts in the security context
+     */
+    public User toUser() {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(email);
+        return user;
+    }
+}
@@ -3,6 +3,7 @@ package com.revature.security.firebase;
 import com.google.auth.oauth2.GoogleCredentials;
 import com.google.firebase.FirebaseApp;
 import com.google.firebase.FirebaseOptions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
@@ -11,7 +12,9 @@ import org.springframework.core.io.Resource;
 
 import java.io.IOException;
 
+// Only needed when tokens are verified through Firebase, see reverb.security.verifier
 @Configuration
+@ConditionalOnProperty(name = "reverb.security.verifier", havingValue = "firebase", matchIfMissing = true)
 public class FirebaseConfig {
 
     @Primary
@@ -0,0 +1,30 @@
+package com.revature.security.props;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.security.jwks")
+public class JwksProps {
+
+    // Where the key set is read from: classpath:, file: or an http(s) URL; required by the jwks verifier
+    private String location;
+
+    // How often the key set is read again in the background
+    private Duration refreshInterval = Duration.ofMinutes(10);
+
+    // Required iss claim; required by the jwks verifier
+    private String issuer;
+
+    // Required aud claim; required by the jwks verifier
+    private String audience;
+
+    // Tolerated difference between our clock and the issuer's
+    private Duration clockSkew = Duration.ofSeconds(60);
+}
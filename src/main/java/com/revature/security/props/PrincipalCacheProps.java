@@ -0,0 +1,21 @@
+package com.revature.security.props;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.security.principal-cache")
+public class PrincipalCacheProps {
+
+    // Upper bound on the number of users whose snapshot is remembered
+    private int maxEntries = 10000;
+
+    // How long a snapshot is reused across requests; changes made through this server invalidate it sooner
+    private Duration ttl = Duration.ofSeconds(30);
+}
@@ -0,0 +1,24 @@
+package com.revature.security.props;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Component
+@ConfigurationProperties(prefix = "reverb.security.token-cache")
+public class TokenCacheProps {
+
+    // Upper bound on the number of verified tokens remembered
+    private int maxEntries = 50000;
+
+    // Longest a token is trusted without verifying it again, whatever its exp claim says
+    private Duration maxTtl = Duration.ofMinutes(60);
+
+    // How long a logout is remembered; at least the lifetime of an ID token (one hour for Firebase)
+    private Duration revocationWindow = Duration.ofMinutes(60);
+}
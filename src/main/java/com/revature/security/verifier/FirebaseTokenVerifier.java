@@ -0,0 +1,42 @@
+package com.revature.security.verifier;
+
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseAuthException;
+import com.google.firebase.auth.FirebaseToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "reverb.security.verifier", havingValue = "firebase", matchIfMissing = true)
+public class FirebaseTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(FirebaseTokenVerifier.class);
+
+    @Override
+    public VerifiedToken verify(String token) {
+        try {
+            FirebaseToken decodedToken = FirebaseAuth.getInstance().verifyIdToken(token);
+            return new VerifiedToken(decodedToken.getUid(), decodedToken.getEmail(),
+                    seconds(decodedToken.getClaims().get("iat")), seconds(decodedToken.getClaims().get("exp")));
+        } catch (FirebaseAuthException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Invalid Firebase ID token", e);
+        }
+    }
+
+    // Refresh tokens are revoked, so the client cannot get new ID tokens without signing in again
+    @Override
+    public void revoke(String userId) {
+        try {
+            FirebaseAuth.getInstance().revokeRefreshTokens(userId);
+        } catch (FirebaseAuthException | IllegalArgumentException e) {
+            // Tokens already issued are refused locally either way
+            logger.warn("Could not revoke the Firebase refresh tokens of user {}", userId, e);
+        }
+    }
+
+    private static long seconds(Object claim) {
+        return claim instanceof Number ? ((Number) claim).longValue() : 0;
+    }
+}
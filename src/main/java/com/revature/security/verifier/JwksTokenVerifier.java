@@ -0,0 +1,213 @@
+package com.revature.security.verifier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.security.props.JwksProps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Verifies RS256 signed JWTs locally against a JSON Web Key Set, without calling out to an
+ * identity provider. The key set is read at startup and again in the background, so request
+ * threads only ever do local signature and claim checks. A token signed with an unknown key
+ * triggers an early background refresh and is rejected meanwhile.
+ *
+ * The key set location, issuer and audience have no defaults: selecting this verifier without all
+ * three fails startup rather than accepting tokens from any issuer. The stub key set used by the
+ * tests lives in the test resources only.
+ */
+@Component
+@ConditionalOnProperty(name = "reverb.security.verifier", havingValue = "jwks")
+public class JwksTokenVerifier implements TokenVerifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwksTokenVerifier.class);
+
+    private final JwksProps props;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper mapper;
+
+    // Replaced as a whole on refresh
+    private volatile Map<String, PublicKey> keys = Collections.emptyMap();
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "jwks-refresh");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final AtomicBoolean refreshQueued = new AtomicBoolean();
+
+    // Unknown keys trigger a refresh at most this often, so forged kids cannot keep us loading
+    private static final long MIN_ON_DEMAND_REFRESH_MILLIS = 30_000;
+    private volatile long lastRefreshMillis;
+
+    @Autowired
+    public JwksTokenVerifier(JwksProps props, ResourceLoader resourceLoader, ObjectMapper mapper) {
+        this.props = props;
+        this.resourceLoader = resourceLoader;
+        this.mapper = mapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        requireSetting("location", props.getLocation());
+        requireSetting("issuer", props.getIssuer());
+        requireSetting("audience", props.getAudience());
+        refresh();
+        long interval = props.getRefreshInterval().toMillis();
+        refresher.scheduleWithFixedDelay(this::refresh, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Reads the key set again. On failure the keys already loaded stay in use.
+     */
+    public void refresh() {
+        lastRefreshMillis = System.currentTimeMillis();
+        try (InputStream in = resourceLoader.getResource(props.getLocation()).getInputStream()) {
+            Map<String, PublicKey> loaded = new HashMap<>();
+            for (JsonNode key : mapper.readTree(in).path("keys")) {
+                if (!"RSA".equals(key.path("kty").asText()) || "enc".equals(key.path("use").asText()))
+                    continue;
+                BigInteger modulus = new BigInteger(1, decode(key.path("n").asText()));
+                BigInteger exponent = new BigInteger(1, decode(key.path("e").asText()));
+                loaded.put(key.path("kid").asText(""),
+                        KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(modulus, exponent)));
+            }
+            keys = Collections.unmodifiableMap(loaded);
+            logger.debug("Loaded {} signing keys from {}", loaded.size(), props.getLocation());
+        } catch (IOException | GeneralSecurityException | IllegalArgumentException e) {
+            logger.error("Could not load the key set from {}, keeping {} known keys", props.getLocation(), keys.size(), e);
+        }
+    }
+
+    @Override
+    public VerifiedToken verify(String token) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3)
+            throw new TokenVerificationException("Token is not a JWT");
+
+        JsonNode header = readJson(parts[0]);
+        if (!"RS256".equals(header.path("alg").asText()))
+            throw new TokenVerificationException("Unsupported token algorithm");
+
+        PublicKey key = findKey(header.path("kid").asText(""));
+        if (key == null) {
+            refreshSoon();
+            throw new TokenVerificationException("Token signed with an unknown key");
+        }
+        if (!signatureMatches(key, parts))
+            throw new TokenVerificationException("Token signature does not match");
+
+        return readClaims(readJson(parts[1]));
+    }
+
+    private PublicKey findKey(String kid) {
+        Map<String, PublicKey> known = keys;
+        PublicKey key = known.get(kid);
+        // A token without a kid can only be meant for the single key of the set
+        if (key == null && kid.isEmpty() && known.size() == 1)
+            key = known.values().iterator().next();
+        return key;
+    }
+
+    private VerifiedToken readClaims(JsonNode claims) {
+        long now = System.currentTimeMillis() / 1000;
+        long skew = props.getClockSkew().getSeconds();
+
+        long exp = claims.path("exp").asLong(0);
+        if (exp == 0 || exp + skew < now)
+            throw new TokenVerificationException("Token has expired");
+        if (claims.path("iat").asLong(0) > now + skew || claims.path("nbf").asLong(0) > now + skew)
+            throw new TokenVerificationException("Token is not valid yet");
+        if (!props.getIssuer().equals(claims.path("iss").asText()))
+            throw new TokenVerificationException("Token has the wrong issuer");
+        if (!hasAudience(claims.path("aud")))
+            throw new TokenVerificationException("Token has the wrong audience");
+
+        String subject = claims.path("sub").asText("");
+        if (subject.isEmpty())
+            throw new TokenVerificationException("Token has no subject");
+        return new VerifiedToken(subject, claims.path("email").asText(null), claims.path("iat").asLong(0), exp);
+    }
+
+    private boolean hasAudience(JsonNode aud) {
+        if (aud.isArray()) {
+            for (JsonNode value : aud) {
+                if (props.getAudience().equals(value.asText()))
+                    return true;
+            }
+            return false;
+        }
+        return props.getAudience().equals(aud.asText());
+    }
+
+    private static void requireSetting(String name, String value) {
+        if (value == null || value.trim().isEmpty())
+            throw new IllegalStateException("reverb.security.jwks." + name + " must be set to use the jwks verifier");
+    }
+
+    private static boolean signatureMatches(PublicKey key, String[] parts) {
+        try {
+            Signature signature = Signature.getInstance("SHA256withRSA");
+            signature.initVerify(key);
+            signature.update((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            return signature.verify(decode(parts[2]));
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    private JsonNode readJson(String part) {
+        try {
+            return mapper.readTree(decode(part));
+        } catch (IOException | IllegalArgumentException e) {
+            throw new TokenVerificationException("Token is not a JWT", e);
+        }
+    }
+
+    private void refreshSoon() {
+        if (System.currentTimeMillis() - lastRefreshMillis < MIN_ON_DEMAND_REFRESH_MILLIS)
+            return;
+        if (refreshQueued.compareAndSet(false, true)) {
+            refresher.execute(() -> {
+                try {
+                    refresh();
+                } finally {
+                    refreshQueued.set(false);
+                }
+            });
+        }
+    }
+
+    private static byte[] decode(String base64Url) {
+        return Base64.getUrlDecoder().decode(base64Url);
+    }
+}
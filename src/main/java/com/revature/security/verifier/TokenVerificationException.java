@@ -0,0 +1,11 @@
+package com.revature.security.verifier;
+
+public class TokenVerificationException extends RuntimeException {
+    public TokenVerificationException(String msg) {
+        super(msg);
+    }
+
+    public TokenVerificationException(String msg, Throwable cause) {
+        super(msg, cause);
+    }
+}
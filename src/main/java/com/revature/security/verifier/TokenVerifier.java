@@ -0,0 +1,23 @@
+package com.revature.security.verifier;
+
+/**
+ * Checks a bearer token and reads the caller's identity from it. The implementation is picked
+ * with reverb.security.verifier: firebase (default) asks the Firebase Admin SDK, jwks checks
+ * RS256 signatures locally against a cached key set.
+ */
+public interface TokenVerifier {
+
+    /**
+     * @param token - the raw bearer token
+     * @return the verified identity
+     * @throws TokenVerificationException when the token is malformed, forged or expired
+     */
+    VerifiedToken verify(String token);
+
+    /**
+     * Stops the identity provider from issuing further tokens to the user, where it supports that.
+     * Tokens already issued are refused through {@link com.revature.security.TokenCache#revokeUser(String)}.
+     */
+    default void revoke(String userId) {
+    }
+}
@@ -0,0 +1,15 @@
+package com.revature.security.verifier;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class VerifiedToken {
+    private final String userId;
+    private final String email;
+    // The iat claim, in seconds since the epoch
+    private final long issuedAt;
+    // The exp claim, in seconds since the epoch
+    private final long expiresAt;
+}
@@ -2,6 +2,7 @@ package com.revature.users;
 
 import com.revature.groups.Group;
 import com.revature.search.Searchable;
+import com.revature.search.TypeaheadEntityListener;
 import com.revature.users.usersettings.UserSettings;
 import lombok.*;
 
@@ -14,6 +15,7 @@ import java.util.Objects;
 @RequiredArgsConstructor
 @AllArgsConstructor
 @Entity
+@EntityListeners(TypeaheadEntityListener.class)
 @Table(name = "USERS")
 public class User implements Searchable {
 	//ID is coming from firebase, will be unique for each user
@@ -34,7 +36,11 @@ public class User implements Searchable {
     @ManyToMany
     @JoinTable(name = "follower_following",
         joinColumns = {@JoinColumn(name = "uid_follower_fk")},
-        inverseJoinColumns = {@JoinColumn(name = "uid_followee_fk")})
+        inverseJoinColumns = {@JoinColumn(name = "uid_followee_fk")},
+        // Each follow at most once; also the covering index for follow checks and followee lists
+        uniqueConstraints = @UniqueConstraint(name = "uk_follower_following", columnNames = {"uid_follower_fk", "uid_followee_fk"}),
+        // Covering index for follower lists and counts
+        indexes = @Index(name = "idx_follower_following_followee", columnList = "uid_followee_fk, uid_follower_fk"))
     private List<User> following; // changed followUsers to following in order for lombok to generate getters/setters to hit UserDTO
 
     @ManyToMany(mappedBy = "users")
@@ -43,6 +49,10 @@ public class User implements Searchable {
     @ManyToMany(mappedBy = "following", cascade = CascadeType.ALL)
     private List<User> follower;
 
+    // Number of unread notifications owned by this user, maintained by NotificationService in the same transaction
+    @Column(name = "unread_notification_count", columnDefinition = "integer default 0 not null")
+    private int unreadNotificationCount;
+
     @Override
     public String getLabel() {
         return this.email;
@@ -69,13 +79,10 @@ public class User implements Searchable {
 
     @Override
     public String toString() {
+        // Only own columns: printing the relations would load them and recurse through the follow graph
         return "User{" +
                 "id='" + id + '\'' +
-                ", userSettings=" + userSettings +
                 ", email='" + email + '\'' +
-                ", following=" + following +
-                ", groups=" + groups +
-                ", follower=" + follower +
                 '}';
     }
 }
@@ -43,6 +43,14 @@ public class UserController {
     }
 
 
+    /* Logs the user out everywhere: every token issued to them so far is refused from now on */
+    @PostMapping(path = "/logout")
+    public ResponseEntity<Void> logoutUser(@AuthenticationPrincipal User user) {
+        userService.logoutUser(user);
+        return ResponseEntity.noContent().build();
+    }
+
+
 
 
 }
@@ -1,7 +1,12 @@
 package com.revature.users;
+import com.revature.search.IndexRow;
 import com.revature.search.Searchable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.util.List;
 import java.util.Optional;
 
@@ -9,4 +14,37 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, String> {
     List<Searchable> findByEmailContains(String email);
     Optional<User> findUserByEmail(String ownerEmail);
+
+    @Query("select u.email from User u where u.id = :userId")
+    Optional<String> findEmailById(@Param("userId") String userId);
+
+    @Query("select f.id from User u join u.follower f where u.id = :userId")
+    List<String> findFollowerIds(@Param("userId") String userId);
+
+    @Query("select count(f) from User u join u.follower f where u.id = :userId")
+    long countFollowers(@Param("userId") String userId);
+
+    @Query("select f.id from User u join u.following f where u.id = :userId")
+    List<String> findFolloweeIds(@Param("userId") String userId);
+
+    @Query("select u.unreadNotificationCount from User u where u.id = :userId")
+    Optional<Integer> findUnreadNotificationCountById(@Param("userId") String userId);
+
+    @Modifying
+    @Query("update User u set u.unreadNotificationCount = u.unreadNotificationCount + :delta where u.id = :userId")
+    int adjustUnreadNotificationCount(@Param("userId") String userId, @Param("delta") int delta);
+
+    // Rewrites every counter that no longer matches the unread notifications; returns the number of users repaired
+    @Modifying
+    @Transactional
+    @Query(value = "update users set unread_notification_count = (select count(*) from notifications n "
+            + "where n.owner_id_fk = users.user_id and n.is_read = false) "
+            + "where unread_notification_count <> (select count(*) from notifications n "
+            + "where n.owner_id_fk = users.user_id and n.is_read = false)", nativeQuery = true)
+    int reconcileUnreadNotificationCounts();
+
+    // Every user with their profile names, used to build the typeahead index
+    @Query("select new com.revature.search.IndexRow(u.id, u.email, p.firstName, p.lastName) "
+            + "from User u left join Profile p on p.user = u")
+    List<IndexRow> findIndexRows();
 }
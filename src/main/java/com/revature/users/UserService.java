@@ -3,6 +3,8 @@ package com.revature.users;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.Optional;
+import com.revature.security.TokenCache;
+import com.revature.security.verifier.TokenVerifier;
 import com.revature.users.profiles.Profile;
 import com.revature.users.profiles.ProfileRepository;
 
@@ -11,12 +13,17 @@ public class UserService {
 
     private final UserRepository userRepository;
     private ProfileRepository profileRepository;
+    private final TokenCache tokenCache;
+    private final TokenVerifier tokenVerifier;
 
     // constructor
     @Autowired
-    UserService(UserRepository userRepository, ProfileRepository profileRepository) {
+    UserService(UserRepository userRepository, ProfileRepository profileRepository, TokenCache tokenCache,
+                TokenVerifier tokenVerifier) {
         this.userRepository = userRepository;
         this.profileRepository = profileRepository;
+        this.tokenCache = tokenCache;
+        this.tokenVerifier = tokenVerifier;
     }
 
     /*  Parameter: User object
@@ -40,4 +47,13 @@ public class UserService {
             userRepository.save(user);
         }
     }
+
+    /*  Parameter: User
+        Revokes every token of the user issued so far, so the token they logged out with stops working
+        Returns nothing (void)
+     */
+    public void logoutUser(User user) {
+        tokenCache.revokeUser(user.getId());
+        tokenVerifier.revoke(user.getId());
+    }
 }
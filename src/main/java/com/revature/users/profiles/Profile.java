@@ -2,12 +2,14 @@ package com.revature.users.profiles;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.EntityListeners;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.JoinColumn;
 import javax.persistence.OneToOne;
 import javax.persistence.Table;
 
+import com.revature.search.TypeaheadEntityListener;
 import com.revature.users.User;
 import org.hibernate.annotations.Type;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
@@ -23,6 +25,7 @@ import java.util.UUID;
 @Builder
 @EnableAutoConfiguration
 @Entity
+@EntityListeners(TypeaheadEntityListener.class)
 @Table(name = "user_profile")
 public class Profile {
 
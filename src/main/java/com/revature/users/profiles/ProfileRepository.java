@@ -1,5 +1,6 @@
 package com.revature.users.profiles;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -16,6 +17,10 @@ import org.springframework.transaction.annotation.Transactional;
 public interface ProfileRepository extends JpaRepository<Profile, UUID> {
     Optional<Profile> getProfileByUser(User user);
 
+    @Query("select p.user.id as userId, p.id as id, p.firstName as firstName, p.lastName as lastName, "
+            + "p.profileImg as profileImg from Profile p where p.user.id in :userIds")
+    List<ProfileSummary> findSummariesByUserIds(@Param("userIds") Collection<String> userIds);
+
     @Modifying
     @Transactional
     @Query(value="update user_profile set profile_img = :url where id = :id", nativeQuery=true)
@@ -0,0 +1,14 @@
+package com.revature.users.profiles;
+
+import java.util.UUID;
+
+/**
+ * Display fields of a profile keyed by its user, loaded in bulk for author details.
+ */
+public interface ProfileSummary {
+    String getUserId();
+    UUID getId();
+    String getFirstName();
+    String getLastName();
+    String getProfileImg();
+}
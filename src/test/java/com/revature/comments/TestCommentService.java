@@ -6,11 +6,13 @@ import com.revature.comments.CommentService;
 import com.revature.posts.Post;
 import com.revature.comments.CommentRepository;
 import com.revature.posts.PostRepository;
+import com.revature.posts.search.PostIndex;
 import com.revature.users.profiles.ProfileRepository;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.context.ActiveProfiles;
 
 import java.util.ArrayList;
@@ -43,7 +45,8 @@ public class TestCommentService {
 		Mockito.when(postRepository.findById(8L)).thenReturn(Optional.of(post));
 		Mockito.when(commentRepository.findAll()).thenReturn(new ArrayList<Comment>());
 
-		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository);
+		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository, Mockito.mock(PostIndex.class),
+				Mockito.mock(ApplicationEventPublisher.class));
 
 		assertEquals(cs.getComments().size(), 0L);
 	}
@@ -60,7 +63,8 @@ public class TestCommentService {
 		Mockito.when(commentRepository.findAll()).thenReturn(new ArrayList<Comment>());
 		Mockito.when(profileRepository.getProfileByUser(user)).thenReturn(Optional.of(profile));
 
-		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository);
+		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository, Mockito.mock(PostIndex.class),
+				Mockito.mock(ApplicationEventPublisher.class));
 
 		int before = cs.getComments().size();
 		cs.addNewComment(comment, 8L, user);
@@ -82,7 +86,8 @@ public class TestCommentService {
 		Mockito.when(postRepository.findById(8L)).thenReturn(Optional.of(post));
 		Mockito.when(profileRepository.getProfileByUser(user)).thenReturn(Optional.of(profile));
 
-		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository);
+		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository, Mockito.mock(PostIndex.class),
+				Mockito.mock(ApplicationEventPublisher.class));
 
 		int before = cs.getComments().size();
 		cs.addNewComment(comment, 8L, user);
@@ -102,7 +107,8 @@ public class TestCommentService {
 		User user = new User();
 		Post post = new Post();
 		Comment comment = new Comment("Test");
-		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository);
+		CommentService cs = new CommentService(commentRepository, postRepository,  profileRepository, Mockito.mock(PostIndex.class),
+				Mockito.mock(ApplicationEventPublisher.class));
 		Mockito.when(postRepository.findById(99999L)).thenReturn(Optional.empty());
 		try {
 			cs.addNewComment(comment, (Long)99999L, user);
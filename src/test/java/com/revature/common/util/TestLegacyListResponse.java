@@ -0,0 +1,30 @@
+package com.revature.common.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class TestLegacyListResponse {
+
+    @Test
+    public void test_firstPage_marksTruncatedListsWithTheCursorToContinue() {
+        ResponseEntity<List<String>> response = LegacyListResponse.firstPage(Arrays.asList("a", "b"), "next", "/api/things");
+
+        Assertions.assertEquals(Arrays.asList("a", "b"), response.getBody());
+        Assertions.assertEquals("true", response.getHeaders().getFirst(LegacyListResponse.DEPRECATION));
+        Assertions.assertEquals("</api/things>; rel=\"successor-version\"", response.getHeaders().getFirst(HttpHeaders.LINK));
+        Assertions.assertEquals("next", response.getHeaders().getFirst(LegacyListResponse.NEXT_CURSOR));
+    }
+
+    @Test
+    public void test_firstPage_givenCompleteList_hasNoCursor() {
+        ResponseEntity<List<String>> response = LegacyListResponse.firstPage(Arrays.asList("a"), null, "/api/things");
+
+        Assertions.assertFalse(response.getHeaders().containsKey(LegacyListResponse.NEXT_CURSOR));
+        Assertions.assertEquals("true", response.getHeaders().getFirst(LegacyListResponse.DEPRECATION));
+    }
+}
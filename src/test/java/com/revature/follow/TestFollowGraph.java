@@ -0,0 +1,96 @@
+package com.revature.follow;
+
+import com.revature.users.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+@DataJpaTest
+public class TestFollowGraph {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private FollowRepository followRepository;
+
+    private FollowGraph sut;
+    private User alice;
+    private User bob;
+    private User carol;
+
+    @BeforeEach
+    public void setUp() {
+        FollowProperties properties = new FollowProperties();
+        // Small batches so the build has to page through the edges
+        properties.setGraphBuildBatchSize(2);
+        sut = new FollowGraph(followRepository, properties);
+
+        alice = persistUser("graph-alice");
+        bob = persistUser("graph-bob");
+        carol = persistUser("graph-carol");
+        alice.setFollowing(new ArrayList<>(Arrays.asList(bob, carol)));
+        bob.setFollowing(new ArrayList<>(Arrays.asList(carol)));
+        carol.setFollowing(new ArrayList<>(Arrays.asList(alice)));
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_build_readsEveryEdge() {
+        Assertions.assertFalse(sut.isReady());
+        sut.build();
+
+        Assertions.assertTrue(sut.isReady());
+        Assertions.assertTrue(sut.isFollowing("graph-alice", "graph-bob"));
+        Assertions.assertFalse(sut.isFollowing("graph-bob", "graph-alice"));
+        Assertions.assertEquals(2, sut.countFollowees("graph-alice"));
+        Assertions.assertEquals(2, sut.countFollowers("graph-carol"));
+        Assertions.assertEquals(0, sut.countFollowers("graph-nobody"));
+        Assertions.assertEquals(followRepository.countFollowees("graph-alice"), sut.countFollowees("graph-alice"));
+    }
+
+    @Test
+    public void test_followAndUnfollow_updateIncrementally() {
+        sut.build();
+
+        sut.follow("graph-bob", "graph-alice");
+        sut.follow("graph-bob", "graph-alice");
+        sut.unfollow("graph-alice", "graph-carol");
+
+        Assertions.assertTrue(sut.isFollowing("graph-bob", "graph-alice"));
+        Assertions.assertEquals(2, sut.countFollowers("graph-alice"));
+        Assertions.assertFalse(sut.isFollowing("graph-alice", "graph-carol"));
+        Assertions.assertEquals(1, sut.countFollowers("graph-carol"));
+    }
+
+    @Test
+    public void test_intHashSet_matchesJavaSet() {
+        IntHashSet set = new IntHashSet();
+        Set<Integer> expected = new HashSet<>();
+        Random random = new Random(42);
+        for (int i = 0; i < 20000; i++) {
+            int value = random.nextInt(500);
+            if (random.nextBoolean())
+                Assertions.assertEquals(expected.add(value), set.add(value));
+            else
+                Assertions.assertEquals(expected.remove(value), set.remove(value));
+        }
+
+        Assertions.assertEquals(expected.size(), set.size());
+        for (int value = 0; value < 500; value++)
+            Assertions.assertEquals(expected.contains(value), set.contains(value));
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
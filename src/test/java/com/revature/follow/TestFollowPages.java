@@ -0,0 +1,109 @@
+package com.revature.follow;
+
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.follow.dtos.FollowPage;
+import com.revature.follow.dtos.FollowSummary;
+import com.revature.follow.suggestions.FollowSuggestions;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.Profile;
+import com.revature.users.profiles.ProfileRepository;
+import com.revature.users.profiles.ProfileService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+public class TestFollowPages {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FollowRepository followRepository;
+    @Autowired private ProfileRepository profileRepository;
+
+    private FollowingService sut;
+    private User reader;
+
+    @BeforeEach
+    public void setUp() {
+        sut = new FollowingService(userRepository, followRepository, profileRepository, mock(ProfileService.class),
+                mock(TimelineService.class), mock(PrincipalResolver.class), mock(FollowGraph.class),
+                mock(FollowSuggestions.class), mock(ApplicationEventPublisher.class));
+
+        reader = persistUser("page-reader");
+        List<User> followees = new ArrayList<>();
+        for (int i = 0; i < 5; i++)
+            followees.add(persistUser("page-followee-" + i));
+        reader.setFollowing(followees);
+        // Followers are the owning side of their own following lists
+        followees.get(0).setFollowing(new ArrayList<>(Collections.singletonList(reader)));
+        followees.get(3).setFollowing(new ArrayList<>(Collections.singletonList(reader)));
+
+        Profile profile = new Profile();
+        profile.setFirstName("Ada");
+        profile.setLastName("Lovelace");
+        profile.setProfileImg("ada.png");
+        profile.setUser(followees.get(0));
+        entityManager.persist(profile);
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_getFollowingPage_walksAllFolloweesInIdOrder() {
+        FollowPage first = sut.getFollowingPage("page-reader", null, 2);
+        FollowPage second = sut.getFollowingPage("page-reader", first.getNextCursor(), 2);
+        FollowPage last = sut.getFollowingPage("page-reader", second.getNextCursor(), 2);
+
+        Assertions.assertEquals(Arrays.asList("page-followee-0", "page-followee-1"), ids(first));
+        Assertions.assertEquals(Arrays.asList("page-followee-2", "page-followee-3"), ids(second));
+        Assertions.assertEquals(Collections.singletonList("page-followee-4"), ids(last));
+        Assertions.assertNull(last.getNextCursor());
+
+        FollowSummary withProfile = first.getUsers().get(0);
+        Assertions.assertEquals("page-followee-0@reverb.test", withProfile.getEmail());
+        Assertions.assertEquals("Ada", withProfile.getFirstName());
+        Assertions.assertEquals("ada.png", withProfile.getProfileImg());
+        Assertions.assertNull(first.getUsers().get(1).getFirstName());
+    }
+
+    @Test
+    public void test_getFollowerPage_listsFollowers() {
+        FollowPage page = sut.getFollowerPage("page-reader", null, 10);
+
+        Assertions.assertEquals(Arrays.asList("page-followee-0", "page-followee-3"), ids(page));
+        Assertions.assertNull(page.getNextCursor());
+        Assertions.assertEquals(Collections.singletonList("page-reader"), ids(sut.getFollowerPage("page-followee-1", null, 10)));
+    }
+
+    @Test
+    public void test_getFollowingPage_givenMalformedCursor() {
+        Assertions.assertThrows(InvalidRequestException.class, () -> sut.getFollowingPage("page-reader", "not base64!", 10));
+    }
+
+    private static List<String> ids(FollowPage page) {
+        List<String> ids = new ArrayList<>();
+        for (FollowSummary user : page.getUsers())
+            ids.add(user.getId());
+        return ids;
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,107 @@
+package com.revature.follow;
+
+import com.revature.follow.suggestions.FollowSuggestions;
+import com.revature.follow.suggestions.Suggestion;
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.users.User;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@DataJpaTest
+public class TestFollowSuggestions {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private FollowRepository followRepository;
+    @Autowired private GroupRepository groupRepository;
+
+    private FollowGraph graph;
+    private FollowSuggestions sut;
+
+    @BeforeEach
+    public void setUp() {
+        FollowProperties properties = new FollowProperties();
+        properties.setSuggestionsParallelism(2);
+        graph = new FollowGraph(followRepository, properties);
+        sut = new FollowSuggestions(graph, groupRepository, properties);
+
+        User me = persistUser("me");
+        User a = persistUser("a");
+        User b = persistUser("b");
+        User c = persistUser("c");
+        User d = persistUser("d");
+        User e = persistUser("e");
+        User f = persistUser("f");
+        me.setFollowing(new ArrayList<>(Arrays.asList(a, b)));
+        a.setFollowing(new ArrayList<>(Arrays.asList(b, c, d)));
+        b.setFollowing(new ArrayList<>(Arrays.asList(c, e, me)));
+        c.setFollowing(new ArrayList<>(Arrays.asList(f)));
+
+        Group group = new Group();
+        group.setName("suggestion-group");
+        group.setOwner(me);
+        group.setUsers(new ArrayList<>(Arrays.asList(me, d)));
+        entityManager.persist(group);
+        entityManager.flush();
+
+        graph.build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sut.shutdown();
+    }
+
+    @Test
+    public void test_rebuild_ranksByMutualFollowsThenSharedGroups() {
+        sut.rebuild();
+
+        List<Suggestion> suggestions = sut.get("me", 10);
+
+        // b is followed already and me is never suggested to themselves
+        Assertions.assertEquals(Arrays.asList("c", "d", "e"), ids(suggestions));
+        Assertions.assertEquals(2, suggestions.get(0).getMutualFollows());
+        Assertions.assertEquals(1, suggestions.get(1).getSharedGroups());
+        Assertions.assertEquals(0, suggestions.get(2).getSharedGroups());
+        Assertions.assertEquals(Arrays.asList("c", "d"), ids(sut.get("me", 2)));
+        Assertions.assertTrue(sut.get("f", 10).isEmpty());
+    }
+
+    @Test
+    public void test_refreshDirty_recomputesAfterFollow() {
+        sut.rebuild();
+
+        Assertions.assertFalse(ids(sut.get("b", 10)).contains("d"));
+
+        graph.follow("me", "d");
+        sut.followChanged("me");
+        sut.refreshDirty();
+
+        Assertions.assertEquals(Arrays.asList("c", "e"), ids(sut.get("me", 10)));
+        // b follows me, so me's new followee is two hops away from b now
+        Assertions.assertTrue(ids(sut.get("b", 10)).contains("d"));
+    }
+
+    private static List<String> ids(List<Suggestion> suggestions) {
+        List<String> ids = new ArrayList<>();
+        for (Suggestion suggestion : suggestions)
+            ids.add(suggestion.getUserId());
+        return ids;
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
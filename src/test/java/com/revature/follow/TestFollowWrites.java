@@ -0,0 +1,108 @@
+package com.revature.follow;
+
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.follow.suggestions.FollowSuggestions;
+import com.revature.notifications.events.UserFollowedEvent;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.ProfileRepository;
+import com.revature.users.profiles.ProfileService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+public class TestFollowWrites {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private FollowRepository followRepository;
+    @Autowired private ProfileRepository profileRepository;
+
+    private FollowingService sut;
+    private ApplicationEventPublisher eventPublisher;
+    private User follower;
+
+    @BeforeEach
+    public void setUp() {
+        eventPublisher = mock(ApplicationEventPublisher.class);
+        sut = new FollowingService(userRepository, followRepository, profileRepository, mock(ProfileService.class),
+                mock(TimelineService.class), mock(PrincipalResolver.class), new FollowGraph(followRepository, new FollowProperties()),
+                mock(FollowSuggestions.class), eventPublisher);
+
+        follower = persistUser("write-follower");
+        for (int i = 0; i < 3; i++)
+            persistUser("write-followee-" + i);
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_followUser_isIdempotent() {
+        Assertions.assertTrue(sut.followUser(follower, "write-followee-0"));
+        Assertions.assertFalse(sut.followUser(follower, "write-followee-0"));
+        Assertions.assertFalse(sut.followUser(follower, "write-missing"));
+
+        Assertions.assertEquals(1, followRepository.countEdges("write-follower", "write-followee-0"));
+        Assertions.assertEquals(1, followRepository.countFollowees("write-follower"));
+    }
+
+    @Test
+    public void test_unFollowUser_deletesOnlyThatEdge() {
+        sut.followUser(follower, "write-followee-0");
+        sut.followUser(follower, "write-followee-1");
+
+        Assertions.assertTrue(sut.unFollowUser(follower, "write-followee-0"));
+        Assertions.assertFalse(sut.unFollowUser(follower, "write-followee-0"));
+
+        Assertions.assertEquals(0, followRepository.countEdges("write-follower", "write-followee-0"));
+        Assertions.assertEquals(1, followRepository.countFollowees("write-follower"));
+    }
+
+    @Test
+    public void test_followUsers_skipsUnknownSelfAndAlreadyFollowed() {
+        sut.followUser(follower, "write-followee-0");
+
+        int added = sut.followUsers(follower, Arrays.asList("write-followee-0", "write-followee-1", "write-followee-2",
+                "write-followee-2", "write-missing", "write-follower"));
+
+        Assertions.assertEquals(2, added);
+        Assertions.assertEquals(3, followRepository.countFollowees("write-follower"));
+        ArgumentCaptor<UserFollowedEvent> events = ArgumentCaptor.forClass(UserFollowedEvent.class);
+        verify(eventPublisher, times(3)).publishEvent(events.capture());
+        Assertions.assertEquals(Arrays.asList("write-followee-0", "write-followee-1", "write-followee-2"),
+                events.getAllValues().stream().map(UserFollowedEvent::getFolloweeId).collect(Collectors.toList()));
+        Assertions.assertEquals(0, sut.followUsers(follower, new ArrayList<>()));
+    }
+
+    @Test
+    public void test_followUsers_givenTooManyIds() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i <= FollowingService.MAX_BULK_FOLLOWS; i++)
+            ids.add("write-bulk-" + i);
+
+        Assertions.assertThrows(InvalidRequestException.class, () -> sut.followUsers(follower, ids));
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -1,7 +1,10 @@
 package com.revature.follow;
 
 import com.revature.follow.FollowingService;
+import com.revature.follow.suggestions.FollowSuggestions;
+import com.revature.posts.timeline.TimelineService;
 import com.revature.groups.Group;
+import com.revature.security.PrincipalResolver;
 import com.revature.users.User;
 import com.revature.users.profiles.ProfileRepository;
 import com.revature.users.profiles.ProfileService;
@@ -12,6 +15,7 @@ import org.junit.Assert;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -30,7 +34,7 @@ public class TestFollowingServices {
     List<Group> groups  = new ArrayList<>();
     List<User> following = new ArrayList<>();
     List<User> follower = new ArrayList<>();
-    User currentUser = new User("valid", null, "valid@valid.valid", following, groups, follower);
+    User currentUser = new User("valid", null, "valid@valid.valid", following, groups, follower, 0);
 
     @BeforeEach
     public void setUp() {
@@ -38,7 +42,9 @@ public class TestFollowingServices {
         mockFollowRepository = mock(FollowRepository.class);
         mockProfileRepository = mock(ProfileRepository.class);
         mockProfileService = mock(ProfileService.class);
-        sut = new FollowingService(mockUserRepository, mockFollowRepository, mockProfileRepository, mockProfileService);
+        sut = new FollowingService(mockUserRepository, mockFollowRepository, mockProfileRepository, mockProfileService, mock(TimelineService.class),
+                mock(PrincipalResolver.class), mock(FollowGraph.class),
+                mock(FollowSuggestions.class), mock(ApplicationEventPublisher.class));
     }
 
     @AfterEach
@@ -52,7 +58,7 @@ public class TestFollowingServices {
         List<Group> groups  = new ArrayList<>();
         List<User> newFollowing = new ArrayList<>();
         List<User> newFollower = new ArrayList<>();
-        User newUser = new User("valid", null, "valid@valid.valid", newFollowing, groups, newFollower);
+        User newUser = new User("valid", null, "valid@valid.valid", newFollowing, groups, newFollower, 0);
         UserSettings newUserSettings = new UserSettings("valid", newUser ,false);
         newUser.setUserSettings(newUserSettings);
 
@@ -74,7 +80,7 @@ public class TestFollowingServices {
         List<Group> groups  = new ArrayList<>();
         List<User> newFollowing = new ArrayList<>();
         List<User> newFollower = new ArrayList<>();
-        User newUser = new User("valid", null, "valid@valid.valid", newFollowing, groups, newFollower);
+        User newUser = new User("valid", null, "valid@valid.valid", newFollowing, groups, newFollower, 0);
         UserSettings newUserSettings = new UserSettings("valid", newUser ,false);
         newUser.setUserSettings(newUserSettings);
 
@@ -0,0 +1,151 @@
+package com.revature.groups;
+
+import com.revature.common.util.IdCursor;
+import com.revature.exceptions.DuplicateRequestException;
+import com.revature.exceptions.GroupNotFoundException;
+import com.revature.groups.dtos.GroupPage;
+import com.revature.groups.dtos.MemberPage;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+public class TestGroupMembership {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private UserRepository userRepository;
+
+    private MeterRegistry registry;
+    private MembershipCache membershipCache;
+    private GroupService sut;
+
+    private Group group;
+    private User owner;
+    private User joiner;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        membershipCache = new MembershipCache(groupRepository, new MembershipCacheProperties(), registry);
+        sut = new GroupService(groupRepository, userRepository, mock(TimelineService.class), mock(PrincipalResolver.class),
+                membershipCache);
+
+        owner = persistUser("membership-owner");
+        joiner = persistUser("membership-joiner");
+        group = new Group();
+        group.setName("membership-group");
+        group.setOwner(owner);
+        group.setUsers(new ArrayList<>(Collections.singletonList(owner)));
+        entityManager.persist(group);
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_isMember_answersFromOneRow_thenFromCache() {
+        Assertions.assertTrue(membershipCache.isMember(group.getId(), owner.getId()));
+        Assertions.assertTrue(membershipCache.isMember(group.getId(), owner.getId()));
+        Assertions.assertFalse(membershipCache.isMember(group.getId(), joiner.getId()));
+        Assertions.assertFalse(membershipCache.isMember(UUID.randomUUID(), owner.getId()));
+
+        Assertions.assertEquals(1.0, registry.get("cache.gets").tag("cache", "memberships").tag("result", "hit").counter().count());
+        Assertions.assertEquals(3.0, registry.get("cache.gets").tag("cache", "memberships").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void test_isMember_evictsLeastRecentlyUsedAnswer_whenFull() {
+        MembershipCacheProperties props = new MembershipCacheProperties();
+        props.setMaxEntries(2);
+        membershipCache = new MembershipCache(groupRepository, props, registry);
+
+        membershipCache.isMember(group.getId(), owner.getId());
+        membershipCache.isMember(group.getId(), joiner.getId());
+        membershipCache.isMember(group.getId(), owner.getId());
+        membershipCache.isMember(UUID.randomUUID(), owner.getId());
+        Assertions.assertEquals(2, membershipCache.size());
+
+        // The owner's answer was used last, so the joiner's was dropped
+        membershipCache.isMember(group.getId(), owner.getId());
+        membershipCache.isMember(group.getId(), joiner.getId());
+        Assertions.assertEquals(2.0, registry.get("cache.gets").tag("cache", "memberships").tag("result", "hit").counter().count());
+        Assertions.assertEquals(4.0, registry.get("cache.gets").tag("cache", "memberships").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void test_equals_matchesAProxyOfTheSameGroup() {
+        entityManager.clear();
+        Group proxy = entityManager.getEntityManager().getReference(Group.class, group.getId());
+
+        Assertions.assertNotSame(Group.class, proxy.getClass());
+        Assertions.assertEquals(group, proxy);
+        Assertions.assertEquals(proxy, group);
+    }
+
+    @Test
+    public void test_joinGroup_thenLeaveGroup_writesSingleRows() {
+        sut.joinGroup("membership-group", joiner);
+        Assertions.assertThrows(DuplicateRequestException.class, () -> sut.joinGroup("membership-group", joiner));
+        Assertions.assertEquals(1, groupRepository.countMembership(group.getId().toString(), joiner.getId()));
+        Assertions.assertEquals(2, groupRepository.countMembers(group.getId()));
+
+        sut.leaveGroup("membership-group", joiner);
+        Assertions.assertThrows(DuplicateRequestException.class, () -> sut.leaveGroup("membership-group", joiner));
+        Assertions.assertEquals(0, groupRepository.countMembership(group.getId().toString(), joiner.getId()));
+        Assertions.assertEquals(1, groupRepository.countMembers(group.getId()));
+    }
+
+    @Test
+    public void test_getGroups_pagesByName_withMemberCounts() {
+        Group other = new Group();
+        other.setName("membership-other");
+        other.setOwner(joiner);
+        other.setUsers(new ArrayList<>(Arrays.asList(owner, joiner)));
+        entityManager.persist(other);
+        entityManager.flush();
+
+        // Start after the seeded groups' names
+        GroupPage first = sut.getGroups(IdCursor.encode("membership"), 1);
+        GroupPage second = sut.getGroups(first.getNextCursor(), 1);
+
+        Assertions.assertEquals("membership-group", first.getGroups().get(0).getName());
+        Assertions.assertEquals(1, first.getGroups().get(0).getMemberCount());
+        Assertions.assertEquals("membership-other", second.getGroups().get(0).getName());
+        Assertions.assertEquals(2, second.getGroups().get(0).getMemberCount());
+    }
+
+    @Test
+    public void test_getMembers_pagesById() {
+        sut.joinGroup("membership-group", joiner);
+
+        MemberPage first = sut.getMembers("membership-group", null, 1);
+        MemberPage second = sut.getMembers("membership-group", first.getNextCursor(), 1);
+
+        Assertions.assertEquals("membership-joiner", first.getMembers().get(0).getId());
+        Assertions.assertEquals("membership-owner", second.getMembers().get(0).getId());
+        Assertions.assertNull(second.getNextCursor());
+        Assertions.assertThrows(GroupNotFoundException.class, () -> sut.getMembers("membership-missing", null, 1));
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
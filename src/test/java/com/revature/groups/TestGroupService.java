@@ -1,9 +1,12 @@
 package com.revature.groups;
 
 import com.revature.exceptions.*;
+import com.revature.posts.timeline.TimelineService;
 import com.revature.groups.dtos.GroupCreationRequest;
+import com.revature.groups.dtos.GroupPage;
 import com.revature.groups.dtos.GroupResponse;
 import com.revature.groups.dtos.GroupUpdateRequest;
+import com.revature.security.PrincipalResolver;
 import com.revature.users.User;
 import com.revature.users.UserRepository;
 import com.revature.users.usersettings.UserSettings;
@@ -15,12 +18,14 @@ import org.junit.jupiter.api.Test;
 import java.util.*;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 public class TestGroupService {
 
     private GroupRepository mockGroupRepo;
     private UserRepository mockUserRepo;
+    private MembershipCache mockMembershipCache;
 
     private GroupService sut;
 
@@ -28,7 +33,9 @@ public class TestGroupService {
     public void setUp() {
         mockUserRepo = mock(UserRepository.class);
         mockGroupRepo = mock(GroupRepository.class);
-        sut = new GroupService(mockGroupRepo, mockUserRepo);
+        mockMembershipCache = mock(MembershipCache.class);
+        sut = new GroupService(mockGroupRepo, mockUserRepo, mock(TimelineService.class), mock(PrincipalResolver.class),
+                mockMembershipCache);
     }
 
     @AfterEach
@@ -37,25 +44,28 @@ public class TestGroupService {
     }
 
     @Test
-    public void test_getAllGroups_returnsAllGroupsInDatabase() {
-        Group group = new Group();
-        User user = new User();
-        group.setOwner(user);
-
-        group.setUsers(new ArrayList<>());
-        group.setId(UUID.randomUUID());
-
-        Group[] toIterable = {group};
-        Iterable<Group> dummyResult = Arrays.asList(toIterable);
-
-        when(mockGroupRepo.findAll()).thenReturn(dummyResult);
-
-        List<GroupResponse> expectedList = new ArrayList<>();
-        dummyResult.iterator().forEachRemaining(group1 -> expectedList.add(new GroupResponse(group1)));
-
-        List<GroupResponse> actualList = sut.getAllGroups();
-
-        Assertions.assertEquals(expectedList, actualList, "Expected for list to be the same but they were not");
+    public void test_getGroups_returnsPageWithMemberCounts() {
+        List<Group> groups = new ArrayList<>();
+        for (String name : Arrays.asList("a", "b", "c")) {
+            Group group = new Group();
+            group.setOwner(new User());
+            group.setId(UUID.randomUUID());
+            group.setName(name);
+            groups.add(group);
+        }
+        MemberCountRow count = mock(MemberCountRow.class);
+        when(count.getGroupId()).thenReturn(groups.get(0).getId());
+        when(count.getMemberCount()).thenReturn(3L);
+
+        when(mockGroupRepo.findPageAfter(eq(""), any())).thenReturn(groups);
+        when(mockGroupRepo.countMembersByGroupIds(any())).thenReturn(Collections.singletonList(count));
+
+        GroupPage page = sut.getGroups(null, 2);
+
+        Assertions.assertEquals(Arrays.asList(new GroupResponse(groups.get(0), 3), new GroupResponse(groups.get(1), 0)),
+                page.getGroups(), "Expected the first two groups with their member counts");
+        Assertions.assertNotNull(page.getNextCursor(), "Expected a cursor since a third group exists");
+        verify(mockGroupRepo, never()).findAll();
     }
 
     @Test
@@ -68,7 +78,8 @@ public class TestGroupService {
         String groupName = "test";
         group.setName(groupName);
         when(mockGroupRepo.findGroupByName(groupName)).thenReturn(Optional.of(group));
-        GroupResponse expectedResult = new GroupResponse(group);
+        when(mockGroupRepo.countMembers(group.getId())).thenReturn(2L);
+        GroupResponse expectedResult = new GroupResponse(group, 2);
 
         GroupResponse actualResult = sut.getGroup(groupName);
 
@@ -99,10 +110,10 @@ public class TestGroupService {
         group.setOwner(owner);
         group.setId(UUID.randomUUID());
         group.setUsers(new ArrayList<>());
-        GroupResponse expectedResult = new GroupResponse(group);
+        GroupResponse expectedResult = new GroupResponse(group, 1);
 
         when(mockGroupRepo.findGroupByName(validRequest.getName())).thenReturn(Optional.empty());
-        when(mockUserRepo.findUserByEmail(owner.getEmail())).thenReturn(Optional.of(owner));
+        when(mockUserRepo.getById(owner.getId())).thenReturn(owner);
         when(mockGroupRepo.save(any())).thenReturn(group);
 
         // Act
@@ -183,67 +194,41 @@ public class TestGroupService {
     public void test_joinGroup_completesSuccessfully_givenUserIsNotInGroup() {
 
         // Arrange
-        UUID id = UUID.randomUUID();
+        UUID groupId = UUID.randomUUID();
 
         String validGroupName = "Group";
 
         User joiningUser = new User();
-        joiningUser.setId(id.toString());
+        joiningUser.setId(UUID.randomUUID().toString());
         joiningUser.setEmail("email@mail.com");
-        joiningUser.setUserSettings(new UserSettings());
 
-        ArrayList<User> joinedUsers = new ArrayList<>();
-
-        Group foundGroup = new Group();
-        foundGroup.setName("Group");
-        foundGroup.setDescription("I am Group");
-        foundGroup.setProfilePic("Valid");
-        foundGroup.setHeaderImg("Valid");
-        foundGroup.setUsers(joinedUsers);
-
-        when(mockGroupRepo.findGroupByName(validGroupName)).thenReturn(Optional.of(foundGroup));
-        when(mockGroupRepo.save(foundGroup)).thenReturn(foundGroup);
+        when(mockGroupRepo.findIdByName(validGroupName)).thenReturn(Optional.of(groupId));
+        when(mockGroupRepo.insertMemberIfAbsent(groupId.toString(), joiningUser.getId())).thenReturn(1);
 
         // Act
         sut.joinGroup(validGroupName, joiningUser);
 
         // Assert
-        verify(mockGroupRepo, times(1)).findGroupByName(validGroupName);
-        verify(mockGroupRepo, times(1)).save(foundGroup);
-
-        Assertions.assertEquals(1, foundGroup.getUsers().size(), "Expected Length of List to increase by 1");
+        verify(mockGroupRepo, times(1)).insertMemberIfAbsent(groupId.toString(), joiningUser.getId());
+        verify(mockGroupRepo, never()).findGroupByName(any());
+        verify(mockGroupRepo, never()).save(any());
+        verify(mockMembershipCache, times(1)).invalidate(groupId, joiningUser.getId());
     }
 
     @Test
     public void test_joinGroup_throwsDuplicateRequestException_givenUserIsInGroup() {
 
         // Arrange
-        UUID id = UUID.randomUUID();
+        UUID groupId = UUID.randomUUID();
 
         String validGroupName = "Group";
 
-        User joinedUser = new User();
-        joinedUser.setId(id.toString());
-        joinedUser.setEmail("email@mail.com");
-        joinedUser.setUserSettings(new UserSettings());
-
         User joiningUser = new User();
-        joiningUser.setId(id.toString());
+        joiningUser.setId(UUID.randomUUID().toString());
         joiningUser.setEmail("email@mail.com");
-        joiningUser.setUserSettings(new UserSettings());
-
-        ArrayList<User> joinedUsers = new ArrayList<>();
-        joinedUsers.add(joinedUser);
-
-        Group foundGroup = new Group();
-        foundGroup.setName("Group");
-        foundGroup.setDescription("I am Group");
-        foundGroup.setProfilePic("Valid");
-        foundGroup.setHeaderImg("Valid");
-        foundGroup.setUsers(joinedUsers);
 
-        when(mockGroupRepo.findGroupByName(validGroupName)).thenReturn(Optional.of(foundGroup));
-        when(mockGroupRepo.save(foundGroup)).thenReturn(foundGroup);
+        when(mockGroupRepo.findIdByName(validGroupName)).thenReturn(Optional.of(groupId));
+        when(mockGroupRepo.insertMemberIfAbsent(groupId.toString(), joiningUser.getId())).thenReturn(0);
 
         // Act
         Assertions.assertThrows(
@@ -252,78 +237,59 @@ public class TestGroupService {
                 "Expected Duplicate Request Exception to be thrown when User has already joined group");
 
         // Assert
-        verify(mockGroupRepo, times(1)).findGroupByName(validGroupName);
-        verify(mockGroupRepo, times(0)).save(foundGroup);
+        verify(mockMembershipCache, never()).invalidate(any(), any());
+    }
 
-        Assertions.assertEquals(1, foundGroup.getUsers().size(), "Expected Length of List to remain at 1");
+    @Test
+    public void test_joinGroup_throwsGroupNotFoundException_givenUnusedGroupName() {
 
+        User joiningUser = new User();
+        joiningUser.setId(UUID.randomUUID().toString());
+
+        when(mockGroupRepo.findIdByName("unused name")).thenReturn(Optional.empty());
+
+        Assertions.assertThrows(GroupNotFoundException.class, () -> sut.joinGroup("unused name", joiningUser));
+        verify(mockGroupRepo, never()).insertMemberIfAbsent(any(), any());
     }
 
     @Test
     public void test_leaveGroup_completesSuccessfully_givenUserIsInGroup() {
 
         // Arrange
-        UUID id = UUID.randomUUID();
+        UUID groupId = UUID.randomUUID();
 
         String validGroupName = "Group";
 
-        User joinedUser = new User();
-        joinedUser.setId(id.toString());
-        joinedUser.setEmail("email@mail.com");
-        joinedUser.setUserSettings(new UserSettings());
-
         User leavingUser = new User();
-        leavingUser.setId(id.toString());
+        leavingUser.setId(UUID.randomUUID().toString());
         leavingUser.setEmail("email@mail.com");
-        leavingUser.setUserSettings(new UserSettings());
 
-        ArrayList<User> joinedUsers = new ArrayList<>();
-        joinedUsers.add(joinedUser);
-
-        Group foundGroup = new Group();
-        foundGroup.setName("Group");
-        foundGroup.setDescription("I am Group");
-        foundGroup.setProfilePic("Valid");
-        foundGroup.setHeaderImg("Valid");
-        foundGroup.setUsers(joinedUsers);
-
-        when(mockGroupRepo.findGroupByName(validGroupName)).thenReturn(Optional.of(foundGroup));
-        when(mockGroupRepo.save(foundGroup)).thenReturn(foundGroup);
+        when(mockGroupRepo.findIdByName(validGroupName)).thenReturn(Optional.of(groupId));
+        when(mockGroupRepo.deleteMember(groupId.toString(), leavingUser.getId())).thenReturn(1);
 
         // Act
         sut.leaveGroup(validGroupName, leavingUser);
 
         // Assert
-        verify(mockGroupRepo, times(1)).findGroupByName(validGroupName);
-        verify(mockGroupRepo, times(1)).save(foundGroup);
-
-        Assertions.assertEquals(0, foundGroup.getUsers().size(), "Expected Length of List to go down to 0");
+        verify(mockGroupRepo, times(1)).deleteMember(groupId.toString(), leavingUser.getId());
+        verify(mockGroupRepo, never()).save(any());
+        verify(mockMembershipCache, times(1)).invalidate(groupId, leavingUser.getId());
     }
 
     @Test
     public void test_leaveGroup_throwsDuplicateRequestException_givenUserIsNotInGroup() {
 
         // Arrange
-        UUID id = UUID.randomUUID();
+        UUID groupId = UUID.randomUUID();
 
         String validGroupName = "Group";
 
         User leavingUser = new User();
-        leavingUser.setId(id.toString());
+        leavingUser.setId(UUID.randomUUID().toString());
         leavingUser.setEmail("email@mail.com");
-        leavingUser.setUserSettings(new UserSettings());
-
-        ArrayList<User> joinedUsers = new ArrayList<>();
-
-        Group foundGroup = new Group();
-        foundGroup.setName("Group");
-        foundGroup.setDescription("I am Group");
-        foundGroup.setProfilePic("Valid");
-        foundGroup.setHeaderImg("Valid");
-        foundGroup.setUsers(joinedUsers);
 
-        when(mockGroupRepo.findGroupByName(validGroupName)).thenReturn(Optional.of(foundGroup));
-        when(mockGroupRepo.save(foundGroup)).thenReturn(foundGroup);
+        when(mockGroupRepo.findIdByName(validGroupName)).thenReturn(Optional.of(groupId));
+        when(mockGroupRepo.deleteMember(groupId.toString(), leavingUser.getId())).thenReturn(0);
 
         // Act
         Assertions.assertThrows(
@@ -332,11 +298,7 @@ public class TestGroupService {
                 "Expected Duplicate Request Exception to be thrown when User is not in group");
 
         // Assert
-        verify(mockGroupRepo, times(1)).findGroupByName(validGroupName);
-        verify(mockGroupRepo, times(0)).save(foundGroup);
-
-        Assertions.assertEquals(0, foundGroup.getUsers().size(), "Expected Length of List to remain at 0");
-
+        verify(mockMembershipCache, never()).invalidate(any(), any());
     }
 
     @Test
@@ -455,6 +417,7 @@ public class TestGroupService {
 
         when(mockGroupRepo.findGroupByName(validGroupName)).thenReturn(Optional.of(validGroup));
         when(mockUserRepo.findUserByEmail(newOwner.getEmail())).thenReturn(Optional.of(newOwner));
+        when(mockMembershipCache.isMember(validGroup.getId(), newOwner.getId())).thenReturn(true);
         when(mockGroupRepo.save(validGroup)).thenReturn(validGroup);
 
         // Act
@@ -0,0 +1,195 @@
+package com.revature.likes;
+
+import com.revature.common.util.ContentType;
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.exceptions.PostNotFoundException;
+import com.revature.likes.dtos.LikeStatusResponse;
+import com.revature.posts.Post;
+import com.revature.posts.PostRepository;
+import com.revature.posts.postmeta.PostMeta;
+import com.revature.users.User;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@DataJpaTest
+public class TestLikeCounter {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private PostRepository postRepository;
+    @Autowired private LikeRepository likeRepository;
+
+    private LikeService sut;
+    private User liker;
+    private Post post;
+
+    @BeforeEach
+    public void setUp() {
+        sut = new LikeService(postRepository, likeRepository, new LikeCountCache(), mock(ApplicationEventPublisher.class));
+
+        liker = new User();
+        liker.setId("like-counter-user");
+        liker.setEmail("like-counter-user@reverb.test");
+        entityManager.persist(liker);
+
+        post = persistPost("liked post");
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_likePost_countsOnce_andRejectsSecondLike() {
+        sut.likePost(post.getId(), liker);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.likePost(post.getId(), liker));
+        Assertions.assertEquals(1, postRepository.findLikeCountById(post.getId()).get());
+        Assertions.assertTrue(sut.checkIfAlreadyLiked(post.getId(), liker));
+    }
+
+    @Test
+    public void test_likePost_losingAConcurrentLike_isToldItIsLikedAlready() {
+        LikeRepository racing = mock(LikeRepository.class);
+        when(racing.insertIfAbsent(post.getId().toString(), liker.getId()))
+                .thenThrow(new DataIntegrityViolationException("uk_likes_post_liker"));
+        LikeService service = new LikeService(postRepository, racing, new LikeCountCache(), mock(ApplicationEventPublisher.class));
+
+        IllegalStateException thrown = Assertions.assertThrows(IllegalStateException.class,
+                () -> service.likePost(post.getId(), liker));
+        Assertions.assertEquals("If a user has liked the post already", thrown.getMessage());
+    }
+
+    @Test
+    public void test_likePost_givenMissingPost_throws() {
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.likePost(UUID.randomUUID(), liker));
+    }
+
+    @Test
+    public void test_unlikePost_decrementsOnlyWhenALikeWasRemoved() {
+        sut.likePost(post.getId(), liker);
+        sut.unlikePost(post.getId(), liker);
+
+        Assertions.assertThrows(IllegalStateException.class, () -> sut.unlikePost(post.getId(), liker));
+        Assertions.assertEquals(0, postRepository.findLikeCountById(post.getId()).get());
+        Assertions.assertFalse(sut.checkIfAlreadyLiked(post.getId(), liker));
+    }
+
+    @Test
+    public void test_getNumberofLikes_readsTheDatabaseOnce() throws PostNotFoundException {
+        sut.likePost(post.getId(), liker);
+        Assertions.assertEquals(1, sut.getNumberofLikes(post.getId()));
+
+        // Cached totals are not affected by changes made behind the service's back
+        postRepository.adjustLikeCount(post.getId(), 5);
+        Assertions.assertEquals(1, sut.getNumberofLikes(post.getId()));
+
+        Assertions.assertThrows(PostNotFoundException.class, () -> sut.getNumberofLikes(UUID.randomUUID()));
+    }
+
+    @Test
+    public void test_reconcileLikeCounts_repairsDrift() throws PostNotFoundException {
+        sut.likePost(post.getId(), liker);
+        postRepository.adjustLikeCount(post.getId(), 5);
+        Assertions.assertEquals(6, sut.getNumberofLikes(post.getId()));
+
+        sut.reconcileLikeCounts();
+
+        Assertions.assertEquals(1, sut.getNumberofLikes(post.getId()));
+    }
+
+    @Test
+    public void test_reconcileOnStartup_backfillsCountersOfExistingLikes() throws PostNotFoundException {
+        // A like written before the counter column existed
+        Like like = new Like();
+        like.setPost(post);
+        like.setUser(liker);
+        entityManager.persist(like);
+        entityManager.flush();
+        Assertions.assertEquals(0, postRepository.findLikeCountById(post.getId()).get());
+
+        sut.reconcileOnStartup();
+
+        entityManager.clear();
+        Assertions.assertEquals(1, sut.getNumberofLikes(post.getId()));
+    }
+
+    @Test
+    public void test_load_isDropped_whenALikeCommitsDuringTheRead() {
+        LikeCountCache cache = new LikeCountCache();
+        LikeCountCache.Load stale = cache.startLoad(post.getId());
+        // A like commits between the database read and the load
+        cache.invalidate(post.getId());
+        cache.load(post.getId(), stale, 0);
+
+        Assertions.assertNull(cache.get(post.getId()));
+
+        LikeCountCache.Load fresh = cache.startLoad(post.getId());
+        cache.load(post.getId(), fresh, 1);
+        cache.load(post.getId(), stale, 0);
+        Assertions.assertEquals(1, cache.get(post.getId()));
+    }
+
+    @Test
+    public void test_load_evictsLeastRecentlyUsedPost_whenFull() {
+        LikeCountCache cache = new LikeCountCache(2);
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        UUID third = UUID.randomUUID();
+        cache.load(first, cache.startLoad(first), 1);
+        cache.load(second, cache.startLoad(second), 2);
+        cache.get(first);
+        cache.load(third, cache.startLoad(third), 3);
+
+        Assertions.assertEquals(2, cache.size());
+        Assertions.assertEquals(1, cache.get(first));
+        Assertions.assertNull(cache.get(second));
+        Assertions.assertEquals(3, cache.get(third));
+    }
+
+    @Test
+    public void test_getLikeStatuses_answersEveryKnownPostInRequestOrder() {
+        Post other = persistPost("not liked");
+        sut.likePost(post.getId(), liker);
+
+        List<LikeStatusResponse> statuses = sut.getLikeStatuses(Arrays.asList(
+                other.getId().toString(), UUID.randomUUID().toString(), post.getId().toString()), liker);
+
+        Assertions.assertEquals(Arrays.asList(
+                new LikeStatusResponse(other.getId().toString(), 0, false),
+                new LikeStatusResponse(post.getId().toString(), 1, true)), statuses);
+    }
+
+    @Test
+    public void test_getLikeStatuses_rejectsOversizedAndMalformedBatches() {
+        List<String> tooMany = new ArrayList<>(Collections.nCopies(LikeService.MAX_BATCH_SIZE + 1, post.getId().toString()));
+
+        Assertions.assertThrows(InvalidRequestException.class, () -> sut.getLikeStatuses(tooMany, liker));
+        Assertions.assertThrows(InvalidRequestException.class,
+                () -> sut.getLikeStatuses(Collections.singletonList("not-a-uuid"), liker));
+    }
+
+    private Post persistPost(String text) {
+        PostMeta meta = new PostMeta();
+        meta.setAuthor(liker);
+        meta.setContentType(ContentType.IMG);
+        meta.setDate(LocalDateTime.now());
+        entityManager.persist(meta);
+
+        Post newPost = new Post(text, null);
+        newPost.setPostMeta(meta);
+        return entityManager.persist(newPost);
+    }
+}
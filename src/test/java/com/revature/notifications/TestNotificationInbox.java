@@ -0,0 +1,155 @@
+package com.revature.notifications;
+
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.exceptions.NotificationNotFoundException;
+import com.revature.notifications.dtos.NewNotificationRequest;
+import com.revature.notifications.dtos.NotificationPage;
+import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.notificationType.NotificationType;
+import com.revature.notifications.stream.NotificationStream;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+public class TestNotificationInbox {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private UserRepository userRepository;
+
+    private NotificationService sut;
+    private User owner;
+    private User other;
+
+    @BeforeEach
+    public void setUp() {
+        sut = new NotificationService(notificationRepository, userRepository, mock(NotificationStream.class));
+        owner = persistUser("inbox-owner");
+        other = persistUser("inbox-other");
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_getInbox_pagesNewestFirst_withFlatRows() {
+        for (int i = 0; i < 5; i++)
+            create();
+
+        NotificationPage first = sut.getInbox(owner.getId(), null, 3, false);
+        NotificationPage second = sut.getInbox(owner.getId(), first.getNextCursor(), 3, false);
+
+        Assertions.assertEquals(3, first.getNotifications().size());
+        Assertions.assertEquals(2, second.getNotifications().size());
+        Assertions.assertNull(second.getNextCursor());
+        List<NotificationResponse> all = new ArrayList<>(first.getNotifications());
+        all.addAll(second.getNotifications());
+        for (int i = 1; i < all.size(); i++)
+            Assertions.assertFalse(all.get(i).getDate().isAfter(all.get(i - 1).getDate()), "Expected newest first");
+        NotificationResponse row = all.get(0);
+        Assertions.assertEquals("inbox-owner", row.getOwnerId());
+        Assertions.assertEquals("inbox-other", row.getOtherUserId());
+        Assertions.assertEquals("inbox-other@reverb.test", row.getOtherUserEmail());
+        Assertions.assertEquals("Like", row.getTypeName());
+    }
+
+    @Test
+    public void test_markRead_updatesRowsAndUnreadCounter() {
+        for (int i = 0; i < 4; i++)
+            create();
+        Assertions.assertEquals(4, unreadCount());
+
+        List<NotificationResponse> unread = sut.getInbox(owner.getId(), null, 10, true).getNotifications();
+        int marked = sut.markRead(owner, Arrays.asList(unread.get(0).getId(), unread.get(1).getId(), unread.get(1).getId()));
+
+        Assertions.assertEquals(2, marked);
+        Assertions.assertEquals(2, unreadCount());
+        Assertions.assertEquals(2, sut.getInbox(owner.getId(), null, 10, true).getNotifications().size());
+        Assertions.assertEquals(0, sut.markRead(owner, Arrays.asList(unread.get(0).getId())));
+        // Another user cannot mark the owner's notifications
+        Assertions.assertEquals(0, sut.markRead(other, Arrays.asList(unread.get(2).getId())));
+
+        Assertions.assertEquals(2, sut.markRead(owner, null));
+        Assertions.assertEquals(0, unreadCount());
+        Assertions.assertEquals(4, sut.getInbox(owner.getId(), null, 10, false).getNotifications().size());
+    }
+
+    @Test
+    public void test_markRead_rejectsTooManyIds() {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i <= NotificationService.MAX_MARK_READ; i++)
+            ids.add("id-" + i);
+
+        Assertions.assertThrows(InvalidRequestException.class, () -> sut.markRead(owner, ids));
+    }
+
+    @Test
+    public void test_deleteNotification_decrementsUnreadCounter() {
+        create();
+        create();
+        String id = sut.getInbox(owner.getId(), null, 10, false).getNotifications().get(0).getId();
+
+        sut.deleteNotification(id);
+
+        Assertions.assertEquals(1, unreadCount());
+        Assertions.assertEquals(1, sut.getInbox(owner.getId(), null, 10, false).getNotifications().size());
+    }
+
+    @Test
+    public void test_deleteNotification_keepsCounter_forReadNotifications() {
+        create();
+        create();
+        String id = sut.getInbox(owner.getId(), null, 10, false).getNotifications().get(0).getId();
+        sut.markRead(owner, Arrays.asList(id));
+
+        sut.deleteNotification(id);
+
+        Assertions.assertEquals(1, unreadCount());
+        Assertions.assertThrows(NotificationNotFoundException.class, () -> sut.deleteNotification(id));
+    }
+
+    @Test
+    public void test_reconcileOnStartup_backfillsCounterOfExistingNotifications() {
+        create();
+        create();
+        // As if the notifications predate the counter column, which starts at 0
+        userRepository.adjustUnreadNotificationCount(owner.getId(), -2);
+        Assertions.assertEquals(0, unreadCount());
+
+        sut.reconcileOnStartup();
+
+        Assertions.assertEquals(2, unreadCount());
+    }
+
+    private void create() {
+        NewNotificationRequest request = new NewNotificationRequest();
+        request.setOtherUserId(other.getId());
+        request.setType_id(NotificationType.LIKE);
+        sut.createNotification(request, owner);
+        entityManager.flush();
+    }
+
+    // Counter updates bypass the persistence context, so read the row again
+    private int unreadCount() {
+        entityManager.flush();
+        entityManager.clear();
+        return sut.getUnreadCount(owner.getId());
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,232 @@
+package com.revature.notifications;
+
+import com.revature.common.util.ContentType;
+import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.events.CommentAddedEvent;
+import com.revature.notifications.events.PostLikedEvent;
+import com.revature.notifications.events.UserFollowedEvent;
+import com.revature.notifications.notificationType.NotificationType;
+import com.revature.notifications.pipeline.NotificationPipeline;
+import com.revature.notifications.pipeline.NotificationPipelineProperties;
+import com.revature.notifications.stream.NotificationStream;
+import com.revature.posts.Post;
+import com.revature.posts.PostRepository;
+import com.revature.posts.postmeta.PostMeta;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+public class TestNotificationPipeline {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private PostRepository postRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private NotificationPipelineProperties properties;
+    private MeterRegistry registry;
+    private NotificationStream stream;
+    private NotificationPipeline sut;
+    private User author;
+    private Post post;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new NotificationPipelineProperties();
+        registry = new SimpleMeterRegistry();
+        stream = mock(NotificationStream.class);
+        // Not started: the tests write on their own thread through drain()
+        sut = new NotificationPipeline(properties, postRepository, stream, jdbcTemplate, transactionManager, registry);
+
+        author = persistUser("pipeline-author");
+        persistUser("pipeline-a");
+        persistUser("pipeline-b");
+        persistUser("pipeline-c");
+        post = persistPost(author);
+        entityManager.flush();
+    }
+
+    @Test
+    public void test_drain_coalescesLikesOnOnePost_intoOneNotification() {
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-b"));
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        // Liking your own post notifies nobody
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-author"));
+
+        Assertions.assertEquals(4, sut.drain());
+
+        List<NotificationResponse> inbox = inbox("pipeline-author");
+        Assertions.assertEquals(1, inbox.size());
+        NotificationResponse row = inbox.get(0);
+        Assertions.assertEquals(NotificationType.LIKE.getId(), row.getTypeId());
+        Assertions.assertEquals(post.getId(), row.getPostId());
+        Assertions.assertEquals(2, row.getActorCount());
+        Assertions.assertEquals(1, unreadCount("pipeline-author"));
+        verify(stream).notifyChanged(Collections.singleton("pipeline-author"));
+    }
+
+    @Test
+    public void test_drain_foldsIntoUnreadNotification_untilItIsRead() {
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.drain();
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-b"));
+        sut.drain();
+
+        List<NotificationResponse> inbox = inbox("pipeline-author");
+        Assertions.assertEquals(1, inbox.size());
+        Assertions.assertEquals(2, inbox.get(0).getActorCount());
+        Assertions.assertEquals("pipeline-b", inbox.get(0).getOtherUserId());
+        Assertions.assertEquals(1, unreadCount("pipeline-author"));
+
+        notificationRepository.markAllRead("pipeline-author");
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-c"));
+        sut.drain();
+
+        Assertions.assertEquals(2, inbox("pipeline-author").size());
+    }
+
+    @Test
+    public void test_drain_foldsIntoTheNewestUnreadNotification_only() {
+        // Two unread rows about the same post, e.g. written before events were folded
+        LocalDateTime now = LocalDateTime.now();
+        insertUnreadLike("pipeline-older", "pipeline-a", now.minusHours(2));
+        insertUnreadLike("pipeline-newer", "pipeline-b", now.minusHours(1));
+
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-c"));
+        sut.drain();
+
+        Assertions.assertEquals(1, actorCount("pipeline-older"));
+        Assertions.assertEquals(2, actorCount("pipeline-newer"));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from notification_actors where actor_id_fk = 'pipeline-c'", Integer.class));
+        Assertions.assertEquals(2, inbox("pipeline-author").size());
+    }
+
+    @Test
+    public void test_drain_countsAUserOnce_acrossBatches() {
+        // Liked, unliked and liked again: two events in separate batches
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.drain();
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.drain();
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-b"));
+        sut.drain();
+
+        List<NotificationResponse> inbox = inbox("pipeline-author");
+        Assertions.assertEquals(1, inbox.size());
+        Assertions.assertEquals(2, inbox.get(0).getActorCount());
+        Assertions.assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from notification_actors where notification_id_fk = ?", Integer.class, inbox.get(0).getId()));
+    }
+
+    @Test
+    public void test_drain_writesFollowsAndComments_perKind() {
+        sut.onUserFollowed(new UserFollowedEvent("pipeline-a", "pipeline-author"));
+        sut.onUserFollowed(new UserFollowedEvent("pipeline-b", "pipeline-author"));
+        sut.onCommentAdded(new CommentAddedEvent(post.getId(), "pipeline-c"));
+        sut.onUserFollowed(new UserFollowedEvent("pipeline-author", "pipeline-c"));
+        sut.drain();
+
+        List<NotificationResponse> inbox = inbox("pipeline-author");
+        Assertions.assertEquals(2, inbox.size());
+        for (NotificationResponse row : inbox) {
+            if (NotificationType.FOLLOW.getId().equals(row.getTypeId())) {
+                Assertions.assertNull(row.getPostId());
+                Assertions.assertEquals(2, row.getActorCount());
+            } else {
+                Assertions.assertEquals(NotificationType.COMMENT.getId(), row.getTypeId());
+                Assertions.assertEquals(post.getId(), row.getPostId());
+            }
+        }
+        Assertions.assertEquals(2, unreadCount("pipeline-author"));
+        Assertions.assertEquals(1, unreadCount("pipeline-c"));
+    }
+
+    @Test
+    public void test_submit_dropsEvents_whenQueueIsFull() {
+        properties.setQueueCapacity(1);
+        sut = new NotificationPipeline(properties, postRepository, stream, jdbcTemplate, transactionManager, registry);
+
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-b"));
+
+        Assertions.assertEquals(1, sut.queued());
+        Assertions.assertEquals(1.0, registry.get("notifications.pipeline.events").tag("result", "dropped").counter().count());
+    }
+
+    @Test
+    public void test_submit_routesEventsAboutOnePost_toOneWriter() {
+        properties.setQueueCapacity(2);
+        properties.setWorkers(2);
+        sut = new NotificationPipeline(properties, postRepository, stream, jdbcTemplate, transactionManager, registry);
+
+        // Each writer queue holds one event; a second event about the same post finds its queue full
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-a"));
+        sut.onPostLiked(new PostLikedEvent(post.getId(), "pipeline-b"));
+
+        Assertions.assertEquals(1, sut.queued());
+    }
+
+    private List<NotificationResponse> inbox(String ownerId) {
+        entityManager.clear();
+        return notificationRepository.findInbox(ownerId, PageRequest.of(0, 10));
+    }
+
+    private int unreadCount(String userId) {
+        entityManager.clear();
+        return userRepository.findUnreadNotificationCountById(userId).orElse(-1);
+    }
+
+    private void insertUnreadLike(String id, String actorId, LocalDateTime date) {
+        jdbcTemplate.update("insert into notifications (notification_id, is_read, owner_id_fk, type_id, creation_date, "
+                + "other_user_id_fk, post_id_fk, actor_count) values (?, false, ?, ?, ?, ?, ?, 1)",
+                id, author.getId(), NotificationType.LIKE.getId(), Timestamp.valueOf(date), actorId, post.getId().toString());
+        jdbcTemplate.update("insert into notification_actors (notification_id_fk, actor_id_fk) values (?, ?)", id, actorId);
+    }
+
+    private int actorCount(String notificationId) {
+        return jdbcTemplate.queryForObject("select actor_count from notifications where notification_id = ?",
+                Integer.class, notificationId);
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+
+    private Post persistPost(User author) {
+        PostMeta meta = new PostMeta();
+        meta.setAuthor(author);
+        meta.setContentType(ContentType.IMG);
+        meta.setDate(LocalDateTime.now());
+        entityManager.persist(meta);
+
+        Post post = new Post("pipeline post", null);
+        post.setPostMeta(meta);
+        return entityManager.persist(post);
+    }
+}
@@ -0,0 +1,136 @@
+package com.revature.notifications.retention;
+
+import com.revature.notifications.Notification;
+import com.revature.notifications.NotificationRepository;
+import com.revature.notifications.dtos.NotificationResponse;
+import com.revature.notifications.notificationType.NotificationType;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+@DataJpaTest
+public class TestNotificationRetention {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private NotificationRepository notificationRepository;
+    @Autowired private UserRepository userRepository;
+    @Autowired private JdbcTemplate jdbcTemplate;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    private NotificationRetentionProperties properties;
+    private MeterRegistry registry;
+    private NotificationRetention sut;
+    private User owner;
+    private User other;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new NotificationRetentionProperties();
+        // Small batches, so every step takes several transactions
+        properties.setBatchSize(2);
+        registry = new SimpleMeterRegistry();
+        sut = new NotificationRetention(notificationRepository, userRepository, properties, jdbcTemplate,
+                transactionManager, registry);
+
+        owner = persistUser("retention-owner");
+        other = persistUser("retention-other");
+    }
+
+    @Test
+    public void test_run_deletesOldReadNotifications_inBatches() {
+        for (int i = 0; i < 3; i++)
+            persistNotification(true, 40);
+        persistNotification(true, 1);
+        entityManager.flush();
+
+        Assertions.assertEquals(3, sut.run());
+
+        Assertions.assertEquals(1, inbox().size());
+        Assertions.assertEquals(3.0, registry.get("notifications.retention.removed").tag("reason", "expired").counter().count());
+        Assertions.assertEquals(3.0, registry.get("notifications.retention.run.removed").summary().totalAmount());
+    }
+
+    @Test
+    public void test_run_rollsUpOldUnreadNotifications_intoOneSummary() {
+        for (int i = 0; i < 3; i++)
+            persistNotification(false, 100 - i);
+        persistNotification(false, 1);
+        owner.setUnreadNotificationCount(4);
+        entityManager.flush();
+
+        Assertions.assertEquals(2, sut.run());
+
+        List<NotificationResponse> inbox = inbox();
+        Assertions.assertEquals(2, inbox.size());
+        NotificationResponse summary = inbox.get(1);
+        Assertions.assertEquals(3, summary.getActorCount());
+        Assertions.assertEquals(NotificationType.LIKE.getId(), summary.getTypeId());
+        Assertions.assertEquals(other.getId(), summary.getOtherUserId());
+        Assertions.assertEquals(2, (int) userRepository.findUnreadNotificationCountById(owner.getId()).orElse(-1));
+    }
+
+    @Test
+    public void test_run_countsRecordedActorsOnce_inTheSummary() {
+        Notification first = persistNotification(false, 100);
+        Notification second = persistNotification(false, 99);
+        entityManager.flush();
+        // The same user liked both posts
+        notificationRepository.addActor(first.getId(), other.getId());
+        notificationRepository.addActor(second.getId(), other.getId());
+
+        Assertions.assertEquals(1, sut.run());
+
+        NotificationResponse summary = inbox().get(0);
+        Assertions.assertEquals(1, summary.getActorCount());
+        Assertions.assertEquals(1, notificationRepository.findActors(Collections.singletonList(summary.getId())).size());
+    }
+
+    @Test
+    public void test_run_leavesRecentNotificationsAlone() {
+        persistNotification(true, 1);
+        persistNotification(false, 1);
+        persistNotification(false, 2);
+        entityManager.flush();
+
+        Assertions.assertEquals(0, sut.run());
+        Assertions.assertEquals(3, inbox().size());
+    }
+
+    private List<NotificationResponse> inbox() {
+        entityManager.clear();
+        return notificationRepository.findInbox(owner.getId(), PageRequest.of(0, 10));
+    }
+
+    private Notification persistNotification(boolean read, int daysOld) {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID().toString());
+        notification.setIsRead(read);
+        notification.setOwner(owner);
+        notification.setOtherUser(other);
+        notification.setType_id(NotificationType.LIKE);
+        notification.setDate(LocalDateTime.now().minusDays(daysOld));
+        return entityManager.persist(notification);
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,160 @@
+package com.revature.notifications.stream;
+
+import com.revature.common.util.KeysetCursor;
+import com.revature.notifications.Notification;
+import com.revature.notifications.NotificationRepository;
+import com.revature.users.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+@DataJpaTest
+public class TestNotificationStream {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private NotificationRepository notificationRepository;
+
+    private NotificationStreamProperties properties;
+    private NotificationStream sut;
+    private List<RecordingEmitter> emitters;
+    private User owner;
+    private LocalDateTime start;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new NotificationStreamProperties();
+        emitters = new ArrayList<>();
+        // Sends on the calling thread, so the test transaction's rows are visible
+        sut = new NotificationStream(notificationRepository, properties, new SimpleMeterRegistry(), Runnable::run) {
+            @Override
+            SseEmitter createEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+
+        owner = new User();
+        owner.setId("stream-owner");
+        owner.setEmail("stream-owner@reverb.test");
+        entityManager.persist(owner);
+        start = LocalDateTime.now().minusHours(1).truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    @Test
+    public void test_subscribe_sendsOnlyNotificationsWrittenAfterwards() {
+        persistNotification(0);
+        entityManager.flush();
+
+        sut.subscribe(owner.getId(), null);
+        Assertions.assertTrue(emitters.get(0).events.isEmpty(), "Expected notifications seen through the inbox to be skipped");
+
+        Notification fresh = persistNotification(1);
+        entityManager.flush();
+        sut.notifyChanged(owner.getId());
+
+        List<String> events = emitters.get(0).events;
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertTrue(events.get(0).contains("event:" + NotificationStream.NOTIFICATION));
+        Assertions.assertTrue(events.get(0).contains(fresh.getId()));
+    }
+
+    @Test
+    public void test_subscribe_resumesAfterLastEventId_oldestFirst() {
+        Notification first = persistNotification(0);
+        Notification second = persistNotification(1);
+        Notification third = persistNotification(2);
+        entityManager.flush();
+
+        sut.subscribe(owner.getId(), new KeysetCursor(first.getDate(), first.getId()).encode());
+
+        List<String> events = emitters.get(0).events;
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertTrue(events.get(0).contains(second.getId()));
+        Assertions.assertTrue(events.get(1).contains(third.getId()));
+        Assertions.assertTrue(events.get(1).contains("id:" + new KeysetCursor(third.getDate(), third.getId()).encode()));
+    }
+
+    @Test
+    public void test_subscribe_sendsResync_whenFurtherBehindThanBuffer() {
+        properties.setBufferSize(2);
+        Notification first = persistNotification(0);
+        for (int i = 1; i <= 3; i++)
+            persistNotification(i);
+        entityManager.flush();
+
+        sut.subscribe(owner.getId(), new KeysetCursor(first.getDate(), first.getId()).encode());
+
+        List<String> events = emitters.get(0).events;
+        Assertions.assertEquals(1, events.size());
+        Assertions.assertTrue(events.get(0).contains("event:" + NotificationStream.RESYNC));
+    }
+
+    @Test
+    public void test_notifyChanged_sendsNotificationCommittedBehindThePosition() {
+        sut.subscribe(owner.getId(), null);
+        Notification newer = persistNotification(2);
+        entityManager.flush();
+        sut.notifyChanged(owner.getId());
+
+        // Stamped before newer but committed after it was sent, within the reorder window
+        Notification late = persistNotification(start.plusMinutes(2).minusSeconds(5));
+        entityManager.flush();
+        sut.notifyChanged(owner.getId());
+        sut.notifyChanged(owner.getId());
+
+        List<String> events = emitters.get(0).events;
+        Assertions.assertEquals(2, events.size());
+        Assertions.assertTrue(events.get(1).contains(late.getId()));
+        // The position stays at the newest notification sent
+        Assertions.assertTrue(events.get(1).contains("id:" + new KeysetCursor(newer.getDate(), newer.getId()).encode()));
+    }
+
+    @Test
+    public void test_subscribe_closesOldestConnection_overPerUserLimit() {
+        properties.setMaxConnectionsPerUser(1);
+
+        sut.subscribe(owner.getId(), null);
+        sut.subscribe(owner.getId(), null);
+
+        Assertions.assertEquals(1, sut.connections());
+    }
+
+    private Notification persistNotification(int minutes) {
+        return persistNotification(start.plusMinutes(minutes));
+    }
+
+    private Notification persistNotification(LocalDateTime date) {
+        Notification notification = new Notification();
+        notification.setId(UUID.randomUUID().toString());
+        notification.setIsRead(false);
+        notification.setOwner(owner);
+        notification.setDate(date);
+        return entityManager.persist(notification);
+    }
+
+    // Records what would be written to the response
+    private static class RecordingEmitter extends SseEmitter {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            StringBuilder event = new StringBuilder();
+            for (ResponseBodyEmitter.DataWithMediaType part : builder.build())
+                event.append(part.getData());
+            events.add(event.toString());
+        }
+    }
+}
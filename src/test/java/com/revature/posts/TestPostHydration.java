@@ -0,0 +1,237 @@
+package com.revature.posts;
+
+import com.revature.comments.Comment;
+import com.revature.comments.CommentRepository;
+import com.revature.common.util.ContentType;
+import com.revature.follow.FollowRepository;
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.groups.MembershipCache;
+import com.revature.groups.MembershipCacheProperties;
+import com.revature.posts.dtos.PostPage;
+import com.revature.posts.postmeta.PostMeta;
+import com.revature.posts.postmeta.PostMetaRepository;
+import com.revature.posts.search.PostIndex;
+import com.revature.posts.search.PostIndexProperties;
+import com.revature.posts.timeline.FeedProperties;
+import com.revature.posts.timeline.HomeTimelineStore;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
+import com.revature.security.props.PrincipalCacheProps;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.Profile;
+import com.revature.users.profiles.ProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public class TestPostHydration {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private PostRepository postRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private ProfileRepository profileRepository;
+    @Autowired private PostMetaRepository postMetaRepository;
+    @Autowired private FollowRepository followRepository;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private UserRepository userRepository;
+
+    private PostService sut;
+    private User reader;
+    private List<User> commenters;
+
+    @BeforeEach
+    public void setUp() {
+        FeedProperties feedProperties = new FeedProperties();
+        TimelineService timelineService = new TimelineService(feedProperties, new HomeTimelineStore(feedProperties),
+                postRepository, userRepository, groupRepository,
+                new PrincipalResolver(userRepository, groupRepository, new PrincipalCacheProps(), new SimpleMeterRegistry()));
+        sut = new PostService(postRepository, commentRepository, profileRepository, postMetaRepository,
+                followRepository, groupRepository, userRepository, timelineService,
+                new PostIndex(new PostIndexProperties(), postRepository, commentRepository), entityManager.getEntityManager(),
+                new MembershipCache(groupRepository, new MembershipCacheProperties(), new SimpleMeterRegistry()));
+
+        reader = persistUser("hydration-reader");
+        commenters = new ArrayList<>();
+        for (int i = 0; i < 4; i++)
+            commenters.add(persistUser("hydration-commenter-" + i));
+    }
+
+    @Test
+    public void test_getPersonalPosts_usesConstantStatements_regardlessOfPageContents() {
+        persistPosts(2, 1);
+        long smallPage = countStatements();
+
+        persistPosts(10, 4);
+        long largePage = countStatements();
+
+        Assertions.assertEquals(smallPage, largePage, "Expected the statement count not to grow with the page");
+        // feed, comments and profiles
+        Assertions.assertEquals(3, largePage, "Expected a feed page to need exactly three statements");
+    }
+
+    @Test
+    public void test_getPersonalPosts_attachesCommentsAndAuthors() {
+        persistPosts(3, 2);
+
+        PostPage page = sut.getPersonalPosts(reader.getId(), null, 20);
+
+        Assertions.assertEquals(3, page.getPosts().size());
+        page.getPosts().forEach(post -> {
+            Assertions.assertEquals(2, post.getComments().size());
+            post.getComments().forEach(comment ->
+                    Assertions.assertEquals("First", comment.getAuthor().getFirstname()));
+        });
+    }
+
+    @Test
+    public void test_streamPosts_deliversEveryPostInDetachedBatches() {
+        persistPosts(PostRepository.STREAM_FETCH_SIZE + 5, 1);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<Integer> batchSizes = new ArrayList<>();
+        sut.streamPosts(batch -> {
+            batchSizes.add(batch.size());
+            batch.forEach(post -> Assertions.assertEquals(1, post.getComments().size()));
+        });
+
+        Assertions.assertEquals(Arrays.asList(PostRepository.STREAM_FETCH_SIZE, 5), batchSizes);
+        Assertions.assertFalse(entityManager.getEntityManager().contains(reader), "Expected streamed entities to be detached");
+    }
+
+    @Test
+    public void test_getGroupPosts_returnsACursor_onlyWhenPostsAreCutShort() {
+        Group group = persistGroup();
+        persistPosts(3, PostService.COMMENT_PREVIEW_SIZE + 2, group);
+
+        PostPage cut = sut.getGroupPosts(group.getName(), 2);
+        PostPage whole = sut.getGroupPosts(group.getName(), 3);
+        PostPage rest = sut.getGroupFeed(group.getName(), cut.getNextCursor(), 3);
+
+        Assertions.assertEquals(2, cut.getPosts().size());
+        Assertions.assertNotNull(cut.getNextCursor());
+        Assertions.assertEquals(1, rest.getPosts().size());
+        Assertions.assertEquals(3, whole.getPosts().size());
+        Assertions.assertNull(whole.getNextCursor());
+        cut.getPosts().forEach(post -> Assertions.assertEquals(PostService.COMMENT_PREVIEW_SIZE + 2, post.getComments().size()));
+    }
+
+    @Test
+    public void test_getGroupFeed_pagesPostsWithCommentCountsAndPreviews() {
+        Group group = persistGroup();
+        persistPosts(5, PostService.COMMENT_PREVIEW_SIZE + 2, group);
+        persistPosts(2, 1);
+
+        PostPage first = sut.getGroupFeed(group.getName(), null, 3);
+        PostPage second = sut.getGroupFeed(group.getName(), first.getNextCursor(), 3);
+
+        Assertions.assertEquals(3, first.getPosts().size());
+        Assertions.assertEquals(2, second.getPosts().size());
+        Assertions.assertNull(second.getNextCursor());
+        first.getPosts().forEach(post -> {
+            Assertions.assertEquals(group.getName(), post.getGroupName());
+            Assertions.assertEquals(PostService.COMMENT_PREVIEW_SIZE + 2, post.getCommentCount());
+            Assertions.assertEquals(PostService.COMMENT_PREVIEW_SIZE, post.getComments().size());
+        });
+    }
+
+    @Test
+    public void test_getGroupFeed_usesConstantStatements_regardlessOfGroupHistory() {
+        Group group = persistGroup();
+        persistPosts(2, 1, group);
+        long smallGroup = countGroupFeedStatements(group);
+
+        persistPosts(30, 8, group);
+        long busyGroup = countGroupFeedStatements(group);
+
+        Assertions.assertEquals(smallGroup, busyGroup, "Expected the statement count not to grow with the group's posts");
+    }
+
+    private long countGroupFeedStatements(Group group) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        sut.getGroupFeed(group.getName(), null, PostService.DEFAULT_PAGE_SIZE);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private long countStatements() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        sut.getPersonalPosts(reader.getId(), null, PostService.MAX_PAGE_SIZE);
+
+        return statistics.getPrepareStatementCount();
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        entityManager.persist(user);
+
+        Profile profile = new Profile();
+        profile.setFirstName("First");
+        profile.setUser(user);
+        entityManager.persist(profile);
+        return user;
+    }
+
+    private Group persistGroup() {
+        Group group = new Group();
+        group.setName("hydration-group");
+        group.setOwner(reader);
+        group.setUsers(new ArrayList<>(Arrays.asList(reader)));
+        return entityManager.persist(group);
+    }
+
+    private void persistPosts(int posts, int commentsPerPost) {
+        persistPosts(posts, commentsPerPost, null);
+    }
+
+    private void persistPosts(int posts, int commentsPerPost, Group group) {
+        for (int i = 0; i < posts; i++) {
+            PostMeta meta = new PostMeta();
+            meta.setAuthor(reader);
+            meta.setGroup(group);
+            meta.setContentType(ContentType.IMG);
+            // Whole milliseconds, so cursors built from these entities match the stored dates
+            meta.setDate(LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+            entityManager.persist(meta);
+
+            Post post = new Post("post " + i, null);
+            post.setPostMeta(meta);
+            entityManager.persist(post);
+
+            for (int j = 0; j < commentsPerPost; j++) {
+                Comment comment = new Comment("comment " + j);
+                comment.setPost(post);
+                comment.setAuthor(commenters.get(j % commenters.size()));
+                comment.setDate(LocalDateTime.now());
+                entityManager.persist(comment);
+            }
+        }
+    }
+}
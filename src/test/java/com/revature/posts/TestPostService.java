@@ -1,9 +1,12 @@
 package com.revature.posts;
 
 import com.revature.ReverbApplication;
+import com.revature.posts.search.PostIndex;
+import com.revature.posts.timeline.TimelineService;
 import com.revature.comments.CommentRepository;
 import com.revature.follow.FollowRepository;
 import com.revature.groups.GroupRepository;
+import com.revature.groups.MembershipCache;
 import com.revature.posts.PostService;
 import com.revature.posts.postmeta.PostMetaRepository;
 import com.revature.posts.PostRepository;
@@ -14,6 +17,8 @@ import org.mockito.Mockito;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.ActiveProfiles;
 
+import javax.persistence.EntityManager;
+
 import static org.junit.Assert.assertEquals;
 
 @SpringBootTest(classes = ReverbApplication.class)
@@ -27,7 +32,7 @@ public class TestPostService {
 	private FollowRepository followRepository = Mockito.mock(FollowRepository.class);
 	private UserRepository userRepository = Mockito.mock(UserRepository.class);
     private GroupRepository groupRepository = Mockito.mock(GroupRepository.class);
-	private PostService postService =  new PostService(postRepository, commentRepository, profileRepository, sadRepository, followRepository, groupRepository, userRepository);
+	private PostService postService =  new PostService(postRepository, commentRepository, profileRepository, sadRepository, followRepository, groupRepository, userRepository, Mockito.mock(TimelineService.class), Mockito.mock(PostIndex.class), Mockito.mock(EntityManager.class), Mockito.mock(MembershipCache.class));
 
 	//ArrayList<Post> postArray = new ArrayList<Post>();
 	
@@ -0,0 +1,236 @@
+package com.revature.posts.search;
+
+import com.revature.comments.Comment;
+import com.revature.comments.CommentRepository;
+import com.revature.common.util.ContentType;
+import com.revature.exceptions.InvalidRequestException;
+import com.revature.follow.FollowRepository;
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.groups.MembershipCache;
+import com.revature.groups.MembershipCacheProperties;
+import com.revature.posts.Post;
+import com.revature.posts.PostRepository;
+import com.revature.posts.PostSearchRow;
+import com.revature.posts.PostService;
+import com.revature.posts.dtos.PostPage;
+import com.revature.posts.dtos.PostResponse;
+import com.revature.posts.postmeta.PostMeta;
+import com.revature.posts.postmeta.PostMetaRepository;
+import com.revature.posts.timeline.FeedProperties;
+import com.revature.posts.timeline.HomeTimelineStore;
+import com.revature.posts.timeline.TimelineService;
+import com.revature.security.PrincipalResolver;
+import com.revature.security.props.PrincipalCacheProps;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.ProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@DataJpaTest
+public class TestPostSearch {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private PostRepository postRepository;
+    @Autowired private CommentRepository commentRepository;
+    @Autowired private ProfileRepository profileRepository;
+    @Autowired private PostMetaRepository postMetaRepository;
+    @Autowired private FollowRepository followRepository;
+    @Autowired private GroupRepository groupRepository;
+    @Autowired private UserRepository userRepository;
+
+    private PostIndex postIndex;
+    private PostService sut;
+    private User author;
+    private User other;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        postIndex = new PostIndex(new PostIndexProperties(), postRepository, commentRepository);
+        postIndex.open();
+        FeedProperties feedProperties = new FeedProperties();
+        TimelineService timelineService = new TimelineService(feedProperties, new HomeTimelineStore(feedProperties),
+                postRepository, userRepository, groupRepository,
+                new PrincipalResolver(userRepository, groupRepository, new PrincipalCacheProps(), new SimpleMeterRegistry()));
+        sut = new PostService(postRepository, commentRepository, profileRepository, postMetaRepository,
+                followRepository, groupRepository, userRepository, timelineService, postIndex, entityManager.getEntityManager(),
+                new MembershipCache(groupRepository, new MembershipCacheProperties(), new SimpleMeterRegistry()));
+
+        author = persistUser("search-author");
+        other = persistUser("search-other");
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        postIndex.close();
+    }
+
+    @Test
+    public void test_searchPosts_matchesAllWordsInPostsAndComments() {
+        Post beach = persistPost(author, null, "A sunny day at the beach", 1);
+        Post comment = persistPost(author, null, "Nothing to see", 2);
+        persistComment(comment, "the beach was sunny too");
+        persistPost(author, null, "A rainy beach", 3);
+        rebuild();
+
+        Assertions.assertEquals(Arrays.asList(beach.getId(), comment.getId()), ids(sut.searchPosts("Sunny BEACH", null, null, null, 10)));
+    }
+
+    @Test
+    public void test_searchPosts_boostsRecentPosts() {
+        Post old = persistPost(author, null, "weekly update", 60);
+        Post recent = persistPost(author, null, "weekly update", 0);
+        rebuild();
+
+        Assertions.assertEquals(Arrays.asList(recent.getId(), old.getId()), ids(sut.searchPosts("update", null, null, null, 10)));
+    }
+
+    @Test
+    public void test_searchPosts_filtersByGroupAndAuthor() {
+        Group group = new Group();
+        group.setName("search-group");
+        group.setOwner(author);
+        entityManager.persist(group);
+
+        Post inGroup = persistPost(author, group, "release notes", 1);
+        Post byOther = persistPost(other, null, "release notes", 1);
+        persistPost(author, null, "release notes", 1);
+        rebuild();
+
+        Assertions.assertEquals(Arrays.asList(inGroup.getId()),
+                ids(sut.searchPosts("release", group.getId().toString(), null, null, 10)));
+        Assertions.assertEquals(Arrays.asList(byOther.getId()),
+                ids(sut.searchPosts("release", null, other.getId(), null, 10)));
+    }
+
+    @Test
+    public void test_searchPosts_pagesWithCursor() {
+        for (int i = 0; i < 5; i++)
+            persistPost(author, null, "paged post", i);
+        rebuild();
+
+        PostPage first = sut.searchPosts("paged", null, null, null, 3);
+        PostPage second = sut.searchPosts("paged", null, null, first.getNextCursor(), 3);
+
+        Assertions.assertEquals(3, first.getPosts().size());
+        Assertions.assertEquals(2, second.getPosts().size());
+        Assertions.assertNull(second.getNextCursor());
+        Assertions.assertThrows(InvalidRequestException.class, () -> sut.searchPosts("paged", null, null, "abc", 3));
+    }
+
+    @Test
+    public void test_indexPostAndAddComment_areSearchableOnceCommittedAndRefreshed() {
+        Post post = persistPost(author, null, "fresh content", 0);
+        Comment comment = persistComment(post, "an insightful remark");
+        postIndex.indexPost(post);
+        postIndex.addComment(comment.getId(), post.getId(), comment.getCommentText());
+        postIndex.refresh();
+
+        // Still uncommitted, so it could yet be rolled back
+        Assertions.assertTrue(sut.searchPosts("fresh", null, null, null, 10).getPosts().isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        postIndex.refresh();
+
+        Assertions.assertEquals(Arrays.asList(post.getId()), ids(sut.searchPosts("insightful", null, null, null, 10)));
+        Assertions.assertEquals(Arrays.asList(post.getId()), ids(sut.searchPosts("fresh", null, null, null, 10)));
+    }
+
+    @Test
+    public void test_catchUp_indexesWhatTheLastCommitMissed(@TempDir Path directory) throws IOException {
+        PostIndexProperties properties = new PostIndexProperties();
+        properties.setPath(directory.toString());
+        PostIndex onDisk = new PostIndex(properties, postRepository, commentRepository);
+        onDisk.open();
+        Post old = persistPost(author, null, "before the crash", 0);
+        entityManager.flush();
+        onDisk.catchUp();
+
+        // Written after the last commit, and lost with the process
+        Post lost = persistPost(author, null, "after the crash", 0);
+        persistComment(old, "a lost crash remark");
+        entityManager.flush();
+        onDisk.close();
+
+        PostIndex reopened = new PostIndex(properties, postRepository, commentRepository);
+        reopened.open();
+        try {
+            reopened.catchUp();
+
+            Assertions.assertEquals(Arrays.asList(lost.getId()), reopened.search("after", null, null, 0, 10).getPostIds());
+            Assertions.assertEquals(Arrays.asList(old.getId()), reopened.search("remark", null, null, 0, 10).getPostIds());
+        } finally {
+            reopened.close();
+        }
+    }
+
+    @Test
+    public void test_searchByText_matchesWildcardsLiterally() {
+        Post percent = persistPost(author, null, "100% done", 0);
+        persistPost(author, null, "1000 done", 0);
+        Post underscore = persistPost(author, null, "snake_case", 0);
+        persistPost(author, null, "snakeycase", 0);
+        entityManager.flush();
+
+        Assertions.assertEquals(Arrays.asList(percent.getId()), postRepository.searchByText("0%", PageRequest.of(0, 10))
+                .stream().map(PostSearchRow::getId).collect(Collectors.toList()));
+        Assertions.assertEquals(Arrays.asList(underscore.getId()), postRepository.searchByText("E_C", PageRequest.of(0, 10))
+                .stream().map(PostSearchRow::getId).collect(Collectors.toList()));
+    }
+
+    private void rebuild() {
+        entityManager.flush();
+        postIndex.rebuild();
+    }
+
+    private static List<java.util.UUID> ids(PostPage page) {
+        return page.getPosts().stream().map(PostResponse::getId).map(java.util.UUID::fromString).collect(Collectors.toList());
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+
+    private Post persistPost(User by, Group group, String text, int daysAgo) {
+        PostMeta meta = new PostMeta();
+        meta.setAuthor(by);
+        meta.setGroup(group);
+        meta.setContentType(ContentType.IMG);
+        meta.setDate(LocalDateTime.now(ZoneOffset.UTC).minusDays(daysAgo));
+        entityManager.persist(meta);
+
+        Post post = new Post(text, null);
+        post.setPostMeta(meta);
+        return entityManager.persist(post);
+    }
+
+    private Comment persistComment(Post post, String text) {
+        Comment comment = new Comment(text);
+        comment.setPost(post);
+        comment.setAuthor(other);
+        comment.setDate(LocalDateTime.now(ZoneOffset.UTC));
+        return entityManager.persist(comment);
+    }
+}
@@ -0,0 +1,138 @@
+package com.revature.posts.timeline;
+
+import com.revature.posts.timeline.HomeTimelineStore.HighFanOutPost;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+public class TestHomeTimelineStore {
+
+    private static final LocalDateTime START = LocalDateTime.of(2021, 12, 1, 12, 0);
+
+    private FeedProperties feedProperties;
+    private HomeTimelineStore sut;
+
+    @BeforeEach
+    public void setUp() {
+        feedProperties = new FeedProperties();
+        feedProperties.setTimelineSize(3);
+        feedProperties.setHighFanOutSize(1);
+        sut = new HomeTimelineStore(feedProperties);
+    }
+
+    @Test
+    public void test_append_ignoresUsersWithoutSeededTimeline() {
+        sut.append("user", entry(1));
+
+        Assertions.assertFalse(sut.isSeeded("user"));
+        Assertions.assertNull(sut.before("user", null, 10));
+    }
+
+    @Test
+    public void test_before_returnsNewestFirst_givenOutOfOrderAppends() {
+        seed("user", new ArrayList<>());
+        TimelineEntry first = entry(1);
+        TimelineEntry second = entry(2);
+        TimelineEntry third = entry(3);
+
+        sut.append("user", second);
+        sut.append("user", third);
+        sut.append("user", first);
+        sut.append("user", third);
+
+        List<TimelineEntry> page = sut.before("user", null, 10);
+        Assertions.assertEquals(3, page.size());
+        Assertions.assertSame(third, page.get(0));
+        Assertions.assertSame(second, page.get(1));
+        Assertions.assertSame(first, page.get(2));
+    }
+
+    @Test
+    public void test_before_pagesAfterCursor() {
+        seed("user", new ArrayList<>());
+        TimelineEntry first = entry(1);
+        TimelineEntry second = entry(2);
+        sut.append("user", first);
+        sut.append("user", second);
+
+        List<TimelineEntry> page = sut.before("user", second.toCursor(), 10);
+
+        Assertions.assertEquals(1, page.size());
+        Assertions.assertSame(first, page.get(0));
+    }
+
+    @Test
+    public void test_before_returnsNull_whenFullTimelineCannotFillPage() {
+        seed("user", new ArrayList<>());
+        for (int i = 1; i <= 4; i++)
+            sut.append("user", entry(i));
+
+        Assertions.assertEquals(3, sut.before("user", null, 3).size());
+        Assertions.assertNull(sut.before("user", null, 4), "Expected dropped posts to force a query");
+    }
+
+    @Test
+    public void test_addHighFanOut_movesHorizon_whenOldPostIsDropped() {
+        TimelineEntry old = entry(1);
+        sut.addHighFanOut(new HighFanOutPost(old, "celebrity", null));
+        sut.addHighFanOut(new HighFanOutPost(entry(2), "celebrity", null));
+
+        Assertions.assertEquals(old.getDate(), sut.getHighFanOutHorizon());
+        Assertions.assertEquals(1, sut.highFanOutBefore(null).size());
+    }
+
+    @Test
+    public void test_seed_keepsPostsFannedOutWhileTheSeedWasRead() {
+        TimelineEntry older = entry(1);
+        TimelineEntry racing = entry(2);
+        Timeline timeline = sut.startSeeding("user");
+        Assertions.assertNull(sut.startSeeding("user"));
+
+        // Written after the seed was read, before it was installed
+        sut.append("user", racing);
+        Assertions.assertNull(sut.before("user", null, 10), "Expected an unseeded timeline to force a query");
+        sut.seed(timeline, Collections.singletonList(older));
+
+        List<TimelineEntry> page = sut.before("user", null, 10);
+        Assertions.assertEquals(2, page.size());
+        Assertions.assertSame(racing, page.get(0));
+        Assertions.assertSame(older, page.get(1));
+    }
+
+    @Test
+    public void test_seed_skipsFannedOutPostsTheSeedHoldsAlready() {
+        TimelineEntry post = entry(1);
+        Timeline timeline = sut.startSeeding("user");
+        sut.append("user", new TimelineEntry(post.getDate(), post.getPostMetaId()));
+        sut.seed(timeline, Collections.singletonList(post));
+
+        Assertions.assertEquals(1, sut.before("user", null, 10).size());
+    }
+
+    @Test
+    public void test_startSeeding_dropsLeastRecentlyReadTimeline_whenFull() {
+        feedProperties.setMaxTimelines(2);
+        seed("first", new ArrayList<>());
+        seed("second", new ArrayList<>());
+        sut.before("first", null, 10);
+        seed("third", new ArrayList<>());
+
+        Assertions.assertTrue(sut.isSeeded("first"));
+        Assertions.assertFalse(sut.isSeeded("second"));
+        Assertions.assertTrue(sut.isSeeded("third"));
+    }
+
+    private void seed(String userId, List<TimelineEntry> newestFirst) {
+        sut.seed(sut.startSeeding(userId), newestFirst);
+    }
+
+    private static TimelineEntry entry(int minutes) {
+        return new TimelineEntry(START.plusMinutes(minutes), UUID.randomUUID());
+    }
+}
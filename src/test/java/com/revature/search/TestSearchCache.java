@@ -0,0 +1,138 @@
+package com.revature.search;
+
+import com.revature.search.dtos.SearchResponse;
+import com.revature.search.dtos.SearchResponse.EntitySearchResult;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestSearchCache {
+
+    private SearchCacheProperties properties;
+    private MeterRegistry registry;
+
+    @BeforeEach
+    public void setUp() {
+        properties = new SearchCacheProperties();
+        registry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void test_get_loadsOnce_thenServesFromCache() {
+        SearchCache sut = new SearchCache("test", properties, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.get("query", q -> response(loads.incrementAndGet()));
+        SearchResponse cached = sut.get("query", q -> response(loads.incrementAndGet()));
+
+        assertEquals(1, loads.get());
+        assertEquals(1, cached.getResponses().size());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+        assertEquals(1L, registry.get("cache.load").timer().count());
+    }
+
+    @Test
+    public void test_get_evictsLeastRecentlyUsed_whenFull() {
+        properties.setMaxEntries(2);
+        SearchCache sut = new SearchCache("test", properties, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.get("a", q -> response(1));
+        sut.get("b", q -> response(1));
+        sut.get("a", q -> response(1));
+        sut.get("c", q -> response(1));
+        sut.get("a", q -> response(loads.incrementAndGet()));
+        sut.get("b", q -> response(loads.incrementAndGet()));
+
+        assertEquals(1, loads.get(), "Expected only the least recently used query to be evicted");
+        assertEquals(2, sut.size());
+        assertTrue(registry.get("cache.evictions").counter().count() >= 1.0);
+    }
+
+    @Test
+    public void test_get_evictsByWeight() {
+        properties.setMaxWeight(10);
+        SearchCache sut = new SearchCache("test", properties, registry);
+
+        sut.get("small", q -> response(2));
+        sut.get("large", q -> response(8));
+
+        assertEquals(1, sut.size());
+    }
+
+    @Test
+    public void test_get_reloadsExpiredEntries() {
+        properties.setTtl(Duration.ZERO);
+        SearchCache sut = new SearchCache("test", properties, registry);
+        AtomicInteger loads = new AtomicInteger();
+
+        sut.get("query", q -> response(loads.incrementAndGet()));
+        sut.get("query", q -> response(loads.incrementAndGet()));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void test_get_sharesOneLoadBetweenConcurrentMisses() throws Exception {
+        SearchCache sut = new SearchCache("test", properties, registry);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<SearchResponse> first = executor.submit(() -> sut.get("query", q -> {
+                loads.incrementAndGet();
+                loading.countDown();
+                await(release);
+                return response(1);
+            }));
+            loading.await(5, TimeUnit.SECONDS);
+            Future<SearchResponse> second = executor.submit(() -> sut.get("query", q -> response(loads.incrementAndGet())));
+
+            Thread.sleep(50);
+            release.countDown();
+
+            assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void test_get_doesNotCacheFailedLoads() {
+        SearchCache sut = new SearchCache("test", properties, registry);
+
+        assertThrows(IllegalStateException.class, () -> sut.get("query", q -> {
+            throw new IllegalStateException("database unavailable");
+        }));
+
+        assertEquals(1, sut.get("query", q -> response(1)).getResponses().size());
+    }
+
+    private static SearchResponse response(int results) {
+        List<Searchable> entities = new ArrayList<>();
+        for (int i = 0; i < results; i++)
+            entities.add(new EntitySearchResult("label " + i, "key " + i));
+        return new SearchResponse(entities);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -3,6 +3,7 @@ package com.revature.search;
 import com.revature.search.dtos.SearchResponse;
 import com.revature.search.dtos.SearchResponse.EntitySearchResult;
 import com.revature.users.usersettings.UserSettings;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,18 +14,28 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
 
 import com.revature.users.User;
 import com.revature.groups.Group;
 import com.revature.users.UserRepository;
 import com.revature.groups.GroupRepository;
+import com.revature.posts.PostRepository;
+import com.revature.posts.PostSearchRow;
+import com.revature.posts.search.PostIndex;
 
 
 public class TestSearchService {
 
     private UserRepository mockUserRepository;
     private GroupRepository mockGroupRepository;
+    private PostRepository mockPostRepository;
+    private PostIndex mockPostIndex;
+    private TypeaheadIndexer typeahead;
     private SearchService sut;
 
     private List<User> emptyUserList = new ArrayList<>();
@@ -35,14 +46,22 @@ public class TestSearchService {
     public void setUp() {
         mockUserRepository = mock(UserRepository.class);
         mockGroupRepository = mock(GroupRepository.class);
-        sut = new SearchService(mockUserRepository, mockGroupRepository);
+        mockPostRepository = mock(PostRepository.class);
+        mockPostIndex = mock(PostIndex.class);
+        when(mockPostIndex.getMaxWindow()).thenReturn(1000);
+        typeahead = new TypeaheadIndexer(mockUserRepository, mockGroupRepository);
+        sut = new SearchService(mockUserRepository, mockGroupRepository, mockPostRepository, mockPostIndex, typeahead,
+                new SearchProperties(), new SearchCacheProperties(), new SimpleMeterRegistry());
 
         searchableList.add(new EntitySearchResult("7b98dd93-e3e7-4378-8722-b455e1c22698", "First Key"));
         searchableList.add(new EntitySearchResult("9f6b79ae-c897-49cf-a4fe-480fb3b2df92", "Second Key"));
     }
 
     @AfterEach
-    public void cleanTestSetup() { sut = null; }
+    public void cleanTestSetup() {
+        sut.shutdown();
+        sut = null;
+    }
 
     @Test
     public void test_userQuery_returnsListOfUsers_givenStringInput() {
@@ -76,6 +95,85 @@ public class TestSearchService {
         assertTrue(resultsList.getResponses().size() == 0);
     }
 
+    @Test
+    public void test_userAndGroupQuery_doNotShareCachedResults() {
+        when(mockUserRepository.findByEmailContains(any())).thenReturn(searchableList);
+        when(mockGroupRepository.findByNameContains(any())).thenReturn(new ArrayList<>());
+
+        sut.userQuery("same");
+        SearchResponse groups = sut.groupQuery("same");
+
+        assertEquals(0, groups.getResponses().size());
+    }
+
+    @Test
+    public void test_combinedQuery_mergesAndRanksTaggedResults() {
+        when(mockUserRepository.findByEmailContains(any())).thenReturn(Collections.singletonList(
+                new EntitySearchResult("bob@reverb.test", "user-key")));
+        when(mockGroupRepository.findByNameContains(any())).thenReturn(Collections.singletonList(
+                new EntitySearchResult("bob", "group-key")));
+        PostSearchRow post = mock(PostSearchRow.class);
+        when(post.getId()).thenReturn(UUID.randomUUID());
+        when(post.getPostText()).thenReturn("hello bob");
+        when(mockPostRepository.searchByText(any(), any())).thenReturn(Collections.singletonList(post));
+
+        List<EntitySearchResult> results = sut.combinedQuery("bob").getResponses();
+
+        assertEquals(Arrays.asList(SearchResponse.GROUP, SearchResponse.USER, SearchResponse.POST),
+                results.stream().map(EntitySearchResult::getType).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void test_combinedQuery_leavesOutFailingSources() {
+        when(mockUserRepository.findByEmailContains(any())).thenThrow(new IllegalStateException("down"));
+        when(mockGroupRepository.findByNameContains(any())).thenReturn(searchableList);
+        when(mockPostRepository.searchByText(any(), any())).thenReturn(new ArrayList<>());
+
+        SearchResponse results = sut.combinedQuery("Key");
+
+        assertEquals(2, results.getResponses().size());
+        assertTrue(results.getResponses().stream().allMatch(r -> SearchResponse.GROUP.equals(r.getType())));
+    }
+
+    @Test
+    public void test_userQuery_usesTypeaheadIndex_onceBuilt() {
+        when(mockUserRepository.findIndexRows()).thenReturn(Arrays.asList(
+                new IndexRow("1", "alice@reverb.test", "Alice", "Smith"),
+                new IndexRow("2", "bob@reverb.test", "Bob", "Alison")));
+        when(mockGroupRepository.findIndexRows()).thenReturn(new ArrayList<>());
+        typeahead.build();
+
+        List<EntitySearchResult> results = sut.userQuery("ali").getResponses();
+
+        assertEquals(Arrays.asList("1", "2"), results.stream().map(EntitySearchResult::getKey).collect(Collectors.toList()));
+        verify(mockUserRepository, never()).findByEmailContains(any());
+    }
+
+    @Test
+    public void test_postQuery_usesPostIndex_onceReady() {
+        UUID best = UUID.randomUUID();
+        UUID deleted = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+        when(mockPostIndex.isReady()).thenReturn(true);
+        when(mockPostIndex.search("sunny", null, null, 0, new SearchProperties().getMaxPostResults()))
+                .thenReturn(new PostIndex.Hits(Arrays.asList(best, deleted, second), 3));
+        List<PostSearchRow> rows = Arrays.asList(postRow(second, "sunny too"), postRow(best, "sunny"));
+        when(mockPostRepository.findSearchRowsByIds(Arrays.asList(best, deleted, second))).thenReturn(rows);
+
+        List<EntitySearchResult> results = sut.postQuery("sunny").getResponses();
+
+        assertEquals(Arrays.asList(best.toString(), second.toString()),
+                results.stream().map(EntitySearchResult::getKey).collect(Collectors.toList()));
+        verify(mockPostRepository, never()).searchByText(any(), any());
+    }
+
+    private static PostSearchRow postRow(UUID id, String text) {
+        PostSearchRow row = mock(PostSearchRow.class);
+        when(row.getId()).thenReturn(id);
+        when(row.getPostText()).thenReturn(text);
+        return row;
+    }
+
 //    @Test
 //    public void test_query2_searchForUsers_returnsListOfUsers_givenStringInput() {
 //
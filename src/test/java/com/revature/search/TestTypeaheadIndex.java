@@ -0,0 +1,72 @@
+package com.revature.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTypeaheadIndex {
+
+    private TypeaheadIndex sut;
+
+    @BeforeEach
+    public void setUp() {
+        sut = new TypeaheadIndex();
+        sut.put("1", "alice@reverb.test", "Alice Smith");
+        sut.put("2", "bob@reverb.test", "Bob Alison");
+        sut.put("3", "malice@reverb.test", "");
+    }
+
+    @Test
+    public void test_search_ranksPrefixBeforeWordStartBeforeSubstring() {
+        assertEquals(asList("1", "3", "2"), keys(sut.search("ali", 10)));
+    }
+
+    @Test
+    public void test_search_shortQueriesMatchWordStartsOnly() {
+        assertEquals(asList("1", "2"), keys(sut.search("a", 10)));
+        assertEquals(asList("2"), keys(sut.search("bo", 10)));
+    }
+
+    @Test
+    public void test_search_keepsOnlyTheBestMatches() {
+        assertEquals(asList("1"), keys(sut.search("alic", 1)));
+    }
+
+    @Test
+    public void test_search_skipsGramMatchesThatAreNotSubstrings() {
+        // Every gram of "reverbx" but "bx " occurs somewhere, yet none contains the whole query
+        assertTrue(sut.search("bob@reverb.testx", 10).isEmpty());
+    }
+
+    @Test
+    public void test_put_replacesAndRemoveForgets() {
+        sut.put("2", "robert@reverb.test", "Robert");
+        sut.remove("1");
+
+        assertTrue(sut.search("bob", 10).isEmpty());
+        assertEquals(asList("2"), keys(sut.search("rob", 10)));
+        assertEquals(asList("3"), keys(sut.search("alice", 10)));
+        assertEquals(2, sut.size());
+    }
+
+    @Test
+    public void test_put_compactsAfterManyReplacements() {
+        for (int i = 0; i < 5000; i++)
+            sut.put("3", "malice" + i + "@reverb.test", "");
+
+        assertEquals(asList("3"), keys(sut.search("malice4999@", 10)));
+        assertTrue(sut.search("malice0@", 10).isEmpty());
+    }
+
+    private static List<String> keys(List<TypeaheadIndex.Entry> entries) {
+        return entries.stream().map(TypeaheadIndex.Entry::getKey).collect(Collectors.toList());
+    }
+
+    private static List<String> asList(String... keys) {
+        return java.util.Arrays.asList(keys);
+    }
+}
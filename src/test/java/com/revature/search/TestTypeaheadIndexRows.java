@@ -0,0 +1,95 @@
+package com.revature.search;
+
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import com.revature.users.profiles.Profile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+public class TestTypeaheadIndexRows {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private GroupRepository groupRepository;
+
+    private Group group;
+
+    @BeforeEach
+    public void setUp() {
+        User named = persistUser("typeahead-named");
+        persistUser("typeahead-unnamed");
+
+        Profile profile = new Profile();
+        profile.setFirstName("Ada");
+        profile.setLastName("Lovelace");
+        profile.setUser(named);
+        entityManager.persist(profile);
+
+        group = new Group();
+        group.setName("typeahead-engines");
+        group.setOwner(named);
+        group.setUsers(new ArrayList<>(Collections.singletonList(named)));
+        entityManager.persist(group);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    public void test_findIndexRows_readsUsersWithTheirProfileNames() {
+        Map<String, IndexRow> rows = byKey(userRepository.findIndexRows());
+
+        IndexRow named = rows.get("typeahead-named");
+        assertEquals("typeahead-named@reverb.test", named.getLabel());
+        assertEquals("Ada Lovelace", named.getAliases());
+
+        // Users without a profile are still indexed, by their email only
+        IndexRow unnamed = rows.get("typeahead-unnamed");
+        assertEquals("typeahead-unnamed@reverb.test", unnamed.getLabel());
+        assertEquals("", unnamed.getAliases());
+    }
+
+    @Test
+    public void test_findIndexRows_readsGroupsByName() {
+        Map<String, IndexRow> rows = byKey(groupRepository.findIndexRows());
+
+        IndexRow row = rows.get(group.getId().toString());
+        assertEquals("typeahead-engines", row.getLabel());
+        assertEquals("", row.getAliases());
+    }
+
+    @Test
+    public void test_build_makesUsersAndGroupsSearchable() {
+        TypeaheadIndexer sut = new TypeaheadIndexer(userRepository, groupRepository);
+        sut.build();
+
+        assertTrue(sut.isReady());
+        assertEquals("typeahead-named", sut.getUsers().search("lovelace", 10).get(0).getKey());
+        assertEquals(group.getId().toString(), sut.getGroups().search("engines", 10).get(0).getKey());
+    }
+
+    private static Map<String, IndexRow> byKey(List<IndexRow> rows) {
+        return rows.stream().collect(Collectors.toMap(IndexRow::getKey, Function.identity()));
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,151 @@
+package com.revature.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revature.security.props.JwksProps;
+import com.revature.security.verifier.JwksTokenVerifier;
+import com.revature.security.verifier.TokenVerificationException;
+import com.revature.security.verifier.VerifiedToken;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.util.StreamUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestJwksTokenVerifier {
+
+    private static final String ISSUER = "https://reverb.test";
+    private static final String AUDIENCE = "reverb";
+
+    private static PrivateKey stubKey;
+
+    private JwksProps props;
+    private JwksTokenVerifier sut;
+
+    @BeforeAll
+    public static void loadStubKey() throws Exception {
+        String pem = StreamUtils.copyToString(new ClassPathResource("security/stub-private-key.pem").getInputStream(),
+                StandardCharsets.US_ASCII);
+        byte[] der = Base64.getMimeDecoder().decode(pem.replaceAll("-----[A-Z ]+-----", ""));
+        stubKey = KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(der));
+    }
+
+    @BeforeEach
+    public void setUp() {
+        props = new JwksProps();
+        props.setLocation("classpath:security/stub-jwks.json");
+        props.setIssuer(ISSUER);
+        props.setAudience(AUDIENCE);
+        sut = new JwksTokenVerifier(props, new DefaultResourceLoader(), new ObjectMapper());
+        sut.start();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        sut.stop();
+    }
+
+    @Test
+    public void test_verify_acceptsTokenSignedWithStubKey() throws Exception {
+        long exp = now() + 600;
+        String token = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"email\":\"uid@reverb.test\"," + issuedFor() + ",\"iat\":" + now() + ",\"exp\":" + exp + "}");
+
+        VerifiedToken verified = sut.verify(token);
+
+        assertEquals("uid", verified.getUserId());
+        assertEquals("uid@reverb.test", verified.getEmail());
+        assertEquals(exp, verified.getExpiresAt());
+    }
+
+    @Test
+    public void test_verify_rejectsExpiredToken() throws Exception {
+        String token = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"exp\":" + (now() - 3600) + "}");
+
+        assertThrows(TokenVerificationException.class, () -> sut.verify(token));
+    }
+
+    @Test
+    public void test_verify_rejectsTamperedPayload() throws Exception {
+        String token = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"exp\":" + (now() + 600) + "}");
+        String[] parts = token.split("\\.");
+        String forged = parts[0] + "." + encode("{\"sub\":\"admin\",\"exp\":" + (now() + 600) + "}") + "." + parts[2];
+
+        assertThrows(TokenVerificationException.class, () -> sut.verify(forged));
+    }
+
+    @Test
+    public void test_verify_rejectsOtherAlgorithms() {
+        String token = encode("{\"alg\":\"none\"}") + "." + encode("{\"sub\":\"uid\",\"exp\":" + (now() + 600) + "}") + ".";
+
+        assertThrows(TokenVerificationException.class, () -> sut.verify(token));
+        assertThrows(TokenVerificationException.class, () -> sut.verify("not-a-token"));
+    }
+
+    @Test
+    public void test_verify_rejectsUnknownKeyAndWrongAudience() throws Exception {
+        String unknownKey = sign("{\"alg\":\"RS256\",\"kid\":\"rotated-away\"}",
+                "{\"sub\":\"uid\",\"exp\":" + (now() + 600) + "}");
+        assertThrows(TokenVerificationException.class, () -> sut.verify(unknownKey));
+
+        String otherAudience = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"iss\":\"" + ISSUER + "\",\"aud\":\"someone-else\",\"exp\":" + (now() + 600) + "}");
+        assertThrows(TokenVerificationException.class, () -> sut.verify(otherAudience));
+    }
+
+    @Test
+    public void test_verify_rejectsOtherIssuerAndMissingClaims() throws Exception {
+        String otherIssuer = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"iss\":\"https://elsewhere.test\",\"aud\":\"" + AUDIENCE + "\",\"exp\":" + (now() + 600) + "}");
+        assertThrows(TokenVerificationException.class, () -> sut.verify(otherIssuer));
+
+        String unscoped = sign("{\"alg\":\"RS256\",\"kid\":\"reverb-stub-1\"}",
+                "{\"sub\":\"uid\",\"exp\":" + (now() + 600) + "}");
+        assertThrows(TokenVerificationException.class, () -> sut.verify(unscoped));
+    }
+
+    @Test
+    public void test_start_failsWithoutLocationIssuerOrAudience() {
+        JwksProps unset = new JwksProps();
+        assertThrows(IllegalStateException.class,
+                () -> new JwksTokenVerifier(unset, new DefaultResourceLoader(), new ObjectMapper()).start());
+
+        unset.setLocation("classpath:security/stub-jwks.json");
+        unset.setIssuer(ISSUER);
+        unset.setAudience(" ");
+        assertThrows(IllegalStateException.class,
+                () -> new JwksTokenVerifier(unset, new DefaultResourceLoader(), new ObjectMapper()).start());
+    }
+
+    private static String issuedFor() {
+        return "\"iss\":\"" + ISSUER + "\",\"aud\":\"" + AUDIENCE + "\"";
+    }
+
+    private static String sign(String header, String claims) throws Exception {
+        String signingInput = encode(header) + "." + encode(claims);
+        Signature signature = Signature.getInstance("SHA256withRSA");
+        signature.initSign(stubKey);
+        signature.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+        return signingInput + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(signature.sign());
+    }
+
+    private static String encode(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
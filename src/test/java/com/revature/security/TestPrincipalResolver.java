@@ -0,0 +1,136 @@
+package com.revature.security;
+
+import com.revature.exceptions.UserNotFoundException;
+import com.revature.groups.Group;
+import com.revature.groups.GroupRepository;
+import com.revature.security.props.PrincipalCacheProps;
+import com.revature.users.User;
+import com.revature.users.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+@DataJpaTest
+public class TestPrincipalResolver {
+
+    @Autowired private TestEntityManager entityManager;
+    @Autowired private UserRepository userRepository;
+    @Autowired private GroupRepository groupRepository;
+
+    private MeterRegistry registry;
+    private PrincipalResolver sut;
+    private User reader;
+    private User followed;
+    private Group group;
+
+    @BeforeEach
+    public void setUp() {
+        registry = new SimpleMeterRegistry();
+        sut = new PrincipalResolver(userRepository, groupRepository, new PrincipalCacheProps(), registry);
+
+        followed = persistUser("principal-followed");
+        reader = persistUser("principal-reader");
+        reader.setFollowing(new ArrayList<>(Collections.singletonList(followed)));
+
+        group = new Group();
+        group.setName("principal-group");
+        group.setOwner(reader);
+        group.setUsers(new ArrayList<>(Collections.singletonList(reader)));
+        entityManager.persist(group);
+        entityManager.flush();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+    }
+
+    @Test
+    public void test_resolve_loadsFolloweesAndGroups() {
+        UserContext context = sut.require(reader);
+
+        Assertions.assertEquals("principal-reader@reverb.test", context.getEmail());
+        Assertions.assertTrue(context.isFollowing(followed.getId()));
+        Assertions.assertFalse(context.isFollowing("someone-else"));
+        Assertions.assertTrue(context.isMember(group.getId()));
+        Assertions.assertFalse(context.isMember(null));
+    }
+
+    @Test
+    public void test_resolve_loadsOncePerRequest_andSharesAcrossRequests() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        UserContext first = sut.resolve(reader);
+        UserContext second = sut.resolve(reader);
+
+        Assertions.assertSame(first, second);
+        Assertions.assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+        Assertions.assertEquals(0.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        Assertions.assertSame(first, sut.resolve(reader));
+        Assertions.assertEquals(1.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void test_invalidate_reloadsWithinTheSameRequest() {
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+        Assertions.assertFalse(sut.resolve(reader).isFollowing("principal-new"));
+
+        User newlyFollowed = persistUser("principal-new");
+        reader.setFollowing(new ArrayList<>(Arrays.asList(followed, newlyFollowed)));
+        entityManager.flush();
+        sut.invalidate(reader.getId());
+
+        Assertions.assertTrue(sut.resolve(reader).isFollowing("principal-new"));
+    }
+
+    @Test
+    public void test_resolve_evictsLeastRecentlyUsedUser_whenFull() {
+        PrincipalCacheProps props = new PrincipalCacheProps();
+        props.setMaxEntries(2);
+        sut = new PrincipalResolver(userRepository, groupRepository, props, registry);
+        User other = persistUser("principal-other");
+        entityManager.flush();
+
+        sut.resolve(reader);
+        sut.resolve(followed);
+        sut.resolve(reader);
+        sut.resolve(other);
+
+        Assertions.assertEquals(2, sut.size());
+        Assertions.assertEquals(1.0, registry.get("cache.evictions").counter().count());
+        // The reader was used more recently than the followed user, so is still remembered
+        sut.resolve(reader);
+        Assertions.assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+    }
+
+    @Test
+    public void test_resolve_givenUnregisteredUser() {
+        User unknown = new User();
+        unknown.setId("principal-unknown");
+
+        Assertions.assertNull(sut.resolve(unknown));
+        Assertions.assertThrows(UserNotFoundException.class, () -> sut.require(unknown));
+        Assertions.assertEquals(0, sut.size());
+    }
+
+    private User persistUser(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return entityManager.persist(user);
+    }
+}
@@ -0,0 +1,122 @@
+package com.revature.security;
+
+import com.revature.security.props.TokenCacheProps;
+import com.revature.users.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TestTokenCache {
+
+    private TokenCacheProps props;
+    private MeterRegistry registry;
+    private TokenCache sut;
+
+    @BeforeEach
+    public void setUp() {
+        props = new TokenCacheProps();
+        registry = new SimpleMeterRegistry();
+        sut = new TokenCache(props, registry);
+    }
+
+    @Test
+    public void test_get_returnsCopyOfCachedPrincipal_untilExpiry() {
+        sut.put("token", user("uid"), issued(), inSeconds(600));
+
+        User first = sut.get("token");
+        User second = sut.get("token");
+
+        assertEquals("uid", first.getId());
+        assertEquals("uid@reverb.test", first.getEmail());
+        assertNotSame(first, second);
+        assertNull(sut.get("other-token"));
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").counter().count());
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").counter().count());
+    }
+
+    @Test
+    public void test_put_ignoresExpiredTokens() {
+        sut.put("token", user("uid"), issued(), inSeconds(-1));
+
+        assertNull(sut.get("token"));
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void test_put_evictsLeastRecentlyUsed_whenFull() {
+        props.setMaxEntries(2);
+        sut.put("a", user("a"), issued(), inSeconds(600));
+        sut.put("b", user("b"), issued(), inSeconds(600));
+        sut.get("a");
+        sut.put("c", user("c"), issued(), inSeconds(600));
+
+        assertEquals(2, sut.size());
+        assertNotNull(sut.get("a"));
+        assertNull(sut.get("b"));
+        assertNotNull(sut.get("c"));
+        assertEquals(1.0, registry.get("cache.evictions").counter().count());
+    }
+
+    @Test
+    public void test_invalidateUser_forgetsEveryTokenOfTheUser() {
+        sut.put("a1", user("a"), issued(), inSeconds(600));
+        sut.put("a2", user("a"), issued(), inSeconds(600));
+        sut.put("b1", user("b"), issued(), inSeconds(600));
+
+        sut.invalidateUser("a");
+        sut.invalidateToken("b1");
+
+        assertEquals(0, sut.size());
+    }
+
+    @Test
+    public void test_revokeUser_refusesTokensIssuedBefore() {
+        long before = issued() - 5;
+        sut.put("a1", user("a"), before, inSeconds(600));
+        sut.put("b1", user("b"), before, inSeconds(600));
+
+        sut.revokeUser("a");
+
+        assertNull(sut.get("a1"));
+        assertNotNull(sut.get("b1"));
+        assertTrue(sut.isRevoked("a", before));
+        assertFalse(sut.isRevoked("b", before));
+        assertFalse(sut.isRevoked("a", issued() + 5));
+
+        // A token verified before the logout cannot be cached after it
+        sut.put("a1", user("a"), before, inSeconds(600));
+        assertNull(sut.get("a1"));
+        sut.put("a2", user("a"), issued() + 5, inSeconds(600));
+        assertNotNull(sut.get("a2"));
+    }
+
+    @Test
+    public void test_evictExpired_forgetsRevocationsPastTheWindow() {
+        props.setRevocationWindow(Duration.ZERO);
+        sut.revokeUser("a");
+
+        sut.evictExpired();
+
+        assertFalse(sut.isRevoked("a", 0));
+    }
+
+    private static User user(String id) {
+        User user = new User();
+        user.setId(id);
+        user.setEmail(id + "@reverb.test");
+        return user;
+    }
+
+    private static long issued() {
+        return inSeconds(0);
+    }
+
+    private static long inSeconds(long seconds) {
+        return System.currentTimeMillis() / 1000 + seconds;
+    }
+}
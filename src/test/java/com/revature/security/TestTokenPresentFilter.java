@@ -0,0 +1,79 @@
+package com.revature.security;
+
+import com.revature.security.props.TokenCacheProps;
+import com.revature.security.verifier.TokenVerifier;
+import com.revature.security.verifier.VerifiedToken;
+import com.revature.users.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TestTokenPresentFilter {
+
+    private TokenVerifier tokenVerifier;
+    private TokenCache tokenCache;
+    private TokenPresentFilter sut;
+
+    @BeforeEach
+    public void setUp() {
+        tokenVerifier = mock(TokenVerifier.class);
+        tokenCache = new TokenCache(new TokenCacheProps(), new SimpleMeterRegistry());
+        sut = new TokenPresentFilter(new SecurityService(), tokenVerifier, tokenCache);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void test_doFilter_verifiesOnce_thenAnswersFromCache() throws Exception {
+        when(tokenVerifier.verify("token")).thenReturn(verified("uid", now() - 10));
+
+        assertEquals("uid", authenticate("token").getId());
+        assertEquals("uid", authenticate("token").getId());
+
+        verify(tokenVerifier, times(1)).verify("token");
+    }
+
+    @Test
+    public void test_doFilter_refusesTokensIssuedBeforeLogout() throws Exception {
+        when(tokenVerifier.verify("old")).thenReturn(verified("uid", now() - 10));
+        when(tokenVerifier.verify("new")).thenReturn(verified("uid", now() + 10));
+        assertNotNull(authenticate("old"));
+
+        tokenCache.revokeUser("uid");
+
+        // Neither the cached entry nor a fresh verification lets the old token back in
+        assertNull(authenticate("old"));
+        verify(tokenVerifier, times(2)).verify("old");
+        assertNotNull(authenticate("new"));
+    }
+
+    private User authenticate(String token) throws Exception {
+        SecurityContextHolder.clearContext();
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer " + token);
+        sut.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? null : (User) auth.getPrincipal();
+    }
+
+    private static VerifiedToken verified(String userId, long issuedAt) {
+        return new VerifiedToken(userId, userId + "@reverb.test", issuedAt, now() + 600);
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,33 @@
+package com.revature.users;
+
+import com.revature.security.TokenCache;
+import com.revature.security.props.TokenCacheProps;
+import com.revature.security.verifier.TokenVerifier;
+import com.revature.users.profiles.ProfileRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class TestUserService {
+
+    @Test
+    public void test_logoutUser_revokesCachedAndIssuedTokens() {
+        TokenCache tokenCache = new TokenCache(new TokenCacheProps(), new SimpleMeterRegistry());
+        TokenVerifier tokenVerifier = mock(TokenVerifier.class);
+        UserService sut = new UserService(mock(UserRepository.class), mock(ProfileRepository.class), tokenCache, tokenVerifier);
+
+        User user = new User();
+        user.setId("uid");
+        user.setEmail("uid@reverb.test");
+        long issuedAt = System.currentTimeMillis() / 1000 - 10;
+        tokenCache.put("token", user, issuedAt, issuedAt + 600);
+
+        sut.logoutUser(user);
+
+        assertNull(tokenCache.get("token"));
+        assertTrue(tokenCache.isRevoked("uid", issuedAt));
+        verify(tokenVerifier).revoke("uid");
+    }
+}